@@ -14,6 +14,8 @@
  *******************************************************************************/
 package com.google.gdt.eclipse.designer.gxt.databinding;
 
+import com.google.gdt.eclipse.designer.gxt.databinding.model.beans.ModelDataPropertiesIndex;
+
 import org.eclipse.wb.internal.core.BundleResourceProvider;
 
 import org.eclipse.jface.preference.IPreferenceStore;
@@ -41,6 +43,7 @@ public final class Activator extends AbstractUIPlugin {
   ////////////////////////////////////////////////////////////////////////////
   @Override
   public void stop(BundleContext context) throws Exception {
+    ModelDataPropertiesIndex.dispose();
     m_plugin = null;
     super.stop(context);
   }
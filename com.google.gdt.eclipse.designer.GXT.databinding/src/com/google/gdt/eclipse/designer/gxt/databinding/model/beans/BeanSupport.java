@@ -25,21 +25,12 @@ import org.eclipse.wb.internal.core.databinding.model.presentation.SimpleObserve
 import org.eclipse.wb.internal.core.databinding.model.reference.IReferenceProvider;
 import org.eclipse.wb.internal.core.databinding.model.reference.StringReferenceProvider;
 import org.eclipse.wb.internal.core.databinding.ui.decorate.IObserveDecorator;
-import org.eclipse.wb.internal.core.databinding.utils.CoreUtils;
 import org.eclipse.wb.internal.core.utils.ast.AstEditor;
-import org.eclipse.wb.internal.core.utils.ast.AstNodeUtils;
-import org.eclipse.wb.internal.core.utils.ast.DomGenerics;
 import org.eclipse.wb.internal.core.utils.reflect.ReflectionUtils;
 
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IType;
-import org.eclipse.jdt.core.dom.ASTVisitor;
-import org.eclipse.jdt.core.dom.Expression;
-import org.eclipse.jdt.core.dom.MethodInvocation;
-import org.eclipse.jdt.core.dom.StringLiteral;
-
-import org.apache.commons.lang.StringUtils;
 
 import java.util.Collections;
 import java.util.List;
@@ -53,7 +44,6 @@ import java.util.Set;
  */
 public final class BeanSupport {
   private final ClassLoader m_classLoader;
-  private final AstEditor m_editor;
   private final IJavaProject m_javaProject;
   private final Class<?> m_ModelDataClass;
   private final Map<Class<?>, List<String>> m_properties = Maps.newHashMap();
@@ -67,7 +57,6 @@ public final class BeanSupport {
   public BeanSupport(ClassLoader classLoader, AstEditor editor, IJavaProject javaProject)
       throws Exception {
     m_classLoader = classLoader;
-    m_editor = editor;
     m_javaProject = javaProject == null ? editor.getJavaProject() : javaProject;
     m_ModelDataClass = classLoader.loadClass("com.extjs.gxt.ui.client.data.ModelData");
   }
@@ -131,9 +120,20 @@ public final class BeanSupport {
           Map<String, Class<?>> classes = Maps.newHashMap();
           m_classes.put(beanClass, classes);
           //
-          Set<String> uniqueProperties = Sets.newHashSet();
-          AstEditor editor = new AstEditor(compilationUnit);
-          editor.getAstUnit().accept(new PropertiesVisitor(uniqueProperties, classes));
+          Map<String, String> unitProperties =
+              ModelDataPropertiesIndex.getProperties(compilationUnit);
+          Set<String> uniqueProperties = Sets.newHashSet(unitProperties.keySet());
+          for (Map.Entry<String, String> entry : unitProperties.entrySet()) {
+            String className = entry.getValue();
+            if (!className.equals("java.lang.Object")) {
+              try {
+                Class<?> propertyClass = ReflectionUtils.getClassByName(m_classLoader, className);
+                classes.put(entry.getKey(), propertyClass);
+              } catch (Throwable e) {
+                // class of property is not available, so its type is unknown
+              }
+            }
+          }
           //
           Class<?> superClass = beanClass.getSuperclass();
           if (superClass != null) {
@@ -158,69 +158,4 @@ public final class BeanSupport {
     }
     return Collections.emptyList();
   }
-
-  private class PropertiesVisitor extends ASTVisitor {
-    private final Set<String> m_properties;
-    private final Map<String, Class<?>> m_classes;
-
-    ////////////////////////////////////////////////////////////////////////////
-    //
-    // Constructor
-    //
-    ////////////////////////////////////////////////////////////////////////////
-    public PropertiesVisitor(Set<String> properties, Map<String, Class<?>> classes) {
-      m_properties = properties;
-      m_classes = classes;
-    }
-
-    ////////////////////////////////////////////////////////////////////////////
-    //
-    // ASTVisitor
-    //
-    ////////////////////////////////////////////////////////////////////////////
-    @Override
-    public void endVisit(MethodInvocation invocation) {
-      try {
-        String signature = AstNodeUtils.getMethodSignature(invocation);
-        List<Expression> arguments = DomGenerics.arguments(invocation);
-        if (signature.equals("get(java.lang.String)")
-            || signature.startsWith("set(java.lang.String,")
-            && arguments.size() == 2) {
-          String className;
-          if (arguments.size() == 1) {
-            className =
-                AstNodeUtils.getFullyQualifiedName(
-                    AstNodeUtils.getMethodBinding(invocation).getReturnType(),
-                    true);
-          } else {
-            className = AstNodeUtils.getFullyQualifiedName(arguments.get(1), true);
-          }
-          String propertyName = null;
-          if (m_editor == null) {
-            Expression expression = arguments.get(0);
-            if (expression instanceof StringLiteral) {
-              StringLiteral literal = (StringLiteral) expression;
-              propertyName = literal.getLiteralValue();
-            }
-          } else {
-            propertyName = CoreUtils.evaluate(String.class, m_editor, arguments.get(0));
-          }
-          if (!StringUtils.isEmpty(propertyName)) {
-            m_properties.add(propertyName);
-            if (!className.equals("java.lang.Object") && !m_classes.containsKey(propertyName)) {
-              try {
-                m_classes.put(
-                    propertyName,
-                    ReflectionUtils.getClassByName(m_classLoader, className));
-              } catch (Throwable e) {
-                System.out.println(className + " = " + e); // XXX
-              }
-            }
-          }
-        }
-      } catch (Throwable e) {
-        System.out.println(e); // XXX
-      }
-    }
-  }
 }
\ No newline at end of file
@@ -0,0 +1,341 @@
+/*******************************************************************************
+ * Copyright 2011 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.designer.gxt.databinding.model.beans;
+
+import com.google.common.collect.Maps;
+import com.google.gdt.eclipse.designer.gxt.databinding.Activator;
+import com.google.gdt.eclipse.designer.util.Utils;
+
+import org.eclipse.wb.internal.core.DesignerPlugin;
+import org.eclipse.wb.internal.core.utils.ast.AstNodeUtils;
+import org.eclipse.wb.internal.core.utils.ast.DomGenerics;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.Expression;
+import org.eclipse.jdt.core.dom.MethodInvocation;
+import org.eclipse.jdt.core.dom.StringLiteral;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Workspace index of <code>ModelData</code> properties, i.e. names and types used in
+ * <code>get(String)</code> and <code>set(String, Object)</code> invocations of compilation unit.
+ * <p>
+ * Properties of unit are parsed only when unit is changed, so {@link BeanSupport} does not parse
+ * whole model hierarchy each time when bindings are shown. Entries are removed on Java element
+ * changes and also checked using modification stamp of unit, because index is kept between
+ * sessions. Changed index is saved in background, soon after change.
+ *
+ * @author lobas_av
+ * @coverage bindings.gxt.model
+ */
+public final class ModelDataPropertiesIndex {
+  private static final String INDEX_FILE_NAME = "modelDataProperties.index";
+  private static final int VERSION = 1;
+  private static final String OBJECT_CLASS_NAME = "java.lang.Object";
+  /**
+   * Delay in milliseconds between change of index and saving it.
+   */
+  private static final long SAVE_DELAY = 5000;
+  private static final Map<String, Entry> m_entries = Maps.newHashMap();
+  private static boolean m_loaded;
+  private static boolean m_dirty;
+  private static IElementChangedListener m_javaListener;
+  private static Job m_saveJob;
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Constructor
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  private ModelDataPropertiesIndex() {
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Access
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  /**
+   * @return the properties used in given {@link ICompilationUnit}, in order of their first usage,
+   *         mapped to fully qualified names of their types. Type is
+   *         <code>"java.lang.Object"</code> if unknown.
+   */
+  public static synchronized Map<String, String> getProperties(ICompilationUnit unit)
+      throws Exception {
+    load();
+    installListener();
+    // unit with unsaved changes is not cached
+    IResource resource = unit.getResource();
+    if (resource == null || unit.hasUnsavedChanges()) {
+      return parseProperties(unit);
+    }
+    // check for existing entry
+    String key = unit.getHandleIdentifier();
+    String stamp = resource.getModificationStamp() + ":" + resource.getLocalTimeStamp();
+    Entry entry = m_entries.get(key);
+    if (entry == null || !entry.stamp.equals(stamp)) {
+      entry = new Entry(stamp, parseProperties(unit));
+      m_entries.put(key, entry);
+      markDirty();
+    }
+    return entry.properties;
+  }
+
+  /**
+   * Saves index on disk, if it was changed.
+   */
+  public static synchronized void save() {
+    if (!m_dirty) {
+      return;
+    }
+    m_dirty = false;
+    try {
+      File file = getIndexFile();
+      file.getParentFile().mkdirs();
+      DataOutputStream output =
+          new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+      try {
+        output.writeInt(VERSION);
+        output.writeInt(m_entries.size());
+        for (Map.Entry<String, Entry> mapEntry : m_entries.entrySet()) {
+          Entry entry = mapEntry.getValue();
+          output.writeUTF(mapEntry.getKey());
+          output.writeUTF(entry.stamp);
+          output.writeInt(entry.properties.size());
+          for (Map.Entry<String, String> property : entry.properties.entrySet()) {
+            output.writeUTF(property.getKey());
+            output.writeUTF(property.getValue());
+          }
+        }
+      } finally {
+        IOUtils.closeQuietly(output);
+      }
+    } catch (Throwable e) {
+      DesignerPlugin.log(e);
+    }
+  }
+
+  /**
+   * Saves index and stops listening for Java changes.
+   */
+  public static synchronized void dispose() {
+    if (m_javaListener != null) {
+      JavaCore.removeElementChangedListener(m_javaListener);
+      m_javaListener = null;
+    }
+    if (m_saveJob != null) {
+      m_saveJob.cancel();
+      m_saveJob = null;
+    }
+    save();
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Parsing
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  private static Map<String, String> parseProperties(ICompilationUnit unit) {
+    final Map<String, String> properties = Maps.newLinkedHashMap();
+    Utils.parseUnit(unit).accept(new ASTVisitor() {
+      @Override
+      public void endVisit(MethodInvocation invocation) {
+        try {
+          addProperty(properties, invocation);
+        } catch (Throwable e) {
+          DesignerPlugin.log(e);
+        }
+      }
+    });
+    return Collections.unmodifiableMap(properties);
+  }
+
+  /**
+   * Adds property, if given {@link MethodInvocation} is <code>get(String)</code> or
+   * <code>set(String, Object)</code> with constant property name.
+   */
+  private static void addProperty(Map<String, String> properties, MethodInvocation invocation) {
+    String signature = AstNodeUtils.getMethodSignature(invocation);
+    List<Expression> arguments = DomGenerics.arguments(invocation);
+    if (signature.equals("get(java.lang.String)")
+        || signature.startsWith("set(java.lang.String,")
+        && arguments.size() == 2) {
+      String className;
+      if (arguments.size() == 1) {
+        className =
+            AstNodeUtils.getFullyQualifiedName(
+                AstNodeUtils.getMethodBinding(invocation).getReturnType(),
+                true);
+      } else {
+        className = AstNodeUtils.getFullyQualifiedName(arguments.get(1), true);
+      }
+      String propertyName = getPropertyName(arguments.get(0));
+      if (!StringUtils.isEmpty(propertyName)) {
+        String oldClassName = properties.get(propertyName);
+        if (oldClassName == null || oldClassName.equals(OBJECT_CLASS_NAME)) {
+          properties.put(propertyName, className);
+        }
+      }
+    }
+  }
+
+  /**
+   * @return the value of string literal or constant, may be <code>null</code>.
+   */
+  private static String getPropertyName(Expression expression) {
+    if (expression instanceof StringLiteral) {
+      return ((StringLiteral) expression).getLiteralValue();
+    }
+    Object value = expression.resolveConstantExpressionValue();
+    return value instanceof String ? (String) value : null;
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Implementation
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  /**
+   * Loads index from disk, once in session.
+   */
+  private static void load() {
+    if (m_loaded) {
+      return;
+    }
+    m_loaded = true;
+    try {
+      File file = getIndexFile();
+      if (!file.isFile()) {
+        return;
+      }
+      DataInputStream input =
+          new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+      try {
+        if (input.readInt() != VERSION) {
+          return;
+        }
+        int entryCount = input.readInt();
+        for (int i = 0; i < entryCount; i++) {
+          String key = input.readUTF();
+          String stamp = input.readUTF();
+          Map<String, String> properties = Maps.newLinkedHashMap();
+          int propertyCount = input.readInt();
+          for (int j = 0; j < propertyCount; j++) {
+            properties.put(input.readUTF(), input.readUTF());
+          }
+          m_entries.put(key, new Entry(stamp, Collections.unmodifiableMap(properties)));
+        }
+      } finally {
+        IOUtils.closeQuietly(input);
+      }
+    } catch (Throwable e) {
+      m_entries.clear();
+    }
+  }
+
+  private static File getIndexFile() {
+    File stateDirectory = Activator.getDefault().getStateLocation().toFile();
+    return new File(stateDirectory, INDEX_FILE_NAME);
+  }
+
+  /**
+   * Marks index as changed and schedules its saving.
+   */
+  private static void markDirty() {
+    m_dirty = true;
+    if (m_saveJob == null) {
+      m_saveJob = new Job("Save ModelData properties index") {
+        @Override
+        protected IStatus run(IProgressMonitor monitor) {
+          save();
+          return Status.OK_STATUS;
+        }
+      };
+      m_saveJob.setSystem(true);
+    }
+    m_saveJob.schedule(SAVE_DELAY);
+  }
+
+  private static void installListener() {
+    if (m_javaListener == null) {
+      m_javaListener = new IElementChangedListener() {
+        public void elementChanged(ElementChangedEvent event) {
+          synchronized (ModelDataPropertiesIndex.class) {
+            removeEntries(event.getDelta());
+          }
+        }
+      };
+      JavaCore.addElementChangedListener(m_javaListener, ElementChangedEvent.POST_CHANGE);
+    }
+  }
+
+  /**
+   * Removes entries of changed and removed compilation units.
+   */
+  private static void removeEntries(IJavaElementDelta delta) {
+    IJavaElement element = delta.getElement();
+    if (element.getElementType() == IJavaElement.COMPILATION_UNIT) {
+      if (m_entries.remove(element.getHandleIdentifier()) != null) {
+        markDirty();
+      }
+      return;
+    }
+    for (IJavaElementDelta childDelta : delta.getAffectedChildren()) {
+      removeEntries(childDelta);
+    }
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Entry
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  /**
+   * Properties of single compilation unit.
+   */
+  private static final class Entry {
+    private final String stamp;
+    private final Map<String, String> properties;
+
+    public Entry(String stamp, Map<String, String> properties) {
+      this.stamp = stamp;
+      this.properties = properties;
+    }
+  }
+}
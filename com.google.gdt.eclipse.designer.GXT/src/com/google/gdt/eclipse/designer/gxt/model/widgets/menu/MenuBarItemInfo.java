@@ -42,6 +42,8 @@ import org.eclipse.jdt.core.dom.ClassInstanceCreation;
 import org.eclipse.jdt.core.dom.Expression;
 import org.eclipse.swt.graphics.Image;
 
+import java.util.List;
+
 /**
  * Model for <code>com.extjs.gxt.ui.client.widget.menu.MenuBarItem</code>.
  * 
@@ -135,6 +137,11 @@ public final class MenuBarItemInfo extends ComponentInfo implements IAdaptable {
         getObject());
   }
 
+  @Override
+  protected void addLayoutElements(List<Object> elements) {
+    // menu is shown only during refresh_fetch()
+  }
+
   ////////////////////////////////////////////////////////////////////////////
   //
   // IAdaptable
@@ -89,16 +89,25 @@ public final class MenuInfo extends ContainerInfo implements IAdaptable {
     {
       Object element = getElement();
       Image browserScreenshot = getState().createBrowserScreenshot();
-      Rectangle absoluteBounds = getState().getAbsoluteBounds(element);
-      Image objectImage =
-          UiUtils.getCroppedImage(browserScreenshot, absoluteBounds.getSwtRectangle());
-      setImage(objectImage);
+      try {
+        Rectangle absoluteBounds = getState().getAbsoluteBounds(element);
+        Image objectImage =
+            UiUtils.getCroppedImage(browserScreenshot, absoluteBounds.getSwtRectangle());
+        setImage(objectImage);
+      } finally {
+        browserScreenshot.dispose();
+      }
     }
     if (!isSubMenu()) {
       JavaInfoUtils.executeScript(this, "object.hide();");
     }
   }
 
+  @Override
+  protected void addLayoutElements(List<Object> elements) {
+    // menu is shown only during refresh_fetch()
+  }
+
   ////////////////////////////////////////////////////////////////////////////
   //
   // IAdaptable
@@ -196,8 +196,13 @@ public class CanvasInfo extends BaseWidgetInfo {
   ////////////////////////////////////////////////////////////////////////////
   @Override
   public void refresh_dispose() throws Exception {
-    // detach children
     if (isCreated()) {
+      // whole tree is going to be destroyed, so undraw it once, instead of updating DOM and
+      // re-layout on each detach/destroy of children
+      if (!(getParent() instanceof BaseWidgetInfo)) {
+        SmartClientUtils.clearCanvas(getObject());
+      }
+      // detach children
       refresh_dispose_detach();
     }
     //
@@ -80,6 +80,16 @@ public final class SmartClientUtils {
     }
   }
 
+  /**
+   * Removes visual representation of drawn canvas and its children. Following detach and destroy of
+   * children don't update DOM and don't cause layout reflows.
+   */
+  public static void clearCanvas(Object canvas) {
+    if (isCanvasCreated(canvas) && (Boolean) ReflectionUtils.invokeMethodEx(canvas, "isDrawn()")) {
+      ReflectionUtils.invokeMethodEx(canvas, "clear()");
+    }
+  }
+
   public static void destroyCanvas(Object canvas) {
     if (isCanvasCreated(canvas)) {
       ReflectionUtils.invokeMethodEx(canvas, "destroy()");
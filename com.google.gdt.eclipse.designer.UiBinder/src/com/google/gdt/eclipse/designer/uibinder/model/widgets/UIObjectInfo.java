@@ -363,8 +363,13 @@ public class UIObjectInfo extends AbstractComponentInfo implements IUIObjectInfo
       imageBounds = imageBounds.getTranslated(2, 2);
     }
     // set image
-    Image objectImage = UiUtils.getCroppedImage(browserScreenshot, imageBounds.getSwtRectangle());
-    setImage(objectImage);
+    try {
+      Image objectImage =
+          UiUtils.getCroppedImage(browserScreenshot, imageBounds.getSwtRectangle());
+      setImage(objectImage);
+    } finally {
+      browserScreenshot.dispose();
+    }
   }
 
   /**
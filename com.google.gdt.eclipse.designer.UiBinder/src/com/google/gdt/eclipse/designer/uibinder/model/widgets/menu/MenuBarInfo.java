@@ -30,7 +30,6 @@ import org.eclipse.wb.internal.core.model.menu.IMenuPolicy;
 import org.eclipse.wb.internal.core.model.menu.MenuObjectInfoUtils;
 import org.eclipse.wb.internal.core.utils.IAdaptable;
 import org.eclipse.wb.internal.core.utils.reflect.ReflectionUtils;
-import org.eclipse.wb.internal.core.utils.ui.UiUtils;
 import org.eclipse.wb.internal.core.xml.model.EditorContext;
 import org.eclipse.wb.internal.core.xml.model.XmlMenuMenuObject;
 import org.eclipse.wb.internal.core.xml.model.creation.CreationSupport;
@@ -182,8 +181,7 @@ public final class MenuBarInfo extends WidgetInfo implements IAdaptable {
     // make shot of whole browser - we don't have other way to get screen shot of menu
     List<Object> hiddenWidgets = getUIObjectUtils().hideRootPanelWidgets(popup);
     try {
-      Image browserImage = getState().getShell().createBrowserScreenshot();
-      return UiUtils.getCroppedImage(browserImage, popupBounds.getSwtRectangle());
+      return getState().createBrowserScreenshot(popupBounds);
     } finally {
       UIObjectUtils.showWidgets(hiddenWidgets);
     }
@@ -17,6 +17,7 @@ package com.google.gdt.eclipse.designer.uibinder.parser;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.google.gdt.eclipse.designer.GwtToolkitDescription;
 import com.google.gdt.eclipse.designer.model.widgets.support.GwtState;
 import com.google.gdt.eclipse.designer.parser.IClassLoaderValidator;
@@ -41,6 +42,7 @@ import org.eclipse.wb.internal.core.xml.model.EditorContext;
 import org.eclipse.wb.internal.core.xml.model.ILiveEditorContext;
 import org.eclipse.wb.internal.core.xml.model.XmlObjectInfo;
 
+import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IFolder;
 import org.eclipse.core.resources.IResource;
@@ -50,17 +52,19 @@ import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IMemberValuePair;
 import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
 import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jface.text.Document;
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
 
 import org.apache.commons.lang.StringUtils;
 
 import java.beans.Beans;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -80,6 +84,7 @@ public class UiBinderContext extends EditorContext {
   private long m_formFileModification;
   private ModuleDescription m_module;
   private GwtState m_state;
+  private String m_binderContentKey;
 
   ////////////////////////////////////////////////////////////////////////////
   //
@@ -172,13 +177,20 @@ public class UiBinderContext extends EditorContext {
   ////////////////////////////////////////////////////////////////////////////
   /**
    * Ensures that UiBinder is configured for design time.
+   * <p>
+   * "Binder" implementation generated for same template and dependencies is kept in rebind cache,
+   * so UiBinderGenerator and compilation of generated "Binder" are performed only if template,
+   * form or referenced types and resources were changed since previous run.
    */
   public void runDesignTime(RunnableEx runnable) throws Exception {
     String isKey = "gwt.UiBinder.isDesignTime " + m_binderClassName.replace('$', '.');
     String resKey = "gwt.UiBinder.designTime " + m_binderResourceName;
     boolean old_designTime = Beans.isDesignTime();
+    boolean success = false;
     try {
       Beans.setDesignTime(true);
+      // start with fresh paths of elements
+      m_elementPaths.clear();
       // mark "Binder" as design time
       System.setProperty(isKey, "true");
       // put current document content into System, to make it available to UiBinderGenerator
@@ -186,11 +198,22 @@ public class UiBinderContext extends EditorContext {
         String content = getContent();
         content = removeWbpNameAttributes(content);
         System.setProperty(resKey, content);
+        // generate new "Binder" only if template or its dependencies were changed
+        String contentKey = getBinderContentKey(content);
+        if (contentKey == null || !contentKey.equals(m_binderContentKey)) {
+          m_state.getDevModeBridge().invalidateRebind(m_binderClassName);
+          m_binderContentKey = contentKey;
+        }
       }
       // do run
       runnable.run();
+      success = true;
     } finally {
-      m_state.getDevModeBridge().invalidateRebind(m_binderClassName);
+      // generated "Binder" may be not valid, so generate it again next time
+      if (!success) {
+        m_state.getDevModeBridge().invalidateRebind(m_binderClassName);
+        m_binderContentKey = null;
+      }
       Beans.setDesignTime(old_designTime);
       System.clearProperty(isKey);
       System.clearProperty(resKey);
@@ -198,6 +221,127 @@ public class UiBinderContext extends EditorContext {
     }
   }
 
+  private static final Pattern IMPORT_NAMESPACE_PATTERN =
+      Pattern.compile("xmlns:(\\w+)=[\"']urn:import:([\\w.]+)[\"']");
+  private static final Pattern WIDGET_PATTERN = Pattern.compile("<(\\w+):([A-Z][\\w.]*)");
+  private static final Pattern TYPE_PATTERN =
+      Pattern.compile("<\\w+:(?:with|style)\\s[^>]*?\\btype=[\"']([\\w.$]+)[\"']");
+  private static final Pattern SRC_PATTERN =
+      Pattern.compile("<\\w+:(?:style|image|data)\\s[^>]*?\\bsrc=[\"']([^\"']+)[\"']");
+
+  /**
+   * @return the key of template content and its dependencies: form, types of widgets and
+   *         <code>ui:with</code> fields, <code>ui:style</code>, <code>ui:image</code> and
+   *         <code>ui:data</code> resources. Same key means that same "Binder" implementation will
+   *         be generated. May be <code>null</code> if some dependency is not found, so "Binder"
+   *         should be always generated.
+   */
+  private String getBinderContentKey(String content) throws Exception {
+    StringBuilder sb = new StringBuilder();
+    sb.append(Utils.getContentsHash(content));
+    sb.append('|').append(m_formFile.getModificationStamp());
+    // types
+    for (String typeName : getReferencedTypes(content)) {
+      IType type = m_javaProject.findType(typeName);
+      if (type == null) {
+        return null;
+      }
+      // binary types are changed only with classpath, this causes new GWTState
+      if (!type.isBinary()) {
+        IResource resource = type.getResource();
+        sb.append('|').append(typeName).append(':').append(resource.getModificationStamp());
+        // ClientBundle resources are usually near type
+        appendResourceStamps(sb, resource.getParent());
+      }
+    }
+    // resources
+    for (String path : getReferencedResources(content)) {
+      IResource resource = findResource(path);
+      if (resource == null) {
+        return null;
+      }
+      sb.append('|').append(path).append(':').append(resource.getModificationStamp());
+    }
+    return sb.toString();
+  }
+
+  /**
+   * @return the names of widget types and types of <code>ui:with</code> and <code>ui:style</code>
+   *         used in template.
+   */
+  private static Set<String> getReferencedTypes(String content) {
+    Set<String> types = Sets.newTreeSet();
+    // widgets
+    {
+      Map<String, String> packages = Maps.newHashMap();
+      Matcher matcher = IMPORT_NAMESPACE_PATTERN.matcher(content);
+      while (matcher.find()) {
+        packages.put(matcher.group(1), matcher.group(2));
+      }
+      matcher = WIDGET_PATTERN.matcher(content);
+      while (matcher.find()) {
+        String packageName = packages.get(matcher.group(1));
+        if (packageName != null) {
+          types.add(packageName + "." + matcher.group(2));
+        }
+      }
+    }
+    // "type" attributes of ui:with and ui:style
+    {
+      Matcher matcher = TYPE_PATTERN.matcher(content);
+      while (matcher.find()) {
+        types.add(matcher.group(1));
+      }
+    }
+    return types;
+  }
+
+  /**
+   * @return the paths of resources used in <code>src</code> attributes of <code>ui:style</code>,
+   *         <code>ui:image</code> and <code>ui:data</code> elements.
+   */
+  private static Set<String> getReferencedResources(String content) {
+    Set<String> paths = Sets.newTreeSet();
+    Matcher matcher = SRC_PATTERN.matcher(content);
+    while (matcher.find()) {
+      for (String path : StringUtils.split(matcher.group(1))) {
+        paths.add(path);
+      }
+    }
+    return paths;
+  }
+
+  /**
+   * @return the {@link IResource} with given path relative to template or source folder, may be
+   *         <code>null</code>.
+   */
+  private IResource findResource(String path) throws Exception {
+    IResource resource = m_file.getParent().findMember(path);
+    if (resource == null) {
+      for (IPackageFragmentRoot root : m_javaProject.getPackageFragmentRoots()) {
+        if (root.getKind() == IPackageFragmentRoot.K_SOURCE) {
+          resource = ((IContainer) root.getResource()).findMember(path);
+          if (resource != null) {
+            break;
+          }
+        }
+      }
+    }
+    return resource;
+  }
+
+  /**
+   * Appends modification stamps of not Java files in given {@link IContainer}.
+   */
+  private static void appendResourceStamps(StringBuilder sb, IContainer container)
+      throws Exception {
+    for (IResource member : container.members()) {
+      if (member.getType() == IResource.FILE && !member.getName().endsWith(".java")) {
+        sb.append('|').append(member.getName()).append(':').append(member.getModificationStamp());
+      }
+    }
+  }
+
   /**
    * In tests we use "wbp:name" attribute to access widgets by such "internal" names, but UiBinder
    * does not like when it sees unknown attributes, so we should remove them.
@@ -223,17 +367,81 @@ public class UiBinderContext extends EditorContext {
     return sb.toString();
   }
 
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Paths
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  /**
+   * Remembered paths of {@link DocumentElement}s, valid while document is not changed.
+   */
+  private final Map<DocumentElement, String> m_elementPaths = Maps.newIdentityHashMap();
+  private long m_elementPathsStamp = IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+
+  /**
+   * @return the path of given {@link DocumentElement}, same as
+   *         {@link UiBinderParser#getPath(DocumentElement)}, but remembered until document is
+   *         changed.
+   */
+  public String getPath(DocumentElement element) {
+    IDocument document = getDocument();
+    if (!(document instanceof IDocumentExtension4)) {
+      return UiBinderParser.getPath(element);
+    }
+    // document was changed, so structure may be changed too
+    long stamp = ((IDocumentExtension4) document).getModificationStamp();
+    if (stamp != m_elementPathsStamp) {
+      m_elementPaths.clear();
+      m_elementPathsStamp = stamp;
+    }
+    return getPath0(element);
+  }
+
+  /**
+   * Implementation of {@link #getPath(DocumentElement)}, uses remembered paths.
+   */
+  private String getPath0(DocumentElement element) {
+    String path = m_elementPaths.get(element);
+    if (path == null) {
+      DocumentElement parent = element.getParent();
+      if (parent == null) {
+        path = "0";
+        m_elementPaths.put(element, path);
+      } else {
+        // remember paths of all siblings, to avoid indexOf() for each of them
+        String parentPath = getPath0(parent);
+        List<DocumentElement> siblings = parent.getChildren();
+        for (int i = 0; i < siblings.size(); i++) {
+          DocumentElement sibling = siblings.get(i);
+          String siblingPath = parentPath + "/" + i;
+          m_elementPaths.put(sibling, siblingPath);
+          if (sibling == element) {
+            path = siblingPath;
+          }
+        }
+      }
+    }
+    return path;
+  }
+
   ////////////////////////////////////////////////////////////////////////////
   //
   // Attributes
   //
   ////////////////////////////////////////////////////////////////////////////
-  private final Map<String, Object> m_attributeValues = Maps.newHashMap();
+  /**
+   * Values of attributes, remembered during rendering. Keyed by path of element, then by name of
+   * attribute.
+   */
+  private final Map<String, Map<String, Object>> m_attributeValues = Maps.newHashMap();
 
   /**
    * Registers values for attributes, during rendering.
+   * 
+   * @param attributes
+   *          the values of attributes, keyed by path of element, then by name of attribute.
    */
-  public void setAttributeValues(Map<String, Object> attributes) {
+  public void setAttributeValues(Map<String, Map<String, Object>> attributes) {
     m_attributeValues.clear();
     m_attributeValues.putAll(attributes);
   }
@@ -242,22 +450,24 @@ public class UiBinderContext extends EditorContext {
    * Registers value for attribute.
    */
   public void setAttributeValue(DocumentElement element, String name, Object value) {
-    String key = UiBinderParser.getPath(element) + " " + name;
-    m_attributeValues.put(key, value);
+    String path = getPath(element);
+    Map<String, Object> values = m_attributeValues.get(path);
+    if (values == null) {
+      values = Maps.newHashMap();
+      m_attributeValues.put(path, values);
+    }
+    values.put(name, value);
   }
 
   /**
    * @return all attributes of the element with the given path.
    */
   public Map<String, Object> getAttributeValues(String path) {
-    Map<String, Object> attribute = Maps.newHashMap();
-    String pathPrefix = path + " ";
-    for (Entry<String, Object> entry : m_attributeValues.entrySet()) {
-      if (entry.getKey().startsWith(pathPrefix)) {
-        attribute.put(StringUtils.substringAfter(entry.getKey(), pathPrefix), entry.getValue());
-      }
+    Map<String, Object> values = m_attributeValues.get(path);
+    if (values == null) {
+      return Maps.newHashMap();
     }
-    return attribute;
+    return Maps.newHashMap(values);
   }
 
   /**
@@ -266,9 +476,9 @@ public class UiBinderContext extends EditorContext {
    *         {@link Property#UNKNOWN_VALUE} will be returned.
    */
   public Object getAttributeValue(DocumentElement element, String name) {
-    String key = UiBinderParser.getPath(element) + " " + name;
-    if (m_attributeValues.containsKey(key)) {
-      return m_attributeValues.get(key);
+    Map<String, Object> values = m_attributeValues.get(getPath(element));
+    if (values != null && values.containsKey(name)) {
+      return values.get(name);
     }
     return Property.UNKNOWN_VALUE;
   }
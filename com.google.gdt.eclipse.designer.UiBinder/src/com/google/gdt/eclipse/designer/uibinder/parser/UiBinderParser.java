@@ -240,7 +240,7 @@ public final class UiBinderParser {
     m_context.getRootElement().accept(new DocumentModelVisitor() {
       @Override
       public void endVisit(DocumentElement element) {
-        m_pathToElementMap.put(getPath(element), element);
+        m_pathToElementMap.put(m_context.getPath(element), element);
       }
     });
   }
@@ -83,7 +83,6 @@ public final class UiBinderRenderer {
     {
       ClassLoader classLoader = m_context.getClassLoader();
       String binderClassName = m_context.getBinderClassName();
-      m_context.getState().getDevModeBridge().invalidateRebind(binderClassName);
       Class<?> binderClass = classLoader.loadClass(binderClassName);
       Class<?> classGWT = classLoader.loadClass("com.google.gwt.core.client.GWT");
       createdBinder =
@@ -107,7 +106,7 @@ public final class UiBinderRenderer {
           CreationSupport creationSupport = xmlObjectInfo.getCreationSupport();
           if (!XmlObjectUtils.isImplicit(xmlObjectInfo)) {
             DocumentElement element = creationSupport.getElement();
-            String path = UiBinderParser.getPath(element);
+            String path = m_context.getPath(element);
             if (xmlObjectInfo instanceof IsWidgetWrappedInfo) {
               xmlObjectInfo = ((IsWidgetWrappedInfo) xmlObjectInfo).getWrapper();
             }
@@ -156,6 +155,7 @@ public final class UiBinderRenderer {
     @SuppressWarnings("unchecked")
     Map<String, Object> attributes =
         (Map<String, Object>) ReflectionUtils.getFieldObject(binder, "dtAttributes");
+    Map<String, Map<String, Object>> pathAttributes = Maps.newHashMap();
     // individual attributes for models
     for (Map.Entry<String, Object> entry : attributes.entrySet()) {
       String path;
@@ -166,13 +166,20 @@ public final class UiBinderRenderer {
         path = keyParts[0];
         attribute = keyParts[1];
       }
+      Object value = entry.getValue();
       XmlObjectInfo objectInfo = m_pathToModelMap.get(path);
       if (objectInfo != null) {
-        Object value = entry.getValue();
         objectInfo.registerAttributeValue(attribute, value);
       }
+      // remember for element
+      Map<String, Object> elementAttributes = pathAttributes.get(path);
+      if (elementAttributes == null) {
+        elementAttributes = Maps.newHashMap();
+        pathAttributes.put(path, elementAttributes);
+      }
+      elementAttributes.put(attribute, value);
     }
     // attributes for all elements
-    m_context.setAttributeValues(attributes);
+    m_context.setAttributeValues(pathAttributes);
   }
 }
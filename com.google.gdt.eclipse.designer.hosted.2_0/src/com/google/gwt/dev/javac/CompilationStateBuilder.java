@@ -23,6 +23,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
 
 import org.apache.commons.collections.map.AbstractReferenceMap;
 import org.apache.commons.collections.map.ReferenceIdentityMap;
@@ -54,8 +61,12 @@ public class CompilationStateBuilder {
       public void process(CompilationUnitBuilder builder,
           CompilationUnitDeclaration cud, List<CompiledClass> compiledClasses) {
 
-        Map<AbstractMethodDeclaration, JsniMethod> jsniMethods = JsniCollector.collectJsniMethods(
-            cud, builder.getSource(), jsProgram);
+        // XXX Instantiations: JsProgram is shared by concurrent builds
+        Map<AbstractMethodDeclaration, JsniMethod> jsniMethods;
+        synchronized (jsProgram) {
+          jsniMethods = JsniCollector.collectJsniMethods(cud, builder.getSource(),
+              jsProgram);
+        }
 
         // JSNI check + collect dependencies.
         final Set<String> jsniDeps = new HashSet<String>();
@@ -178,6 +189,17 @@ public class CompilationStateBuilder {
 
   private static final CompilationStateBuilder instance = new CompilationStateBuilder();
 
+  // XXX <Instantiations
+  /**
+   * Number of threads to load units from {@link CompilationUnitDiskCache}, "1"
+   * to load them in the calling thread.
+   */
+  private static final int PROBE_THREADS = Integer.getInteger(
+      "gwtd.compile.probeThreads",
+      Math.min(4, Runtime.getRuntime().availableProcessors()));
+  private static ExecutorService probeExecutor;
+  // XXX >Instantiations
+
   public static CompilationState buildFrom(TreeLogger logger,
       Set<Resource> resources) {
     return instance.doBuildFrom(logger, resources);
@@ -238,15 +260,27 @@ public class CompilationStateBuilder {
   private final Map<ContentId, CompilationUnit> unitCache = Collections.synchronizedMap(new ReferenceMap(
       AbstractReferenceMap.HARD, AbstractReferenceMap.WEAK));
 
+  /**
+   * Disk cache probes in progress, keyed by location and modification time, so
+   * concurrent builds wait for single probe of the same resource.
+   * 
+   * XXX Instantiations
+   */
+  private final Map<String, FutureTask<CompilationUnit>> pendingProbes =
+      new HashMap<String, FutureTask<CompilationUnit>>();
+
   /**
    * Build a new compilation state from a source oracle.
    * 
-   * TODO: maybe use a finer brush than to synchronize the whole thing.
+   * XXX Instantiations: not synchronized, shared caches are thread-safe, so
+   * several modules can be built at the same time. Each build uses its own
+   * {@link CompileMoreLater}.
    */
-  public synchronized CompilationState doBuildFrom(TreeLogger logger,
+  public CompilationState doBuildFrom(TreeLogger logger,
       Set<Resource> resources) {
     Map<String, CompilationUnit> resultUnits = new HashMap<String, CompilationUnit>();
     CompileMoreLater compileMoreLater = new CompileMoreLater();
+    List<Resource> uncachedResources = new ArrayList<Resource>();
     
     // For each incoming Java source file...
     for (Resource resource : resources) {
@@ -261,11 +295,11 @@ public class CompilationStateBuilder {
           continue;
         }
       }
-	  // try to get from the binary cache
-      CompilationUnit unit = CompilationUnitDiskCache.get().get(resource, jsProgram);
-      if (unit != null) {
-    	  resultUnits.put(unit.getTypeName(), unit);
-      }
+      uncachedResources.add(resource);
+    }
+    // XXX Instantiations: try to get from the binary cache
+    for (CompilationUnit unit : loadFromDiskCache(uncachedResources)) {
+      resultUnits.put(unit.getTypeName(), unit);
     }
 
     // Winnow the reusable set of units down to those still valid.
@@ -300,6 +334,89 @@ public class CompilationStateBuilder {
     return new CompilationState(logger, resultUnits.values(), compileMoreLater);
   }
 
+  // XXX <Instantiations
+  /**
+   * @return the units loaded from {@link CompilationUnitDiskCache}, in parallel
+   *         if enabled.
+   */
+  private List<CompilationUnit> loadFromDiskCache(List<Resource> resources) {
+    List<CompilationUnit> units = new ArrayList<CompilationUnit>();
+    if (PROBE_THREADS <= 1 || resources.size() < 2) {
+      for (Resource resource : resources) {
+        CompilationUnit unit = CompilationUnitDiskCache.get().get(resource,
+            jsProgram);
+        if (unit != null) {
+          units.add(unit);
+        }
+      }
+      return units;
+    }
+    // start all probes, then wait for them
+    List<Future<CompilationUnit>> futures = new ArrayList<Future<CompilationUnit>>();
+    for (Resource resource : resources) {
+      futures.add(submitProbe(resource));
+    }
+    for (Future<CompilationUnit> future : futures) {
+      try {
+        CompilationUnit unit = future.get();
+        if (unit != null) {
+          units.add(unit);
+        }
+      } catch (InterruptedException e) {
+        // not loaded unit will be compiled
+        Thread.currentThread().interrupt();
+      } catch (ExecutionException e) {
+        // not loaded unit will be compiled
+      }
+    }
+    return units;
+  }
+
+  /**
+   * @return the {@link Future} for loading unit of given {@link Resource},
+   *         shared with other builds which load same {@link Resource}.
+   */
+  private Future<CompilationUnit> submitProbe(final Resource resource) {
+    final String key = resource.getLocation() + "@"
+        + resource.getLastModified();
+    FutureTask<CompilationUnit> task;
+    synchronized (pendingProbes) {
+      task = pendingProbes.get(key);
+      if (task != null) {
+        return task;
+      }
+      task = new FutureTask<CompilationUnit>(new Callable<CompilationUnit>() {
+        public CompilationUnit call() throws Exception {
+          try {
+            return CompilationUnitDiskCache.get().get(resource, jsProgram);
+          } finally {
+            synchronized (pendingProbes) {
+              pendingProbes.remove(key);
+            }
+          }
+        }
+      });
+      pendingProbes.put(key, task);
+    }
+    getProbeExecutor().execute(task);
+    return task;
+  }
+
+  private static synchronized ExecutorService getProbeExecutor() {
+    if (probeExecutor == null) {
+      probeExecutor = Executors.newFixedThreadPool(PROBE_THREADS,
+          new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+              Thread thread = new Thread(r, "GWT Designer units loader");
+              thread.setDaemon(true);
+              return thread;
+            }
+          });
+    }
+    return probeExecutor;
+  }
+  // XXX >Instantiations
+
   /**
    * Compile new generated units into an existing state.
    * 
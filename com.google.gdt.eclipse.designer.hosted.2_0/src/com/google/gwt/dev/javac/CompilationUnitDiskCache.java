@@ -14,14 +14,14 @@
  *******************************************************************************/
 package com.google.gwt.dev.javac;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 
 import org.apache.commons.collections.map.ReferenceMap;
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.ArrayUtils;
 import org.eclipse.jdt.core.compiler.CategorizedProblem;
 
@@ -32,38 +32,43 @@ import com.google.gwt.dev.resource.Resource;
 
 /**
  * 
- * For caching compiled units.
+ * For caching compiled units. Units are kept in single {@link CompilationUnitPackStore}, so
+ * loading many units does not open many files.
  * 
  * XXX Instantiations
  * 
  * @author mitin_aa
  */
 public final class CompilationUnitDiskCache {
-	private static final String CACHE_SUFFIX = ".cache";
 	private static final String TYPES_CACHE_DIR_NAME = "types-cache";
 	private static File STATE_LOCATION =
 			GWTEnvironmentUtils.DEVELOPERS_HOST && GWTEnvironmentUtils.isTestingTime()
 					? GWTEnvironmentUtils.getCacheDirectory()
 					: Activator.getDefault().getStateLocation().toFile();
 	public static final long CACHE_VERSION = 2595239285662127395L;
-	private final File m_cacheDir;
-	private final Map<String, CompilationUnit> m_cache = new ReferenceMap();
+	private final CompilationUnitPackStore m_store;
+	@SuppressWarnings("unchecked")
+	private final Map<String, CompilationUnit> m_cache =
+			Collections.synchronizedMap(new ReferenceMap());
 	//
 	private static ReferenceMap m_caches = new ReferenceMap();
+	// single store for each directory, even if cache was collected
+	private static final Map<File, CompilationUnitPackStore> m_stores =
+			new HashMap<File, CompilationUnitPackStore>();
 	////////////////////////////////////////////////////////////////////////////
 	//
 	// Constructor
 	//
 	////////////////////////////////////////////////////////////////////////////
 	private CompilationUnitDiskCache(File cacheDir) {
-		m_cacheDir = cacheDir;
+		m_store = getStore(cacheDir);
 	}
 	////////////////////////////////////////////////////////////////////////////
 	//
 	// Access
 	//
 	////////////////////////////////////////////////////////////////////////////
-	public static CompilationUnitDiskCache get() {
+	public static synchronized CompilationUnitDiskCache get() {
 		File cacheDir = new File(STATE_LOCATION, TYPES_CACHE_DIR_NAME);
 		CompilationUnitDiskCache diskCache = (CompilationUnitDiskCache) m_caches.get(cacheDir);
 		if (diskCache == null) {
@@ -73,45 +78,53 @@ public final class CompilationUnitDiskCache {
 		}
 		return diskCache;
 	}
+	/**
+	 * @return the directory with given name in state location, used for caches.
+	 */
+	public static File getStateDirectory(String name) {
+		return new File(STATE_LOCATION, name);
+	}
+	private static synchronized CompilationUnitPackStore getStore(File cacheDir) {
+		CompilationUnitPackStore store = m_stores.get(cacheDir);
+		if (store == null) {
+			store = new CompilationUnitPackStore(cacheDir, CACHE_VERSION);
+			m_stores.put(cacheDir, store);
+		}
+		return store;
+	}
 	public CompilationUnit get(Resource key, JsProgram jsProgram) {
-		String fileName = getFileName(key);
-		CompilationUnit unit = m_cache.get(fileName);
+		String unitKey = getKey(key);
+		CompilationUnit unit = m_cache.get(unitKey);
 		if (unit != null) {
 			// check for modification
 			if (key.getLastModified() != unit.getLastModified()) {
-				removeFromCache(new File(m_cacheDir, fileName));
+				removeFromCache(unitKey);
 				return null;
 			}
 			return unit;
 		}
-		File cacheFile = new File(m_cacheDir, fileName);
-		if (!cacheFile.exists()) {
+		byte[] bytes = m_store.get(unitKey);
+		if (bytes == null) {
 			return null;
 		}
 		// do load CU
-		{
-			FileInputStream inputStream = null;
-			try {
-				inputStream = new FileInputStream(cacheFile);
-				// try to load
-				unit = CachedCompilationUnit.load(inputStream, jsProgram);
-				if (unit == null) {
-					removeFromCache(cacheFile);
-					return null;
-				}
-				// check for modification
-				if (key.getLastModified() != unit.getLastModified()) {
-					removeFromCache(cacheFile);
-					return null;
-				}
-				// store in memory
-				m_cache.put(fileName, unit);
-				return unit;
-			} catch (Throwable e) {
-				removeFromCache(cacheFile);
-			} finally {
-				IOUtils.closeQuietly(inputStream);
+		try {
+			// try to load
+			unit = CachedCompilationUnit.load(new ByteArrayInputStream(bytes), jsProgram);
+			if (unit == null) {
+				removeFromCache(unitKey);
+				return null;
 			}
+			// check for modification
+			if (key.getLastModified() != unit.getLastModified()) {
+				removeFromCache(unitKey);
+				return null;
+			}
+			// store in memory
+			m_cache.put(unitKey, unit);
+			return unit;
+		} catch (Throwable e) {
+			removeFromCache(unitKey);
 		}
 		return null;
 	}
@@ -125,23 +138,20 @@ public final class CompilationUnitDiskCache {
 			}
 		}
 		// use the type name as key 
-		String fileName = getFileName(unit.getSourceFile());
-		File cacheFile = new File(m_cacheDir, fileName);
-		FileOutputStream outputStream = null;
+		String unitKey = getKey(unit.getSourceFile());
 		try {
-			outputStream = new FileOutputStream(cacheFile);
+			ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
 			CachedCompilationUnit.save(unit, outputStream);
+			m_store.put(unitKey, outputStream.toByteArray());
 		} catch (Throwable e) {
-			removeFromCache(cacheFile);
-		} finally {
-			IOUtils.closeQuietly(outputStream);
+			removeFromCache(unitKey);
 		}
 	}
-	private String getFileName(Resource key) {
-		return Shared.getTypeName(key) + CACHE_SUFFIX;
+	private String getKey(Resource key) {
+		return Shared.getTypeName(key);
 	}
-	private void removeFromCache(File cacheFile) {
-		FileUtils.deleteQuietly(cacheFile);
-		m_cache.remove(cacheFile.getName());
+	private void removeFromCache(String unitKey) {
+		m_store.remove(unitKey);
+		m_cache.remove(unitKey);
 	}
 }
@@ -22,10 +22,13 @@ import com.google.gwt.dev.util.Util;
 import org.eclipse.jdt.core.compiler.CategorizedProblem;
 import org.eclipse.jdt.internal.compiler.ast.CompilationUnitDeclaration;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -73,26 +76,54 @@ public class CompilationUnitInvalidator {
       }
     }
 
-    boolean changed;
-    do {
-      changed = false;
-      for (Iterator<CompilationUnit> it = currentlyValidUnits.iterator(); it.hasNext();) {
-        CompilationUnit unitToCheck = it.next();
-        TreeLogger branch = null;
-        for (ContentId ref : unitToCheck.getDependencies()) {
-          if (!currentlyValidRefs.contains(ref)) {
-            if (branch == null) {
-              branch = logger.branch(TreeLogger.DEBUG, "Compilation unit '"
-                  + unitToCheck + "' is removed due to invalid reference(s):");
-              it.remove();
-              currentlyValidRefs.remove(unitToCheck.getContentId());
-              changed = true;
-            }
-            branch.log(TreeLogger.DEBUG, ref.get());
+    /*
+     * XXX Instantiations: build reverse dependencies index, so only dependents
+     * of removed units are checked again, instead of iterating over all units
+     * until nothing changes.
+     */
+    Map<ContentId, List<CompilationUnit>> dependents = new HashMap<ContentId, List<CompilationUnit>>();
+    List<CompilationUnit> unitsToCheck = new ArrayList<CompilationUnit>();
+    for (CompilationUnit unit : currentlyValidUnits) {
+      boolean hasInvalidRef = false;
+      for (ContentId ref : unit.getDependencies()) {
+        List<CompilationUnit> refDependents = dependents.get(ref);
+        if (refDependents == null) {
+          refDependents = new ArrayList<CompilationUnit>();
+          dependents.put(ref, refDependents);
+        }
+        refDependents.add(unit);
+        hasInvalidRef |= !currentlyValidRefs.contains(ref);
+      }
+      if (hasInvalidRef) {
+        unitsToCheck.add(unit);
+      }
+    }
+
+    while (!unitsToCheck.isEmpty()) {
+      CompilationUnit unitToCheck = unitsToCheck.remove(unitsToCheck.size() - 1);
+      if (!currentlyValidUnits.contains(unitToCheck)) {
+        continue;
+      }
+      TreeLogger branch = null;
+      for (ContentId ref : unitToCheck.getDependencies()) {
+        if (!currentlyValidRefs.contains(ref)) {
+          if (branch == null) {
+            branch = logger.branch(TreeLogger.DEBUG, "Compilation unit '"
+                + unitToCheck + "' is removed due to invalid reference(s):");
           }
+          branch.log(TreeLogger.DEBUG, ref.get());
         }
       }
-    } while (changed);
+      if (branch != null) {
+        currentlyValidUnits.remove(unitToCheck);
+        currentlyValidRefs.remove(unitToCheck.getContentId());
+        // check units which depend on removed one
+        List<CompilationUnit> refDependents = dependents.get(unitToCheck.getContentId());
+        if (refDependents != null) {
+          unitsToCheck.addAll(refDependents);
+        }
+      }
+    }
 
     units.retainAll(currentlyValidUnits);
   }
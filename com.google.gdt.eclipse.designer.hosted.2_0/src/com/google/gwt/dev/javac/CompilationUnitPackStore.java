@@ -0,0 +1,529 @@
+/*******************************************************************************
+ * Copyright 2011 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gwt.dev.javac;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.CRC32;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Append-only store of records in single file, with in-memory index of record offsets.
+ *
+ * Record is: key (UTF-8 with length), length of data, CRC32 of data, data. Record with empty data
+ * removes key. Later record for same key replaces earlier one. Record data is read from file
+ * channel into heap buffer, file is not mapped, so it can be truncated and deleted on any platform.
+ * When file has too many replaced records, it is compacted in background into new file with next
+ * generation number.
+ *
+ * XXX Instantiations
+ *
+ * @author scheglov_ke
+ */
+public final class CompilationUnitPackStore {
+	private static final String PACK_PREFIX = "units-";
+	private static final String PACK_SUFFIX = ".pack";
+	private static final long PACK_MAGIC = 0x4757544450414B31L;
+	private static final int HEADER_SIZE = 16;
+	private static final int MIN_COMPACT_SIZE = 1024 * 1024;
+	/**
+	 * Single background worker for compaction of all stores.
+	 */
+	private static final ExecutorService COMPACTOR =
+			Executors.newSingleThreadExecutor(new ThreadFactory() {
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "GWT types cache compaction");
+					thread.setDaemon(true);
+					thread.setPriority(Thread.MIN_PRIORITY);
+					return thread;
+				}
+			});
+	private final File m_dir;
+	private final long m_version;
+	private final Map<String, Record> m_index = new HashMap<String, Record>();
+	private int m_generation;
+	private RandomAccessFile m_file;
+	private FileChannel m_channel;
+	private long m_size;
+	private long m_liveSize;
+	private boolean m_compacting;
+	////////////////////////////////////////////////////////////////////////////
+	//
+	// Constructor
+	//
+	////////////////////////////////////////////////////////////////////////////
+	/**
+	 * @param dir
+	 *          the directory to keep pack file in.
+	 * @param version
+	 *          the version of records format, pack with different version is discarded.
+	 */
+	public CompilationUnitPackStore(File dir, long version) {
+		m_dir = dir;
+		m_version = version;
+		try {
+			open();
+		} catch (Throwable e) {
+			// can not open existing pack, start new one
+			closeFile();
+			try {
+				m_generation++;
+				create();
+			} catch (Throwable e2) {
+				closeFile();
+			}
+		}
+	}
+	////////////////////////////////////////////////////////////////////////////
+	//
+	// Access
+	//
+	////////////////////////////////////////////////////////////////////////////
+	/**
+	 * @return the data of record with given key, or <code>null</code> if no such record, or it is
+	 *         damaged.
+	 */
+	public synchronized byte[] get(String key) {
+		Record record = m_index.get(key);
+		if (record == null || m_channel == null) {
+			return null;
+		}
+		try {
+			byte[] data = readData(m_channel, record);
+			// check that record was not damaged
+			if (data == null) {
+				remove(key);
+			}
+			return data;
+		} catch (Throwable e) {
+			remove(key);
+			return null;
+		}
+	}
+	/**
+	 * Appends record with given key and data.
+	 */
+	public synchronized void put(String key, byte[] data) {
+		if (m_channel == null) {
+			return;
+		}
+		try {
+			append(key, data);
+			compactIfNeeded();
+		} catch (Throwable e) {
+			// failed to write, forget record
+			forget(key);
+		}
+	}
+	/**
+	 * Removes record with given key.
+	 */
+	public synchronized void remove(String key) {
+		if (m_channel == null || !m_index.containsKey(key)) {
+			return;
+		}
+		try {
+			append(key, new byte[0]);
+		} catch (Throwable e) {
+			forget(key);
+		}
+	}
+	/**
+	 * Closes pack file. Store can not be used after this.
+	 */
+	public synchronized void close() {
+		closeFile();
+	}
+	////////////////////////////////////////////////////////////////////////////
+	//
+	// Reading
+	//
+	////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Opens existing pack with largest generation number, or creates new pack.
+	 */
+	private void open() throws Exception {
+		File packFile = findPackFile();
+		if (packFile == null) {
+			// first start with packs, remove files of old per-unit cache
+			deleteFiles(new FileFilter() {
+				public boolean accept(File file) {
+					return file.getName().endsWith(".cache");
+				}
+			});
+			create();
+			return;
+		}
+		// read index, then open existing
+		long validSize = readIndex(packFile);
+		m_file = new RandomAccessFile(packFile, "rw");
+		m_channel = m_file.getChannel();
+		m_size = m_channel.size();
+		if (validSize != m_size) {
+			// last record was not written completely
+			m_channel.truncate(validSize);
+			m_size = validSize;
+		}
+		// remove not used packs
+		deleteOtherPacks();
+	}
+	/**
+	 * Fills index from records of given pack, data of records is skipped.
+	 *
+	 * @return the size of pack with complete records.
+	 */
+	private long readIndex(File packFile) throws Exception {
+		long packSize = packFile.length();
+		DataInputStream input =
+				new DataInputStream(new BufferedInputStream(new FileInputStream(packFile)));
+		try {
+			if (input.readLong() != PACK_MAGIC || input.readLong() != m_version) {
+				throw new IllegalStateException("Wrong pack header: " + packFile);
+			}
+			long validSize = HEADER_SIZE;
+			try {
+				while (true) {
+					int keyLength = input.readUnsignedShort();
+					byte[] keyBytes = new byte[keyLength];
+					input.readFully(keyBytes);
+					String key = new String(keyBytes, "UTF-8");
+					int length = input.readInt();
+					long checksum = input.readLong();
+					long offset = validSize + 2 + keyLength + 4 + 8;
+					// skip data, stream may skip beyond end of file
+					if (length < 0
+						|| offset + length > packSize
+						|| input.skipBytes(length) != length) {
+						break;
+					}
+					validSize = offset + length;
+					// update index
+					if (length == 0) {
+						forget(key);
+					} else {
+						putRecord(key, new Record(offset, length, checksum));
+					}
+				}
+			} catch (EOFException e) {
+				// end of pack or incomplete record
+			}
+			return validSize;
+		} finally {
+			IOUtils.closeQuietly(input);
+		}
+	}
+	/**
+	 * @return the data of given record, or <code>null</code> if it is incomplete or damaged.
+	 */
+	private static byte[] readData(FileChannel channel, Record record) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(record.m_length);
+		long position = record.m_offset;
+		while (buffer.hasRemaining()) {
+			int count = channel.read(buffer, position);
+			if (count == -1) {
+				return null;
+			}
+			position += count;
+		}
+		byte[] data = buffer.array();
+		return getChecksum(data) == record.m_checksum ? data : null;
+	}
+	////////////////////////////////////////////////////////////////////////////
+	//
+	// Writing
+	//
+	////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Creates new empty pack with current generation number.
+	 */
+	private void create() throws Exception {
+		File packFile = getPackFile(m_generation);
+		FileUtils.deleteQuietly(packFile);
+		m_file = new RandomAccessFile(packFile, "rw");
+		m_channel = m_file.getChannel();
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putLong(PACK_MAGIC);
+		header.putLong(m_version);
+		header.flip();
+		m_channel.write(header, 0);
+		m_size = HEADER_SIZE;
+		m_index.clear();
+		m_liveSize = 0;
+		deleteOtherPacks();
+	}
+	/**
+	 * Appends record to the end of pack and updates index.
+	 */
+	private void append(String key, byte[] data) throws Exception {
+		byte[] recordBytes = createRecord(key, data);
+		m_channel.write(ByteBuffer.wrap(recordBytes), m_size);
+		long offset = m_size + recordBytes.length - data.length;
+		m_size += recordBytes.length;
+		if (data.length == 0) {
+			forget(key);
+		} else {
+			putRecord(key, new Record(offset, data.length, getChecksum(data)));
+		}
+	}
+	private static byte[] createRecord(String key, byte[] data) throws Exception {
+		byte[] keyBytes = key.getBytes("UTF-8");
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(keyBytes.length + data.length + 14);
+		DataOutputStream dos = new DataOutputStream(bytes);
+		dos.writeShort(keyBytes.length);
+		dos.write(keyBytes);
+		dos.writeInt(data.length);
+		dos.writeLong(getChecksum(data));
+		dos.write(data);
+		dos.close();
+		return bytes.toByteArray();
+	}
+	////////////////////////////////////////////////////////////////////////////
+	//
+	// Compaction
+	//
+	////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Starts compaction in background, if more than half of pack is replaced records.
+	 */
+	private void compactIfNeeded() {
+		if (!m_compacting && m_size > MIN_COMPACT_SIZE && m_liveSize * 2 < m_size) {
+			m_compacting = true;
+			COMPACTOR.execute(new Runnable() {
+				public void run() {
+					try {
+						compact();
+					} catch (Throwable e) {
+					} finally {
+						synchronized (CompilationUnitPackStore.this) {
+							m_compacting = false;
+						}
+					}
+				}
+			});
+		}
+	}
+	/**
+	 * Copies live records into new pack and switches to it. Old pack is append-only, so records can
+	 * be copied without lock. Records appended during copying are copied under lock.
+	 */
+	private void compact() throws Exception {
+		Map<String, Record> index;
+		FileChannel oldChannel;
+		int generation;
+		synchronized (this) {
+			if (m_channel == null) {
+				return;
+			}
+			index = new HashMap<String, Record>(m_index);
+			oldChannel = m_channel;
+			generation = m_generation + 1;
+		}
+		// copy records
+		File packFile = getPackFile(generation);
+		RandomAccessFile file = new RandomAccessFile(packFile, "rw");
+		try {
+			FileChannel channel = file.getChannel();
+			channel.truncate(0);
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			header.putLong(PACK_MAGIC);
+			header.putLong(m_version);
+			header.flip();
+			channel.write(header, 0);
+			Map<String, Record> newIndex = new HashMap<String, Record>();
+			long size = copyRecords(index, oldChannel, channel, HEADER_SIZE, newIndex);
+			// switch to new pack
+			synchronized (this) {
+				if (m_channel != oldChannel) {
+					return;
+				}
+				// copy records changed during copying
+				Map<String, Record> changed = new HashMap<String, Record>();
+				for (Map.Entry<String, Record> entry : m_index.entrySet()) {
+					if (entry.getValue() != index.get(entry.getKey())) {
+						changed.put(entry.getKey(), entry.getValue());
+					}
+				}
+				size = copyRecords(changed, oldChannel, channel, size, newIndex);
+				// remove records removed during copying
+				for (String key : newIndex.keySet().toArray(new String[newIndex.size()])) {
+					if (!m_index.containsKey(key)) {
+						byte[] recordBytes = createRecord(key, new byte[0]);
+						channel.write(ByteBuffer.wrap(recordBytes), size);
+						size += recordBytes.length;
+						newIndex.remove(key);
+					}
+				}
+				// use new pack
+				closeFile();
+				m_generation = generation;
+				m_file = file;
+				m_channel = channel;
+				m_size = size;
+				m_index.clear();
+				m_liveSize = 0;
+				for (Map.Entry<String, Record> entry : newIndex.entrySet()) {
+					putRecord(entry.getKey(), entry.getValue());
+				}
+				file = null;
+				deleteOtherPacks();
+			}
+		} finally {
+			if (file != null) {
+				IOUtils.closeQuietly(file);
+				FileUtils.deleteQuietly(packFile);
+			}
+		}
+	}
+	/**
+	 * Copies given records into given channel.
+	 *
+	 * @return the new size of target channel.
+	 */
+	private static long copyRecords(Map<String, Record> records,
+		FileChannel sourceChannel,
+		FileChannel channel,
+		long size,
+		Map<String, Record> newIndex) throws Exception {
+		for (Map.Entry<String, Record> entry : records.entrySet()) {
+			String key = entry.getKey();
+			Record record = entry.getValue();
+			byte[] data = readData(sourceChannel, record);
+			if (data == null) {
+				continue;
+			}
+			byte[] recordBytes = createRecord(key, data);
+			channel.write(ByteBuffer.wrap(recordBytes), size);
+			size += recordBytes.length;
+			newIndex.put(key, new Record(size - data.length, data.length, record.m_checksum));
+		}
+		return size;
+	}
+	////////////////////////////////////////////////////////////////////////////
+	//
+	// Utils
+	//
+	////////////////////////////////////////////////////////////////////////////
+	private void putRecord(String key, Record record) {
+		forget(key);
+		m_index.put(key, record);
+		m_liveSize += record.m_length;
+	}
+	private void forget(String key) {
+		Record oldRecord = m_index.remove(key);
+		if (oldRecord != null) {
+			m_liveSize -= oldRecord.m_length;
+		}
+	}
+	private void closeFile() {
+		IOUtils.closeQuietly(m_file);
+		m_file = null;
+		m_channel = null;
+	}
+	private static long getChecksum(byte[] data) {
+		CRC32 crc = new CRC32();
+		crc.update(data);
+		return crc.getValue();
+	}
+	private File getPackFile(int generation) {
+		return new File(m_dir, PACK_PREFIX + generation + PACK_SUFFIX);
+	}
+	/**
+	 * @return the pack file with largest generation number, or <code>null</code>.
+	 */
+	private File findPackFile() {
+		File result = null;
+		File[] files = m_dir.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				int generation = getGeneration(file);
+				if (generation >= m_generation) {
+					m_generation = generation;
+					result = file;
+				}
+			}
+		}
+		return result;
+	}
+	/**
+	 * @return the generation number of given pack file, or <code>-1</code> if not pack file.
+	 */
+	private static int getGeneration(File file) {
+		String name = file.getName();
+		if (name.startsWith(PACK_PREFIX) && name.endsWith(PACK_SUFFIX)) {
+			try {
+				return Integer.parseInt(name.substring(
+					PACK_PREFIX.length(),
+					name.length() - PACK_SUFFIX.length()));
+			} catch (NumberFormatException e) {
+			}
+		}
+		return -1;
+	}
+	/**
+	 * Deletes pack files of other generations. File which is still open can not be deleted on some
+	 * platforms, so this is done quietly and repeated later.
+	 */
+	private void deleteOtherPacks() {
+		final File currentFile = getPackFile(m_generation);
+		deleteFiles(new FileFilter() {
+			public boolean accept(File file) {
+				return getGeneration(file) != -1 && !file.equals(currentFile);
+			}
+		});
+	}
+	private void deleteFiles(FileFilter filter) {
+		File[] files = m_dir.listFiles(filter);
+		if (files != null) {
+			for (File file : files) {
+				FileUtils.deleteQuietly(file);
+			}
+		}
+	}
+	////////////////////////////////////////////////////////////////////////////
+	//
+	// Record
+	//
+	////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Location of record data in pack.
+	 */
+	private static final class Record {
+		private final long m_offset;
+		private final int m_length;
+		private final long m_checksum;
+		public Record(long offset, int length, long checksum) {
+			m_offset = offset;
+			m_length = length;
+			m_checksum = checksum;
+		}
+	}
+}
@@ -620,18 +620,20 @@ public class JdtCompiler {
 		if (!cache_isValidContextClassLoader()) {
 			return;
 		}
-		// write cache
-		try {
-			OutputStream os = new FileOutputStream(CACHE_FILE_isPackage);
-			os = new BufferedOutputStream(os);
-			ObjectOutputStream oos = new ObjectOutputStream(os);
+		// write cache, several compilers may work at the same time
+		synchronized (CACHE_FILE_isPackage) {
 			try {
-				cache_writeHeader(oos);
-				oos.writeObject(m_isPackage);
-			} finally {
-				oos.close();
+				OutputStream os = new FileOutputStream(CACHE_FILE_isPackage);
+				os = new BufferedOutputStream(os);
+				ObjectOutputStream oos = new ObjectOutputStream(os);
+				try {
+					cache_writeHeader(oos);
+					oos.writeObject(m_isPackage);
+				} finally {
+					oos.close();
+				}
+			} catch (Throwable e) {
 			}
-		} catch (Throwable e) {
 		}
 	}
 	@SuppressWarnings("unchecked")
@@ -660,18 +662,20 @@ public class JdtCompiler {
 		if (!cache_isValidContextClassLoader()) {
 			return;
 		}
-		// write cache
-		try {
-			OutputStream os = new FileOutputStream(CACHE_FILE_findType);
-			os = new BufferedOutputStream(os);
-			ObjectOutputStream oos = new ObjectOutputStream(os);
+		// write cache, several compilers may work at the same time
+		synchronized (CACHE_FILE_findType) {
 			try {
-				cache_writeHeader(oos);
-				oos.writeObject(m_findType);
-			} finally {
-				oos.close();
+				OutputStream os = new FileOutputStream(CACHE_FILE_findType);
+				os = new BufferedOutputStream(os);
+				ObjectOutputStream oos = new ObjectOutputStream(os);
+				try {
+					cache_writeHeader(oos);
+					oos.writeObject(m_findType);
+				} finally {
+					oos.close();
+				}
+			} catch (Throwable e) {
 			}
-		} catch (Throwable e) {
 		}
 	}
 	private static boolean isCachedPackage(String slashedPackageName) {
@@ -335,8 +335,11 @@ public class JsniCollector {
 			String functionSource,
 			SourceInfo jsInfo,
 			JsProgram jsProgram) throws Exception {
-		List<JsStatement> result =
-				JsParser.parse(jsInfo, jsProgram.getScope(), new StringReader(functionSource));
+		// JsProgram is shared, units may be loaded in several threads
+		List<JsStatement> result;
+		synchronized (jsProgram) {
+			result = JsParser.parse(jsInfo, jsProgram.getScope(), new StringReader(functionSource));
+		}
 		JsExprStmt jsExprStmt = (JsExprStmt) result.get(0);
 		JsFunction func = (JsFunction) jsExprStmt.getExpression();
 		return func != null ? new JsniMethodImpl(name, func) : null;
@@ -59,6 +59,7 @@ import java.lang.reflect.Array;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -66,6 +67,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.apache.commons.collections.map.AbstractReferenceMap;
+import org.apache.commons.collections.map.ReferenceIdentityMap;
+
 /**
  * Builds or rebuilds a {@link com.google.gwt.core.ext.typeinfo.TypeOracle} from
  * a set of compilation units.
@@ -90,6 +94,16 @@ public class TypeOracleMediator extends TypeOracleBuilder {
 
   private static final JTypeParameter[] NO_TYPE_PARAMETERS = new JTypeParameter[0];
 
+  /**
+   * XXX Instantiations: results of visiting bytecode of {@link CompiledClass}.
+   * {@link CompiledClass}es of not changed units are reused between
+   * compilation states, so only changed classes are visited again when
+   * {@link TypeOracle} is built.
+   */
+  @SuppressWarnings("unchecked")
+  private static final Map<CompiledClass, CollectClassData> classDataCache = Collections.synchronizedMap(new ReferenceIdentityMap(
+      AbstractReferenceMap.WEAK, AbstractReferenceMap.HARD));
+
   /**
    * Returns the binary name of a type. This is the same name that would be
    * returned by {@link Class#getName()} for this type.
@@ -427,7 +441,9 @@ public class TypeOracleMediator extends TypeOracleBuilder {
 
   private Annotation createAnnotation(TreeLogger logger,
       Class<? extends Annotation> annotationClass, AnnotationData annotData) {
-    Map<String, Object> values = annotData.getValues();
+    // XXX Instantiations: copy, AnnotationData may be cached and used again
+    Map<String, Object> values = new HashMap<String, Object>(
+        annotData.getValues());
     for (Map.Entry<String, Object> entry : values.entrySet()) {
       Method method = null;
       Throwable caught = null;
@@ -589,6 +605,12 @@ public class TypeOracleMediator extends TypeOracleBuilder {
    * creating JRealClassType/JGenericType objects.
    */
   private CollectClassData processClass(CompiledClass compiledClass) {
+    // XXX <Instantiations
+    CollectClassData cachedData = classDataCache.get(compiledClass);
+    if (cachedData != null) {
+      return cachedData;
+    }
+    // XXX >Instantiations
     byte[] classBytes = compiledClass.getBytes();
     ClassReader reader = new ClassReader(classBytes);
     CollectClassData mcv = new CollectClassData();
@@ -597,6 +619,8 @@ public class TypeOracleMediator extends TypeOracleBuilder {
       cv = new TraceClassVisitor(cv, new PrintWriter(System.out));
     }
     reader.accept(cv, 0);
+    // XXX Instantiations
+    classDataCache.put(compiledClass, mcv);
     return mcv;
   }
 
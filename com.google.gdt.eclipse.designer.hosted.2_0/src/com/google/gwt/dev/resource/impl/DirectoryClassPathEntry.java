@@ -18,7 +18,10 @@ import com.google.gwt.core.ext.TreeLogger;
 import com.google.gwt.dev.util.msg.Message1String;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -40,17 +43,100 @@ public class DirectoryClassPathEntry extends ClassPathEntry {
         TreeLogger.DEBUG, "Including file: $0");
   }
 
+  // XXX <Instantiations
+  /**
+   * Children of single directory, valid while directory modification time is
+   * the same.
+   */
+  private static class DirSnapshot {
+    private final long lastModified;
+    private final long listTime;
+    private final List<File> dirs = new ArrayList<File>();
+    private final List<File> files = new ArrayList<File>();
+
+    DirSnapshot(File dir) {
+      lastModified = dir.lastModified();
+      listTime = System.currentTimeMillis();
+      File[] children = dir.listFiles();
+      if (children != null) {
+        for (File child : children) {
+          if (child.isDirectory()) {
+            dirs.add(child);
+          } else {
+            files.add(child);
+          }
+        }
+      }
+    }
+
+    /**
+     * @return <code>true</code> if directory may have different children now.
+     *         Directory changed during same second as it was listed is also
+     *         considered as changed, because of timestamp granularity.
+     */
+    boolean isStale(File dir) {
+      long currentLastModified = dir.lastModified();
+      return currentLastModified != lastModified
+          || currentLastModified + 2000 >= listTime;
+    }
+  }
+
+  /**
+   * Last answer for some {@link PathPrefixSet}.
+   */
+  private static class Snapshot {
+    private final int prefixSetSize;
+    private final Map<AbstractResource, PathPrefix> cachedAnswers;
+    private final Map<String, FileResource> resources;
+
+    Snapshot(int prefixSetSize,
+        Map<AbstractResource, PathPrefix> cachedAnswers,
+        Map<String, FileResource> resources) {
+      this.prefixSetSize = prefixSetSize;
+      this.cachedAnswers = cachedAnswers;
+      this.resources = resources;
+    }
+  }
+  // XXX >Instantiations
+
   private final File dir;
 
+  // XXX <Instantiations
+  private final Map<File, DirSnapshot> dirSnapshots = new HashMap<File, DirSnapshot>();
+
+  private final Map<PathPrefixSet, Snapshot> cachedSnapshots =
+      new IdentityHashMap<PathPrefixSet, Snapshot>();
+  // XXX >Instantiations
+
   public DirectoryClassPathEntry(File dir) {
     this.dir = dir;
   }
 
+  /**
+   * XXX Instantiations: incremental, only directories with changed
+   * modification time are listed again, {@link FileResource}s for not changed
+   * files are reused. If nothing was changed, previous answer is returned, so
+   * {@link ResourceOracleImpl} can skip update.
+   */
   @Override
-  public Map<AbstractResource, PathPrefix> findApplicableResources(
+  public synchronized Map<AbstractResource, PathPrefix> findApplicableResources(
       TreeLogger logger, PathPrefixSet pathPrefixSet) {
+    Snapshot snapshot = cachedSnapshots.get(pathPrefixSet);
+    if (snapshot != null && snapshot.prefixSetSize != pathPrefixSet.getSize()) {
+      snapshot = null;
+    }
+    Map<String, FileResource> oldResources = snapshot != null
+        ? snapshot.resources : new HashMap<String, FileResource>();
     Map<AbstractResource, PathPrefix> results = new IdentityHashMap<AbstractResource, PathPrefix>();
-    descendToFindResources(logger, pathPrefixSet, results, dir, "");
+    Map<String, FileResource> newResources = new HashMap<String, FileResource>();
+    boolean[] changed = new boolean[]{snapshot == null};
+    descendToFindResources(logger, pathPrefixSet, results, dir, "",
+        oldResources, newResources, changed);
+    if (!changed[0] && newResources.size() == oldResources.size()) {
+      return snapshot.cachedAnswers;
+    }
+    cachedSnapshots.put(pathPrefixSet, new Snapshot(pathPrefixSet.getSize(),
+        results, newResources));
     return results;
   }
 
@@ -66,37 +152,52 @@ public class DirectoryClassPathEntry extends ClassPathEntry {
    * @param dir the file or directory to consider
    * @param dirPath the abstract path name associated with 'parent', which
    *          explicitly does not include the classpath entry in its path
+   * @param oldResources the resources found last time, to reuse
+   * @param newResources the accumulating resources found now
+   * @param changed is set to <code>true</code> if new resource was created
    */
   private void descendToFindResources(TreeLogger logger,
       PathPrefixSet pathPrefixSet, Map<AbstractResource, PathPrefix> resources,
-      File dir, String dirPath) {
-    assert (dir.isDirectory());
-
+      File dir, String dirPath, Map<String, FileResource> oldResources,
+      Map<String, FileResource> newResources, boolean[] changed) {
     // Assert: this directory is included in the path prefix set.
 
-    File[] children = dir.listFiles();
-    for (File child : children) {
+    // XXX Instantiations: list directory only if changed
+    DirSnapshot dirSnapshot = dirSnapshots.get(dir);
+    if (dirSnapshot == null || dirSnapshot.isStale(dir)) {
+      dirSnapshot = new DirSnapshot(dir);
+      dirSnapshots.put(dir, dirSnapshot);
+    }
+    for (File child : dirSnapshot.dirs) {
+      String childDirPath = dirPath + child.getName() + "/";
+      if (pathPrefixSet.includesDirectory(childDirPath)) {
+        Messages.DESCENDING_INTO_DIR.log(logger, child.getAbsolutePath(),
+            null);
+        descendToFindResources(logger, pathPrefixSet, resources, child,
+            childDirPath, oldResources, newResources, changed);
+      } else {
+        Messages.NOT_DESCENDING_INTO_DIR.log(logger, child.getAbsolutePath(),
+            null);
+      }
+    }
+    for (File child : dirSnapshot.files) {
       String childPath = dirPath + child.getName();
-      if (child.isDirectory()) {
-        String childDirPath = childPath + "/";
-        if (pathPrefixSet.includesDirectory(childDirPath)) {
-          Messages.DESCENDING_INTO_DIR.log(logger, child.getAbsolutePath(),
-              null);
-          descendToFindResources(logger, pathPrefixSet, resources, child,
-              childDirPath);
-        } else {
-          Messages.NOT_DESCENDING_INTO_DIR.log(logger, child.getAbsolutePath(),
-              null);
+      PathPrefix prefix = null;
+      if ((prefix = pathPrefixSet.includesResource(childPath)) != null) {
+        Messages.INCLUDING_FILE.log(logger, childPath, null);
+        FileResource r = oldResources.get(childPath);
+        if (r == null || r.isStale()) {
+          if (!child.isFile()) {
+            // removed since directory was listed
+            continue;
+          }
+          r = new FileResource(this, childPath, child);
+          changed[0] = true;
         }
+        resources.put(r, prefix);
+        newResources.put(childPath, r);
       } else {
-        PathPrefix prefix = null;
-        if ((prefix = pathPrefixSet.includesResource(childPath)) != null) {
-          Messages.INCLUDING_FILE.log(logger, childPath, null);
-          FileResource r = new FileResource(this, childPath, child);
-          resources.put(r, prefix);
-        } else {
-          Messages.EXCLUDING_FILE.log(logger, childPath, null);
-        }
+        Messages.EXCLUDING_FILE.log(logger, childPath, null);
       }
     }
   }
@@ -298,6 +298,16 @@ public class ResourceOracleImpl implements ResourceOracle {
 
   private PathPrefixSet pathPrefixSet = new PathPrefixSet();
 
+  // XXX <Instantiations
+  /**
+   * Answers of {@link ClassPathEntry}s during last refresh, entries return same
+   * answers if they were not changed.
+   */
+  private List<Map<AbstractResource, PathPrefix>> lastEntryAnswers;
+  private PathPrefixSet lastPathPrefixSet;
+  private int lastPathPrefixSetSize;
+  // XXX >Instantiations
+
   /**
    * Constructs a {@link ResourceOracleImpl} from a set of
    * {@link ClassPathEntry ClassPathEntries}. The passed-in list is copied, but
@@ -332,6 +342,7 @@ public class ResourceOracleImpl implements ResourceOracle {
     exposedResourceMap = Collections.emptyMap();
     exposedResources = Collections.emptySet();
     internalMap = Collections.emptyMap();
+    lastEntryAnswers = null;
   }
 
   public Set<String> getPathNames() {
@@ -378,12 +389,29 @@ public class ResourceOracleImpl implements ResourceOracle {
      * resources with the same path, the one with the higher-priority path
      * prefix wins.
      */
+    // XXX <Instantiations: ask all entries, skip update if no entry changed
+    List<TreeLogger> entryLoggers = new ArrayList<TreeLogger>();
+    List<Map<AbstractResource, PathPrefix>> entryAnswers =
+        new ArrayList<Map<AbstractResource, PathPrefix>>();
     for (ClassPathEntry pathRoot : classPath) {
       TreeLogger branchForClassPathEntry = Messages.EXAMINING_PATH_ROOT.branch(
           refreshBranch, pathRoot.getLocation(), null);
-
-      Map<AbstractResource, PathPrefix> resourceToPrefixMap = pathRoot.findApplicableResources(
-          branchForClassPathEntry, pathPrefixSet);
+      entryLoggers.add(branchForClassPathEntry);
+      entryAnswers.add(pathRoot.findApplicableResources(
+          branchForClassPathEntry, pathPrefixSet));
+    }
+    if (isSameAnswers(entryAnswers)) {
+      Messages.NO_RESOURCES_CHANGED.log(refreshBranch, null);
+      PerfLogger.end();
+      return;
+    }
+    lastEntryAnswers = entryAnswers;
+    lastPathPrefixSet = pathPrefixSet;
+    lastPathPrefixSetSize = pathPrefixSet.getSize();
+    // XXX >Instantiations
+    for (int i = 0; i < entryAnswers.size(); i++) {
+      TreeLogger branchForClassPathEntry = entryLoggers.get(i);
+      Map<AbstractResource, PathPrefix> resourceToPrefixMap = entryAnswers.get(i);
       for (Entry<AbstractResource, PathPrefix> entry : resourceToPrefixMap.entrySet()) {
         ResourceData newCpeData = new ResourceData(entry.getKey(),
             entry.getValue());
@@ -445,6 +473,26 @@ public class ResourceOracleImpl implements ResourceOracle {
     PerfLogger.end();
   }
 
+  // XXX <Instantiations
+  /**
+   * @return <code>true</code> if all {@link ClassPathEntry}s returned same
+   *         answers as during last refresh, for same {@link PathPrefixSet}.
+   */
+  private boolean isSameAnswers(List<Map<AbstractResource, PathPrefix>> entryAnswers) {
+    if (lastEntryAnswers == null || lastPathPrefixSet != pathPrefixSet
+        || lastPathPrefixSetSize != pathPrefixSet.getSize()
+        || lastEntryAnswers.size() != entryAnswers.size()) {
+      return false;
+    }
+    for (int i = 0; i < entryAnswers.size(); i++) {
+      if (lastEntryAnswers.get(i) != entryAnswers.get(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+  // XXX >Instantiations
+
   public void setPathPrefixes(PathPrefixSet pathPrefixSet) {
     this.pathPrefixSet = pathPrefixSet;
   }
@@ -22,9 +22,11 @@ import com.google.gwt.dev.util.collect.Sets;
 import com.google.gwt.dev.util.msg.Message1String;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.Enumeration;
 import java.util.Map;
 import java.util.Set;
+import java.util.jar.JarFile;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -72,19 +74,29 @@ public class ZipFileClassPathEntry extends ClassPathEntry {
   private final Map<PathPrefixSet, ZipFileSnapshot> cachedSnapshots = new IdentityHashMap<PathPrefixSet, ZipFileSnapshot>();
 
   private String cachedLocation;
-  private final ZipFile zipFile;
+  // XXX <Instantiations: zip file is reopened if changed
+  private ZipFile zipFile;
+  private long zipFileStamp;
+  private int generation;
+  // XXX >Instantiations
 
   public ZipFileClassPathEntry(ZipFile zipFile) {
     this.zipFile = zipFile;
+    // XXX Instantiations
+    this.zipFileStamp = new File(zipFile.getName()).lastModified();
   }
 
   /**
    * Indexes the zip file on-demand, and only once over the life of the process.
+   * 
+   * XXX Instantiations: zip is considered immutable until its timestamp is
+   * changed, then it is reopened and indexed again.
    */
   @Override
-  public Map<AbstractResource, PathPrefix> findApplicableResources(
+  public synchronized Map<AbstractResource, PathPrefix> findApplicableResources(
       TreeLogger logger, PathPrefixSet pathPrefixSet) {
-    // Never re-index.
+    // XXX Instantiations: re-index if changed
+    reopenIfChanged(logger);
     if (allZipFileResources == null) {
       allZipFileResources = buildIndex(logger);
     }
@@ -106,10 +118,44 @@ public class ZipFileClassPathEntry extends ClassPathEntry {
     return cachedLocation;
   }
 
-  public ZipFile getZipFile() {
+  public synchronized ZipFile getZipFile() {
     return zipFile;
   }
 
+  // XXX <Instantiations
+  /**
+   * @return the number of times when zip file was reopened, resources of older
+   *         generation are stale.
+   */
+  public synchronized int getGeneration() {
+    return generation;
+  }
+
+  private void reopenIfChanged(TreeLogger logger) {
+    File file = new File(zipFile.getName());
+    long stamp = file.lastModified();
+    if (stamp == zipFileStamp || stamp == 0) {
+      return;
+    }
+    try {
+      ZipFile newZipFile = zipFile instanceof JarFile ? new JarFile(file)
+          : new ZipFile(file);
+      try {
+        zipFile.close();
+      } catch (IOException e) {
+      }
+      zipFile = newZipFile;
+      zipFileStamp = stamp;
+      generation++;
+      allZipFileResources = null;
+      cachedSnapshots.clear();
+    } catch (IOException e) {
+      // probably still being written, try next time
+      logger.log(TreeLogger.DEBUG, "Unable to reopen " + file, e);
+    }
+  }
+  // XXX >Instantiations
+
   private Set<ZipFileResource> buildIndex(TreeLogger logger) {
     logger = Messages.BUILDING_INDEX.branch(logger, zipFile.getName(), null);
 
@@ -29,6 +29,9 @@ public class ZipFileResource extends AbstractResource {
   private final ZipFileClassPathEntry classPathEntry;
   private final String path;
   // >>> Instantiations
+  private final int generation;
+  // <<< Instantiations
+  // >>> Instantiations
   private final String[] pathParts;
   // <<< Instantiations
 
@@ -37,6 +40,7 @@ public class ZipFileResource extends AbstractResource {
     this.path = path;
     // >>> Instantiations
     this.pathParts = StringUtils.split(path, '/');
+    this.generation = classPathEntry.getGeneration();
     // <<< Instantiations
   }
 
@@ -75,12 +79,12 @@ public class ZipFileResource extends AbstractResource {
   }
   // XXX > Instantiations
   /**
-   * Since we don't dynamically reload zips during a run, zip-based resources
-   * cannot become stale.
+   * Instantiations: zip-based resources become stale only when zip file is
+   * changed and reopened.
    */
   @Override
   public boolean isStale() {
-    return false;
+    return generation != classPathEntry.getGeneration();
   }
 
   @Override
@@ -47,6 +47,10 @@ import com.google.gwt.util.tools.Utility;
 
 import org.eclipse.wb.internal.core.utils.reflect.AbstractMethodsImplementorVisitor;
 
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
 
 import org.apache.commons.collections.map.AbstractReferenceMap;
 import org.apache.commons.collections.map.ReferenceIdentityMap;
@@ -908,6 +912,12 @@ public final class CompilingClassLoader extends ClassLoader implements
           typeOracle.getJavaLangObject(), singleJsoImplData);
       classRewriter = new HostedModeClassRewriter(jsoTypeNames, jsoSuperTypes,
           singleJsoImplData, mapper);
+      // XXX <Instantiations
+      for (JClassType intf : typeOracle.getSingleJsoImplInterfaces()) {
+        singleJsoImplInterfaceNames.add(getBinaryName(intf));
+      }
+      rewriterFingerprint = computeRewriterFingerprint(jsoTypes);
+      // XXX >Instantiations
     } else {
       // If we couldn't find the JSO class, we don't need to do any rewrites.
       classRewriter = null;
@@ -1172,11 +1182,38 @@ public final class CompilingClassLoader extends ClassLoader implements
         classBytes = emmaStrategy.getEmmaClassBytes(null, lookupClassName, 0);
       }
     }
-    if (classBytes != null && classRewriter != null) {
+    // XXX <Instantiations
+    if (classBytes != null) {
       Map<String, String> anonymousClassMap = Collections.emptyMap();
       if (unit != null) {
         anonymousClassMap = unit.getAnonymousClassMap();
       }
+      // dump requires real rewriting
+      if (CLASS_DUMP) {
+        return rewriteClassBytes(className, classBytes, anonymousClassMap);
+      }
+      // try to use bytes rewritten before
+      String cacheKey = RewrittenClassCache.getKey(className, rewriterFingerprint);
+      byte[] digest = RewrittenClassCache.digest(classBytes, anonymousClassMap,
+          getRewriteInputs(className, classBytes));
+      byte[] cachedBytes = RewrittenClassCache.get(cacheKey, digest);
+      if (cachedBytes != null) {
+        return cachedBytes;
+      }
+      classBytes = rewriteClassBytes(className, classBytes, anonymousClassMap);
+      RewrittenClassCache.put(cacheKey, digest, classBytes);
+    }
+    // XXX >Instantiations
+    return classBytes;
+  }
+
+  // XXX <Instantiations
+  /**
+   * Applies GWT JSO rewriting and design-time rewriting to the original class bytes.
+   */
+  private byte[] rewriteClassBytes(String className, byte[] classBytes,
+      Map<String, String> anonymousClassMap) {
+    if (classRewriter != null) {
       byte[] newBytes = classRewriter.rewrite(typeOracle, className,
           classBytes, anonymousClassMap);
       if (CLASS_DUMP) {
@@ -1186,39 +1223,124 @@ public final class CompilingClassLoader extends ClassLoader implements
       }
       classBytes = newBytes;
     }
-    // XXX <Instantiations
     // implement abstract methods (only for required classes)
-    if (classBytes != null) {
-      if (m_nonAbstractClasses.contains(className)) {
-    	  org.objectweb.asm.ClassReader classReader = new org.objectweb.asm.ClassReader(classBytes);
-    	  AbstractMethodsImplementorVisitor rewriter = new AbstractMethodsImplementorVisitor(className);
-    	  classReader.accept(rewriter, 0);
-    	  classBytes = rewriter.toByteArray();
+    if (m_nonAbstractClasses.contains(className)) {
+      ClassReader classReader = new ClassReader(classBytes);
+      AbstractMethodsImplementorVisitor rewriter = new AbstractMethodsImplementorVisitor(className);
+      classReader.accept(rewriter, 0);
+      classBytes = rewriter.toByteArray();
+    }
+    // design-time rewriting, single pass
+    boolean designTime = isDesignTimeRewritten(className);
+    boolean forceVersion = isForceClassVersion15();
+    if (designTime || forceVersion) {
+      ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+      ClassVisitor v = writer;
+      // Force class version later
+      // http://fogbugz.instantiations.com/fogbugz/default.php?40575
+      if (forceVersion) {
+        v = new ForceClassVersion15(v);
       }
       // force "private static final boolean isDesignTime()" return "true"
-      if (!className.startsWith("com.google.")
-    		  && !className.startsWith("com.extjs.")
-    		  && !className.startsWith("com.smartgwt.")) {
-    	  org.objectweb.asm.ClassReader classReader = new org.objectweb.asm.ClassReader(classBytes);
-    	  GWTDesignTimeVisitor rewriter = new GWTDesignTimeVisitor();
-    	  classReader.accept(rewriter, 0);
-    	  classBytes = rewriter.toByteArray();
+      if (designTime) {
+        v = new GWTDesignTimeVisitor(v);
       }
-      // Force class version later
-      // http://fogbugz.instantiations.com/fogbugz/default.php?40575
-      {
-		if (Double.parseDouble(System.getProperty("java.class.version")) < org.objectweb.asm.Opcodes.V1_6) {
-			org.objectweb.asm.ClassWriter writer = new org.objectweb.asm.ClassWriter(0);
-			org.objectweb.asm.ClassAdapter v = new ForceClassVersion15(writer);
-			new org.objectweb.asm.ClassReader(classBytes).accept(v, 0);
-			classBytes = writer.toByteArray();
-		}	
-	  }
+      new ClassReader(classBytes).accept(v, 0);
+      classBytes = writer.toByteArray();
     }
-    // XXX >Instantiations
     return classBytes;
   }
 
+  private static boolean isDesignTimeRewritten(String className) {
+    return !className.startsWith("com.google.")
+        && !className.startsWith("com.extjs.")
+        && !className.startsWith("com.smartgwt.");
+  }
+
+  private static boolean isForceClassVersion15() {
+    return Double.parseDouble(System.getProperty("java.class.version")) < Opcodes.V1_6;
+  }
+
+  /**
+   * @return the inputs of rewriting for given class, which are not covered by its bytes and
+   *         {@link #rewriterFingerprint}.
+   */
+  private List<String> getRewriteInputs(String className, byte[] classBytes) {
+    List<String> inputs = new ArrayList<String>();
+    inputs.add("nonAbstract:" + m_nonAbstractClasses.contains(className));
+    // trampolines are generated for all SingleJsoImpl interfaces of class
+    if (!singleJsoImplInterfaceNames.isEmpty()) {
+      Set<String> interfaces = new TreeSet<String>();
+      for (String intfName : new ClassReader(classBytes).getInterfaces()) {
+        JClassType intf = typeOracle.findType(InternalName.toSourceName(intfName));
+        if (intf != null) {
+          addSingleJsoImplInterfaces(interfaces, intf);
+        }
+      }
+      inputs.addAll(interfaces);
+    }
+    return inputs;
+  }
+
+  private void addSingleJsoImplInterfaces(Set<String> interfaces, JClassType intf) {
+    String name = getBinaryName(intf);
+    if (singleJsoImplInterfaceNames.contains(name)) {
+      interfaces.add(name);
+    }
+    for (JClassType superIntf : intf.getImplementedInterfaces()) {
+      addSingleJsoImplInterfaces(interfaces, superIntf);
+    }
+  }
+
+  /**
+   * @return the fingerprint of JSO types and SingleJsoImpl interfaces, which define configuration
+   *         of {@link HostedModeClassRewriter}.
+   */
+  private String computeRewriterFingerprint(Set<JClassType> jsoTypes) {
+    Set<String> values = new HashSet<String>();
+    values.add("forceClassVersion15:" + isForceClassVersion15());
+    Set<JClassType> visited = new HashSet<JClassType>();
+    for (JClassType type : jsoTypes) {
+      addTypeFingerprint(values, visited, type);
+    }
+    for (JClassType intf : typeOracle.getSingleJsoImplInterfaces()) {
+      addTypeFingerprint(values, visited, intf);
+      JClassType jso = typeOracle.getSingleJsoImpl(intf);
+      String jsoName = jso != null ? getBinaryName(jso) : null;
+      values.add(getBinaryName(intf) + " singleJsoImpl " + jsoName);
+    }
+    return RewrittenClassCache.fingerprint(values);
+  }
+
+  private void addTypeFingerprint(Set<String> values, Set<JClassType> visited, JClassType type) {
+    if (type == null || !visited.add(type)) {
+      return;
+    }
+    StringBuilder sb = new StringBuilder(getBinaryName(type));
+    if (type.getSuperclass() != null) {
+      sb.append(" extends ").append(getBinaryName(type.getSuperclass()));
+    }
+    for (JClassType intf : type.getImplementedInterfaces()) {
+      sb.append(" implements ").append(getBinaryName(intf));
+    }
+    for (JMethod method : type.getMethods()) {
+      sb.append(' ');
+      if (method.isStatic()) {
+        sb.append("static ");
+      }
+      sb.append(method.getName()).append('(');
+      for (JParameter param : method.getParameters()) {
+        sb.append(param.getType().getJNISignature());
+      }
+      sb.append(')').append(method.getReturnType().getJNISignature());
+    }
+    values.add(sb.toString());
+    for (JClassType intf : type.getImplementedInterfaces()) {
+      addTypeFingerprint(values, visited, intf);
+    }
+  }
+  // XXX >Instantiations
+
   private String getBinaryName(JClassType type) {
     String name = type.getPackage().getName() + '.';
     name += type.getName().replace('.', '$');
@@ -1352,6 +1474,14 @@ public final class CompilingClassLoader extends ClassLoader implements
 	 * {@link Set} of classes names that should be made non-abstract.
 	 */
 	private final Set<String>m_nonAbstractClasses = new TreeSet<String>();
+	/**
+	 * Fingerprint of {@link #classRewriter} configuration, part of {@link RewrittenClassCache} key.
+	 */
+	private String rewriterFingerprint = "noJso";
+	/**
+	 * Binary names of SingleJsoImpl interfaces.
+	 */
+	private final Set<String> singleJsoImplInterfaceNames = new HashSet<String>();
 	/**
 	 * Adds the name of class that should be made non-abstract.
 	 */
@@ -0,0 +1,302 @@
+/*******************************************************************************
+ * Copyright 2011 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gwt.dev.shell;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.commons.io.IOUtils;
+import org.eclipse.wb.internal.core.DesignerPlugin;
+import org.eclipse.wb.internal.core.utils.reflect.AbstractMethodsImplementorVisitor;
+
+import com.google.gdt.eclipse.designer.hosted.classloader.GWTDesignTimeVisitor;
+import com.google.gwt.dev.javac.CompilationUnitDiskCache;
+import com.google.gwt.dev.javac.CompilationUnitPackStore;
+import com.google.gwt.dev.shell.rewrite.ForceClassVersion15;
+import com.google.gwt.dev.shell.rewrite.HostedModeClassRewriter;
+
+/**
+ * Cache for class bytes rewritten by {@link CompilingClassLoader}, so classes which were not
+ * changed are not rewritten again when design is reloaded or new editor is opened.
+ *
+ * Entry is keyed by class name and fingerprint of rewriter configuration (JSO types), and is valid
+ * only if digest of original class bytes and other rewrite inputs is same. Entries are kept in
+ * memory and, if not disabled using "gwtd.rewriteCache.disk" system property, in
+ * {@link CompilationUnitPackStore} on disk. Version of disk store includes digest of rewriter
+ * classes, so rewritten bytes of previous Designer versions are not used.
+ *
+ * XXX Instantiations
+ *
+ * @author scheglov_ke
+ */
+public final class RewrittenClassCache {
+	private static final String CACHE_DIR_NAME = "rewritten-cache";
+	/**
+	 * Version of record format, should be changed when format of records is changed.
+	 */
+	private static final long FORMAT_VERSION = 0x4757544452455731L;
+	/**
+	 * Classes which rewrite class bytes, with their nested and anonymous classes. Package private
+	 * classes are specified by name.
+	 */
+	private static final Object[] REWRITER_CLASSES = {
+			HostedModeClassRewriter.class,
+			"com.google.gwt.dev.shell.rewrite.HasAnnotation",
+			"com.google.gwt.dev.shell.rewrite.RewriteJsniMethods",
+			"com.google.gwt.dev.shell.rewrite.RewriteRefsToJsoClasses",
+			"com.google.gwt.dev.shell.rewrite.RewriteSingleJsoImplDispatches",
+			"com.google.gwt.dev.shell.rewrite.WriteJsoImpl",
+			ForceClassVersion15.class,
+			GWTDesignTimeVisitor.class,
+			AbstractMethodsImplementorVisitor.class,
+			CompilingClassLoader.class};
+	private static final boolean DISK_ENABLED =
+			!"false".equals(System.getProperty("gwtd.rewriteCache.disk"));
+	/**
+	 * Maximal total size of rewritten bytes kept in memory.
+	 */
+	private static final int MEMORY_LIMIT = 8 * 1024 * 1024;
+	private static final int DIGEST_LENGTH = 16;
+	private static final Map<String, byte[]> m_memory = new LinkedHashMap<String, byte[]>(256,
+		0.75f,
+		true);
+	private static int m_memorySize;
+	private static CompilationUnitPackStore m_store;
+	private static boolean m_storeOpened;
+	////////////////////////////////////////////////////////////////////////////
+	//
+	// Constructor
+	//
+	////////////////////////////////////////////////////////////////////////////
+	private RewrittenClassCache() {
+	}
+	////////////////////////////////////////////////////////////////////////////
+	//
+	// Access
+	//
+	////////////////////////////////////////////////////////////////////////////
+	/**
+	 * @param key
+	 *          the key of class, see {@link #getKey(String, String)}.
+	 * @param digest
+	 *          the digest of rewrite inputs, see {@link #digest(byte[], Map, Collection)}.
+	 * @return the cached rewritten bytes, or <code>null</code> if not cached or inputs were
+	 *         changed.
+	 */
+	public static synchronized byte[] get(String key, byte[] digest) {
+		byte[] record = m_memory.get(key);
+		if (record == null) {
+			CompilationUnitPackStore store = getStore();
+			if (store != null) {
+				record = store.get(key);
+				if (record != null) {
+					putMemory(key, record);
+				}
+			}
+		}
+		if (record == null || record.length < DIGEST_LENGTH) {
+			return null;
+		}
+		for (int i = 0; i < DIGEST_LENGTH; i++) {
+			if (record[i] != digest[i]) {
+				return null;
+			}
+		}
+		byte[] bytes = new byte[record.length - DIGEST_LENGTH];
+		System.arraycopy(record, DIGEST_LENGTH, bytes, 0, bytes.length);
+		return bytes;
+	}
+	/**
+	 * Remembers rewritten bytes of class.
+	 */
+	public static synchronized void put(String key, byte[] digest, byte[] bytes) {
+		byte[] record = new byte[DIGEST_LENGTH + bytes.length];
+		System.arraycopy(digest, 0, record, 0, DIGEST_LENGTH);
+		System.arraycopy(bytes, 0, record, DIGEST_LENGTH, bytes.length);
+		putMemory(key, record);
+		CompilationUnitPackStore store = getStore();
+		if (store != null) {
+			store.put(key, record);
+		}
+	}
+	/**
+	 * @return the key for class with given name and rewriter fingerprint.
+	 */
+	public static String getKey(String className, String fingerprint) {
+		return className + "|" + fingerprint;
+	}
+	////////////////////////////////////////////////////////////////////////////
+	//
+	// Digest
+	//
+	////////////////////////////////////////////////////////////////////////////
+	/**
+	 * @return the hex MD5 digest of given strings, independent of their order.
+	 */
+	public static String fingerprint(Collection<String> values) {
+		String[] sorted = values.toArray(new String[values.size()]);
+		Arrays.sort(sorted);
+		MessageDigest digest = createDigest();
+		for (String value : sorted) {
+			update(digest, value);
+		}
+		StringBuilder sb = new StringBuilder();
+		for (byte b : digest.digest()) {
+			sb.append(Character.forDigit(b >> 4 & 0xF, 16));
+			sb.append(Character.forDigit(b & 0xF, 16));
+		}
+		return sb.toString();
+	}
+	/**
+	 * @param classBytes
+	 *          the original class bytes.
+	 * @param anonymousClassMap
+	 *          the mapping of anonymous classes used for JSNI rewriting.
+	 * @param values
+	 *          the additional inputs of rewriting, in stable order.
+	 * @return the digest of all inputs of rewriting.
+	 */
+	public static byte[] digest(byte[] classBytes,
+			Map<String, String> anonymousClassMap,
+			Collection<String> values) {
+		MessageDigest digest = createDigest();
+		digest.update(classBytes);
+		Map<String, String> sortedMap = new TreeMap<String, String>(anonymousClassMap);
+		for (Map.Entry<String, String> entry : sortedMap.entrySet()) {
+			update(digest, entry.getKey());
+			update(digest, entry.getValue());
+		}
+		for (String value : values) {
+			update(digest, value);
+		}
+		return digest.digest();
+	}
+	////////////////////////////////////////////////////////////////////////////
+	//
+	// Implementation
+	//
+	////////////////////////////////////////////////////////////////////////////
+	private static MessageDigest createDigest() {
+		try {
+			return MessageDigest.getInstance("MD5");
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+	private static void update(MessageDigest digest, String value) {
+		try {
+			digest.update(value.getBytes("UTF-8"));
+			digest.update((byte) 0);
+		} catch (UnsupportedEncodingException e) {
+			throw new RuntimeException(e);
+		}
+	}
+	/**
+	 * @return the version of disk store, i.e. {@link #FORMAT_VERSION} and digest of bytes of
+	 *         {@link #REWRITER_CLASSES}.
+	 */
+	static long getCacheVersion() throws Exception {
+		MessageDigest digest = createDigest();
+		for (Object rewriter : REWRITER_CLASSES) {
+			if (rewriter instanceof Class<?>) {
+				updateClassBytes(digest, (Class<?>) rewriter);
+			} else {
+				ClassLoader classLoader = HostedModeClassRewriter.class.getClassLoader();
+				updateClassBytes(digest, Class.forName((String) rewriter, false, classLoader));
+			}
+		}
+		byte[] bytes = digest.digest();
+		long version = FORMAT_VERSION;
+		for (int i = 0; i < 8; i++) {
+			version ^= (bytes[i] & 0xFFL) << 8 * i;
+		}
+		return version;
+	}
+	/**
+	 * Updates {@link MessageDigest} with bytes of given class, its member and anonymous classes.
+	 */
+	private static void updateClassBytes(MessageDigest digest, Class<?> clazz) throws Exception {
+		ClassLoader classLoader = clazz.getClassLoader();
+		String path = clazz.getName().replace('.', '/');
+		updateResourceBytes(digest, classLoader, path + ".class");
+		int anonymousIndex = 1;
+		while (updateResourceBytes(digest, classLoader, path + "$" + anonymousIndex + ".class")) {
+			anonymousIndex++;
+		}
+		for (Class<?> memberClass : clazz.getDeclaredClasses()) {
+			updateClassBytes(digest, memberClass);
+		}
+	}
+	/**
+	 * @return <code>true</code> if resource exists and its bytes were added to {@link MessageDigest}.
+	 */
+	private static boolean updateResourceBytes(MessageDigest digest,
+			ClassLoader classLoader,
+			String path) throws Exception {
+		InputStream input = classLoader.getResourceAsStream(path);
+		if (input == null) {
+			return false;
+		}
+		try {
+			update(digest, path);
+			digest.update(IOUtils.toByteArray(input));
+			return true;
+		} finally {
+			IOUtils.closeQuietly(input);
+		}
+	}
+	private static void putMemory(String key, byte[] record) {
+		byte[] oldRecord = m_memory.put(key, record);
+		if (oldRecord != null) {
+			m_memorySize -= oldRecord.length;
+		}
+		m_memorySize += record.length;
+		// evict least recently used records
+		for (Iterator<byte[]> I = m_memory.values().iterator(); m_memorySize > MEMORY_LIMIT
+				&& I.hasNext();) {
+			m_memorySize -= I.next().length;
+			I.remove();
+		}
+	}
+	/**
+	 * @return the {@link CompilationUnitPackStore} to keep rewritten classes on disk, or
+	 *         <code>null</code> if disabled or can not be opened.
+	 */
+	private static CompilationUnitPackStore getStore() {
+		if (!m_storeOpened) {
+			m_storeOpened = true;
+			if (DISK_ENABLED) {
+				try {
+					File cacheDir = CompilationUnitDiskCache.getStateDirectory(CACHE_DIR_NAME);
+					cacheDir.mkdirs();
+					m_store = new CompilationUnitPackStore(cacheDir, getCacheVersion());
+				} catch (Throwable e) {
+					DesignerPlugin.log(e);
+					m_store = null;
+				}
+			}
+		}
+		return m_store;
+	}
+}
@@ -56,6 +56,7 @@ public class Activator extends AbstractUIPlugin {
 	 */
 	@Override
 	public void stop(BundleContext context) throws Exception {
+		HostedModePool.dispose();
 		m_plugin = null;
 		super.stop(context);
 	}
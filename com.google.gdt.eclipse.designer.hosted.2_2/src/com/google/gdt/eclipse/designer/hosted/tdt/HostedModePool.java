@@ -0,0 +1,471 @@
+/*******************************************************************************
+ * Copyright 2011 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.designer.hosted.tdt;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.gdt.eclipse.designer.hosted.IModuleDescription;
+
+import org.eclipse.wb.internal.core.DesignerPlugin;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceProxy;
+import org.eclipse.core.resources.IResourceProxyVisitor;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.math.BigInteger;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pool of "warm" {@link HostedModeSupport}'s, which already loaded GWT "dev" classes and some GWT
+ * module, keyed by GWT SDK location and module classpath.
+ * <p>
+ * Editor {@link HostedModeSupport} leases "warm" one and takes its {@link ClassLoader} and, if it
+ * was created for same module and browser, its module space host, so does not wait for cold GWT
+ * startup. "Warm" class loader may already have loaded project classes, so it is leased only
+ * while stamp of classpath content is same as when it was created. Pool is replenished in
+ * background, and entries which are not used for some time are evicted.
+ *
+ * @author scheglov_ke
+ * @coverage gwtHosted
+ */
+public final class HostedModePool {
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Configuration
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  private static final boolean DEBUG = Boolean.getBoolean("gwtd.pool.debug");
+  /**
+   * Number of "warm" instances to keep for each key.
+   */
+  private static final int SIZE = Integer.getInteger("gwtd.pool.size", 1);
+  /**
+   * Time in milliseconds after which not leased instances are evicted.
+   */
+  private static final long IDLE_TIMEOUT = Integer.getInteger("gwtd.pool.idle", 10 * 60) * 1000L;
+  /**
+   * Lock for loading GWT modules and clearing static caches of GWT "dev" classes, so "warm up" in
+   * background does not run concurrently with creating and disposing editor hosted modes.
+   */
+  static final Object LOCK = new Object();
+  private static final Map<String, Entry> entries = Maps.newHashMap();
+  private static String userAgent = "safari";
+  private static Job job;
+  /**
+   * Stamps of workspace containers, removed when anything in container is changed.
+   */
+  private static final Map<IPath, String> containerStamps = Maps.newHashMap();
+  private static int containerStampsGeneration;
+  private static IResourceChangeListener resourceListener;
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Constructor
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  private HostedModePool() {
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Access
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  /**
+   * Schedules creation of "warm" instances for given module.
+   *
+   * @param moduleName
+   *          the name of GWT module to load.
+   */
+  public static void warmUp(IModuleDescription moduleDescription, String moduleName) {
+    if (SIZE > 0) {
+      try {
+        String key = getKey(moduleDescription);
+        synchronized (entries) {
+          Entry entry = entries.get(key);
+          if (entry == null) {
+            entry = new Entry(moduleDescription);
+            entries.put(key, entry);
+          }
+          entry.moduleName = moduleName;
+          entry.userAgent = userAgent;
+          entry.useTime = System.currentTimeMillis();
+          scheduleJob(0);
+        }
+      } catch (Throwable e) {
+        DesignerPlugin.log(e);
+      }
+    }
+  }
+
+  /**
+   * Evicts all "warm" instances and stops replenishing.
+   */
+  public static void dispose() {
+    List<HostedModeSupport> instances = Lists.newArrayList();
+    synchronized (entries) {
+      for (Entry entry : entries.values()) {
+        instances.addAll(entry.instances);
+      }
+      entries.clear();
+      if (job != null) {
+        job.cancel();
+        job = null;
+      }
+    }
+    for (HostedModeSupport instance : instances) {
+      instance.disposeWarm();
+    }
+    synchronized (containerStamps) {
+      containerStamps.clear();
+      containerStampsGeneration++;
+      if (resourceListener != null) {
+        ResourcesPlugin.getWorkspace().removeResourceChangeListener(resourceListener);
+        resourceListener = null;
+      }
+    }
+  }
+
+  /**
+   * @return the "warm" {@link HostedModeSupport} for given module, or <code>null</code> if no such
+   *         instance in pool. Caller takes ownership.
+   */
+  static HostedModeSupport lease(IModuleDescription moduleDescription) {
+    try {
+      String key = getKey(moduleDescription);
+      String stamp = getStamp(moduleDescription);
+      List<HostedModeSupport> staleInstances = Lists.newArrayList();
+      try {
+        synchronized (entries) {
+          Entry entry = entries.get(key);
+          if (entry != null) {
+            entry.useTime = System.currentTimeMillis();
+            scheduleJob(0);
+            while (!entry.instances.isEmpty()) {
+              HostedModeSupport instance = entry.instances.remove(0);
+              if (stamp.equals(instance.getWarmStamp())) {
+                return instance;
+              }
+              staleInstances.add(instance);
+            }
+          }
+        }
+      } finally {
+        for (HostedModeSupport instance : staleInstances) {
+          instance.disposeWarm();
+        }
+      }
+    } catch (Throwable e) {
+      DesignerPlugin.log(e);
+    }
+    return null;
+  }
+
+  /**
+   * Notifies that editor {@link HostedModeSupport} for given module was disposed, so pool should
+   * have "warm" instances for next editor.
+   *
+   * @param userAgent
+   *          the user agent of editor browser, to create next "warm" module space host for it.
+   */
+  static void release(IModuleDescription moduleDescription, String moduleName, String userAgent) {
+    synchronized (entries) {
+      HostedModePool.userAgent = userAgent;
+    }
+    warmUp(moduleDescription, moduleName);
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Key and stamp
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  /**
+   * @return the key for "warm" instances which can be used for given module.
+   */
+  static String getKey(IModuleDescription moduleDescription) throws Exception {
+    String devLibLocation = Utils.getDevLibLocation(moduleDescription);
+    return devLibLocation + "|" + Arrays.asList(moduleDescription.getURLs());
+  }
+
+  /**
+   * @return the stamp of content of classpath of given module. Workspace folders use hash of paths
+   *         and modification stamps of their resources (cached until folder is changed), other
+   *         directories and jars use time stamps and sizes of files.
+   */
+  static String getStamp(IModuleDescription moduleDescription) throws Exception {
+    StringBuilder sb = new StringBuilder();
+    for (URL url : moduleDescription.getURLs()) {
+      File file = FileUtils.toFile(url);
+      if (file != null) {
+        IContainer container = getWorkspaceContainer(file);
+        if (container != null) {
+          sb.append(getStamp(container));
+        } else {
+          appendStamp(sb, file);
+        }
+      }
+      sb.append(',');
+    }
+    return sb.toString();
+  }
+
+  /**
+   * @return the accessible workspace {@link IContainer} for given directory, or <code>null</code>.
+   */
+  private static IContainer getWorkspaceContainer(File file) {
+    if (file.isDirectory()) {
+      IContainer[] containers =
+          ResourcesPlugin.getWorkspace().getRoot().findContainersForLocationURI(file.toURI());
+      for (IContainer container : containers) {
+        if (container.isAccessible()) {
+          return container;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return the cached stamp of given workspace {@link IContainer}.
+   */
+  private static String getStamp(IContainer container) throws Exception {
+    IPath path = container.getFullPath();
+    int generation;
+    synchronized (containerStamps) {
+      String stamp = containerStamps.get(path);
+      if (stamp != null) {
+        return stamp;
+      }
+      installResourceListener();
+      generation = containerStampsGeneration;
+    }
+    String stamp = computeStamp(container);
+    synchronized (containerStamps) {
+      // don't remember, if something was changed during computing
+      if (generation == containerStampsGeneration) {
+        containerStamps.put(path, stamp);
+      }
+    }
+    return stamp;
+  }
+
+  /**
+   * @return the hash of paths and modification stamps of all files in given {@link IContainer}.
+   *         Modification stamp is counter of changes of single file, so all of them are used.
+   */
+  private static String computeStamp(IContainer container) throws Exception {
+    final MessageDigest digest = MessageDigest.getInstance("MD5");
+    container.accept(new IResourceProxyVisitor() {
+      public boolean visit(IResourceProxy proxy) throws CoreException {
+        if (proxy.getType() == IResource.FILE) {
+          String entry = proxy.requestFullPath() + ":" + proxy.getModificationStamp() + "\n";
+          digest.update(entry.getBytes());
+        }
+        return true;
+      }
+    }, IResource.NONE);
+    return new BigInteger(1, digest.digest()).toString(16);
+  }
+
+  /**
+   * Installs listener which removes stamps of changed containers.
+   */
+  private static void installResourceListener() {
+    if (resourceListener == null) {
+      resourceListener = new IResourceChangeListener() {
+        public void resourceChanged(IResourceChangeEvent event) {
+          IResourceDelta delta = event.getDelta();
+          if (delta != null) {
+            synchronized (containerStamps) {
+              containerStampsGeneration++;
+              for (Iterator<IPath> I = containerStamps.keySet().iterator(); I.hasNext();) {
+                IPath path = I.next();
+                if (delta.findMember(path) != null) {
+                  I.remove();
+                }
+              }
+            }
+          }
+        }
+      };
+      ResourcesPlugin.getWorkspace().addResourceChangeListener(
+          resourceListener,
+          IResourceChangeEvent.POST_CHANGE);
+    }
+  }
+
+  private static void appendStamp(StringBuilder sb, File file) {
+    if (file.isDirectory()) {
+      long[] stamp = new long[3];
+      appendStamp(stamp, file);
+      sb.append(stamp[0]).append(':').append(stamp[1]).append(':').append(stamp[2]);
+    } else {
+      sb.append(file.lastModified()).append(':').append(file.length());
+    }
+  }
+
+  private static void appendStamp(long[] stamp, File directory) {
+    File[] files = directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        if (file.isDirectory()) {
+          appendStamp(stamp, file);
+        } else {
+          stamp[0] = Math.max(stamp[0], file.lastModified());
+          stamp[1]++;
+          stamp[2] += file.length();
+        }
+      }
+    }
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Implementation
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  private static void scheduleJob(long delay) {
+    if (job == null) {
+      job = new Job("GWT hosted mode pool") {
+        @Override
+        protected IStatus run(IProgressMonitor monitor) {
+          update(this);
+          return Status.OK_STATUS;
+        }
+      };
+      job.setSystem(true);
+    }
+    job.schedule(delay);
+  }
+
+  /**
+   * Evicts idle entries and creates missing "warm" instances, one at a time.
+   */
+  private static void update(Job currentJob) {
+    Entry entryToFill = null;
+    String moduleName = null;
+    String entryUserAgent = null;
+    List<HostedModeSupport> evicted = Lists.newArrayList();
+    synchronized (entries) {
+      if (job != currentJob) {
+        return;
+      }
+      long now = System.currentTimeMillis();
+      for (Iterator<Entry> I = entries.values().iterator(); I.hasNext();) {
+        Entry entry = I.next();
+        if (now - entry.useTime >= IDLE_TIMEOUT) {
+          I.remove();
+          evicted.addAll(entry.instances);
+        } else if (entryToFill == null && entry.instances.size() < SIZE) {
+          entryToFill = entry;
+          moduleName = entry.moduleName;
+          entryUserAgent = entry.userAgent;
+        }
+      }
+    }
+    for (HostedModeSupport instance : evicted) {
+      instance.disposeWarm();
+    }
+    // create new "warm" instance
+    if (entryToFill != null) {
+      HostedModeSupport instance =
+          createInstance(entryToFill.moduleDescription, moduleName, entryUserAgent);
+      synchronized (entries) {
+        if (instance == null) {
+          // failed, don't try again for this module
+          entryToFill.useTime = 0;
+        } else if (job == currentJob && entries.containsValue(entryToFill)) {
+          entryToFill.instances.add(instance);
+          instance = null;
+        }
+      }
+      // not needed, dispose outside of pool lock
+      if (instance != null) {
+        instance.disposeWarm();
+      }
+    }
+    // continue, if still alive
+    synchronized (entries) {
+      if (job == currentJob && !entries.isEmpty()) {
+        job.schedule(entryToFill != null ? 0 : IDLE_TIMEOUT);
+      }
+    }
+  }
+
+  /**
+   * @return the new "warm" {@link HostedModeSupport}, or <code>null</code> in case of any error.
+   */
+  private static HostedModeSupport createInstance(IModuleDescription moduleDescription,
+      String moduleName,
+      String userAgent) {
+    long start = System.nanoTime();
+    try {
+      synchronized (LOCK) {
+        // stamp before loading, so any later change makes this instance stale
+        String stamp = getStamp(moduleDescription);
+        HostedModeSupport instance = new HostedModeSupport(moduleDescription, userAgent, stamp);
+        instance.createModuleSpaceHost(moduleName);
+        return instance;
+      }
+    } catch (Throwable e) {
+      DesignerPlugin.log(e);
+      return null;
+    } finally {
+      if (DEBUG) {
+        System.out.println("warm up time: " + (System.nanoTime() - start) / 1000000.0);
+      }
+    }
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Entry
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  /**
+   * "Warm" instances for single key and information to create new ones.
+   */
+  private static final class Entry {
+    private final IModuleDescription moduleDescription;
+    private final List<HostedModeSupport> instances = Lists.newArrayList();
+    private String moduleName;
+    private String userAgent;
+    private long useTime;
+
+    public Entry(IModuleDescription moduleDescription) {
+      this.moduleDescription = moduleDescription;
+    }
+  }
+}
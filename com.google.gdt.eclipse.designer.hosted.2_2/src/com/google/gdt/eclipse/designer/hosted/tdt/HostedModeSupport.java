@@ -44,6 +44,7 @@ import org.osgi.framework.Bundle;
 
 import java.io.File;
 import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Member;
 import java.lang.reflect.Method;
 import java.net.URL;
@@ -66,8 +67,14 @@ public final class HostedModeSupport implements IHostedModeSupport, IBrowserShel
   private final IJavaProject javaProject;
   private ClassLoader projectClassLoader;
   private Object moduleSpaceHost;
+  private String moduleName;
   private final LogSupport logSupport;
+  private final String warmUserAgent;
+  private final String warmStamp;
+  private HostedModeSupport warmInstance;
   private Object impl;
+  private Method findJTypeMethod;
+  private Method getClassLoaderMethod;
   private DispatchIdOracle dispatchIdOracle;
 
   ////////////////////////////////////////////////////////////////////////////
@@ -80,12 +87,22 @@ public final class HostedModeSupport implements IHostedModeSupport, IBrowserShel
     this.parentClassLoader = parentClassLoader;
     this.moduleDescription = moduleDescription;
     this.javaProject = moduleDescription.getJavaProject();
-    // Class loaders
-    createClassLoaders();
-    // impl
-    loadImpl();
-    // Logger
-    this.logSupport = new LogSupport(3 /*TreeLogger.TRACE*/, impl, javaProject);
+    this.warmUserAgent = null;
+    this.warmStamp = null;
+    // use "warm" instance, wait if it is being created now
+    synchronized (HostedModePool.LOCK) {
+      warmInstance = HostedModePool.lease(moduleDescription);
+    }
+    if (warmInstance != null) {
+      projectClassLoader = warmInstance.projectClassLoader;
+      setImpl(warmInstance.impl);
+      // module space host of "warm" instance uses its logger
+      this.logSupport = warmInstance.logSupport;
+    } else {
+      createClassLoaders();
+      loadImpl();
+      this.logSupport = new LogSupport(3 /*TreeLogger.TRACE*/, impl, javaProject);
+    }
     // Browser shell
     this.browserShell = (BrowserShell) createBrowserShell();
     this.browserShell.setHost(this);
@@ -93,11 +110,20 @@ public final class HostedModeSupport implements IHostedModeSupport, IBrowserShel
 
   /**
    * Constructor to use for "warm up".
+   *
+   * @param userAgent
+   *          the user agent to create module space host for.
+   * @param stamp
+   *          the stamp of module classpath, see
+   *          {@link HostedModePool#getStamp(IModuleDescription)}.
    */
-  public HostedModeSupport(IModuleDescription moduleDescription) throws Exception {
+  HostedModeSupport(IModuleDescription moduleDescription, String userAgent, String stamp)
+      throws Exception {
     this.parentClassLoader = null;
     this.moduleDescription = moduleDescription;
     this.javaProject = moduleDescription.getJavaProject();
+    this.warmUserAgent = userAgent;
+    this.warmStamp = stamp;
     // Class loaders
     createClassLoaders();
     // impl
@@ -111,13 +137,18 @@ public final class HostedModeSupport implements IHostedModeSupport, IBrowserShel
   private void loadImpl() throws Exception {
     Class<?> implClass =
         getDevClassLoader().loadClass("com.google.gwt.dev.shell.designtime.HostedModeSupportImpl");
-    impl = implClass.newInstance();
+    setImpl(implClass.newInstance());
     //
     /*Class<?> moduleSpaceClass =
         getDevClassLoader().loadClass("com.google.gwt.dev.shell.designtime.DelegatingModuleSpace");
     ModuleSpace.setDelegatingModuleSpaceClass(moduleSpaceClass);*/
   }
 
+  private void setImpl(Object impl) {
+    this.impl = impl;
+    findJTypeMethod = getMethod(impl.getClass(), "findJType(java.lang.String)");
+  }
+
   ////////////////////////////////////////////////////////////////////////////
   //
   // ClassLoaders
@@ -192,6 +223,34 @@ public final class HostedModeSupport implements IHostedModeSupport, IBrowserShel
   }
 
   public void dispose() {
+    synchronized (HostedModePool.LOCK) {
+      disposeModuleSpaceHost();
+    }
+    //
+    if (browserShell != null) {
+      String userAgent = browserShell.getUserAgentString();
+      browserShell.dispose();
+      // prepare "warm" instance for next editor
+      if (moduleName != null) {
+        HostedModePool.release(moduleDescription, moduleName, userAgent);
+      }
+    }
+    logSupport.dispose();
+    // "warm" instance was leased, but module was not loaded
+    if (warmInstance != null) {
+      warmInstance.disposeWarmModuleSpaceHost();
+      warmInstance = null;
+    }
+    moduleSpaceHost = null;
+    impl = null;
+    projectClassLoader = null;
+    dispatchIdOracle = null;
+  }
+
+  /**
+   * Clears static caches of GWT "dev" classes used by module space host.
+   */
+  private void disposeModuleSpaceHost() {
     if (moduleSpaceHost != null) {
       // clear static caches
       ClassLoader devClassLoader = getDevClassLoader();
@@ -282,15 +341,35 @@ public final class HostedModeSupport implements IHostedModeSupport, IBrowserShel
       } catch (Throwable e) {
       }*/
     }
-    //
-    if (browserShell != null) {
-      browserShell.dispose();
-    }
+  }
+
+  /**
+   * Disposes "warm" instance created for {@link HostedModePool}. Its {@link ClassLoader} and impl
+   * may be used by other {@link HostedModeSupport}, so they are not disposed.
+   */
+  void disposeWarm() {
+    disposeWarmModuleSpaceHost();
     logSupport.dispose();
     moduleSpaceHost = null;
     impl = null;
     projectClassLoader = null;
-    dispatchIdOracle = null;
+  }
+
+  /**
+   * Disposes module space host of "warm" instance, when it is not reused by editor.
+   */
+  private void disposeWarmModuleSpaceHost() {
+    synchronized (HostedModePool.LOCK) {
+      disposeModuleSpaceHost();
+    }
+    moduleSpaceHost = null;
+  }
+
+  /**
+   * @return the stamp of module classpath for which this "warm" instance was created.
+   */
+  String getWarmStamp() {
+    return warmStamp;
   }
 
   /**
@@ -317,11 +396,7 @@ public final class HostedModeSupport implements IHostedModeSupport, IBrowserShel
 
   public ClassLoader getClassLoader() {
     // returns CompilingClassLoader
-    try {
-      return (ClassLoader) ReflectionUtils.invokeMethod2(moduleSpaceHost, "getClassLoader");
-    } catch (Throwable e) {
-      throw ReflectionUtils.propagate(e);
-    }
+    return (ClassLoader) invoke(getClassLoaderMethod, moduleSpaceHost);
   }
 
   public ClassLoader getDevClassLoader() {
@@ -337,11 +412,7 @@ public final class HostedModeSupport implements IHostedModeSupport, IBrowserShel
   }
 
   public Object findJType(String name) {
-    try {
-      return ReflectionUtils.invokeMethod(impl, "findJType(java.lang.String)", name);
-    } catch (Throwable e) {
-      throw ReflectionUtils.propagate(e);
-    }
+    return invoke(findJTypeMethod, impl, name);
   }
 
   /**
@@ -442,21 +513,43 @@ public final class HostedModeSupport implements IHostedModeSupport, IBrowserShel
   //
   ////////////////////////////////////////////////////////////////////////////
   public Object createModuleSpaceHost(String moduleName) throws Exception {
-    ClassLoader oldContextClassLoader = Thread.currentThread().getContextClassLoader();
-    Thread.currentThread().setContextClassLoader(getDevClassLoader());
-    try {
-      initializePersistentUnitCache();
-      // create ShellModuleSpaceHost
-      moduleSpaceHost =
-          ReflectionUtils.invokeMethod(
-              impl,
-              "createModuleSpaceHost(java.lang.String,java.io.File,java.lang.String)",
-              moduleName,
-              null,
-              getUserAgent());
-      return moduleSpaceHost;
-    } finally {
-      Thread.currentThread().setContextClassLoader(oldContextClassLoader);
+    // use module space host of "warm" instance, if it was created for same module and browser
+    {
+      HostedModeSupport warm = warmInstance;
+      warmInstance = null;
+      if (warm != null
+          && moduleName.equals(warm.moduleName)
+          && getUserAgent().equals(warm.warmUserAgent)) {
+        this.moduleName = moduleName;
+        moduleSpaceHost = warm.moduleSpaceHost;
+        getClassLoaderMethod = warm.getClassLoaderMethod;
+        return moduleSpaceHost;
+      }
+      // different module or browser, so "warm" module space host is not needed
+      if (warm != null) {
+        warm.disposeWarmModuleSpaceHost();
+      }
+    }
+    // create new module space host
+    synchronized (HostedModePool.LOCK) {
+      ClassLoader oldContextClassLoader = Thread.currentThread().getContextClassLoader();
+      Thread.currentThread().setContextClassLoader(getDevClassLoader());
+      try {
+        this.moduleName = moduleName;
+        initializePersistentUnitCache();
+        // create ShellModuleSpaceHost
+        moduleSpaceHost =
+            ReflectionUtils.invokeMethod(
+                impl,
+                "createModuleSpaceHost(java.lang.String,java.io.File,java.lang.String)",
+                moduleName,
+                null,
+                getUserAgent());
+        getClassLoaderMethod = getMethod(moduleSpaceHost.getClass(), "getClassLoader()");
+        return moduleSpaceHost;
+      } finally {
+        Thread.currentThread().setContextClassLoader(oldContextClassLoader);
+      }
     }
   }
 
@@ -482,11 +575,11 @@ public final class HostedModeSupport implements IHostedModeSupport, IBrowserShel
   }
 
   /**
-   * @return the actual user agent, or "safari" if "warm up" mode.
+   * @return the actual user agent, or user agent given for "warm up" mode.
    */
   private String getUserAgent() {
     if (browserShell == null) {
-      return "safari";
+      return warmUserAgent;
     }
     return browserShell.getUserAgentString();
   }
@@ -522,6 +615,32 @@ public final class HostedModeSupport implements IHostedModeSupport, IBrowserShel
     return logDir;
   }
 
+  /**
+   * @return the accessible {@link Method} with given signature, to invoke it later many times
+   *         without searching.
+   */
+  private static Method getMethod(Class<?> clazz, String signature) {
+    Method method = ReflectionUtils.getMethodBySignature(clazz, signature);
+    if (method == null) {
+      throw new IllegalArgumentException(clazz.getName() + "." + signature);
+    }
+    method.setAccessible(true);
+    return method;
+  }
+
+  /**
+   * Invokes given {@link Method}, rethrows exception thrown by method itself.
+   */
+  private static Object invoke(Method method, Object object, Object... args) {
+    try {
+      return method.invoke(object, args);
+    } catch (InvocationTargetException e) {
+      throw ReflectionUtils.propagate(e.getCause());
+    } catch (Throwable e) {
+      throw ReflectionUtils.propagate(e);
+    }
+  }
+
   ////////////////////////////////////////////////////////////////////////////
   //
   // IHostedModeSupport, invocations of native code.
@@ -563,43 +682,56 @@ public final class HostedModeSupport implements IHostedModeSupport, IBrowserShel
   // Inner classes
   //
   ////////////////////////////////////////////////////////////////////////////
+  /**
+   * {@link DispatchIdOracle} wrapper for GWT implementation. Used during each JSNI dispatch, so
+   * methods are resolved once and {@link DispatchClassInfo} wrappers are reused.
+   */
   private static final class DispatchIdOracleImpl implements DispatchIdOracle {
     private final Object dispatchIdOracleImpl;
+    private final Method getDispIdMethod;
+    private final Method getClassInfoByDispIdMethod;
+    private final Map<Object, DispatchClassInfo> classInfos = new MapMaker().weakKeys().makeMap();
 
     private DispatchIdOracleImpl(Object dispatchIdOracleImpl) {
       this.dispatchIdOracleImpl = dispatchIdOracleImpl;
+      Class<?> oracleClass = dispatchIdOracleImpl.getClass();
+      getDispIdMethod = getMethod(oracleClass, "getDispId(java.lang.String)");
+      getClassInfoByDispIdMethod = getMethod(oracleClass, "getClassInfoByDispId(int)");
     }
 
     public int getDispId(String member) {
-      try {
-        return (Integer) ReflectionUtils.invokeMethod(
-            dispatchIdOracleImpl,
-            "getDispId(java.lang.String)",
-            member);
-      } catch (Throwable e) {
-        throw ReflectionUtils.propagate(e);
-      }
+      return (Integer) invoke(getDispIdMethod, dispatchIdOracleImpl, member);
     }
 
     public DispatchClassInfo getClassInfoByDispId(int dispId) {
-      try {
-        final Object dispatchClassInfo =
-            ReflectionUtils.invokeMethod(dispatchIdOracleImpl, "getClassInfoByDispId(int)", dispId);
-        return new DispatchClassInfo() {
-          public Member getMember(int dispId) {
-            try {
-              return (Member) ReflectionUtils.invokeMethod(
-                  dispatchClassInfo,
-                  "getMember(int)",
-                  dispId);
-            } catch (Throwable e) {
-              throw ReflectionUtils.propagate(e);
-            }
-          }
-        };
-      } catch (Throwable e) {
-        throw ReflectionUtils.propagate(e);
+      Object classInfoImpl = invoke(getClassInfoByDispIdMethod, dispatchIdOracleImpl, dispId);
+      if (classInfoImpl == null) {
+        return null;
+      }
+      // ids may be reassigned, so wrapper is bound to the GWT object, not to the id
+      DispatchClassInfo classInfo = classInfos.get(classInfoImpl);
+      if (classInfo == null) {
+        classInfo = new DispatchClassInfoImpl(classInfoImpl);
+        classInfos.put(classInfoImpl, classInfo);
       }
+      return classInfo;
+    }
+  }
+
+  /**
+   * {@link DispatchClassInfo} wrapper for GWT implementation.
+   */
+  private static final class DispatchClassInfoImpl implements DispatchClassInfo {
+    private final Object dispatchClassInfoImpl;
+    private final Method getMemberMethod;
+
+    private DispatchClassInfoImpl(Object dispatchClassInfoImpl) {
+      this.dispatchClassInfoImpl = dispatchClassInfoImpl;
+      getMemberMethod = getMethod(dispatchClassInfoImpl.getClass(), "getMember(int)");
+    }
+
+    public Member getMember(int dispId) {
+      return (Member) invoke(getMemberMethod, dispatchClassInfoImpl, dispId);
     }
   }
 }
@@ -14,26 +14,28 @@
  *******************************************************************************/
 package com.google.gdt.eclipse.designer.hosted.classloader;
 
-import org.eclipse.wb.internal.core.utils.asm.ToBytesClassAdapter;
-
-import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.ClassAdapter;
+import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.MethodAdapter;
 import org.objectweb.asm.MethodVisitor;
 
 /**
  * Rewrites <code>"static boolean isDesignTime()"</code> to return <code>true</code>.
+ * <p>
+ * This is {@link ClassAdapter}, so can be chained with other visitors and use single
+ * {@link org.objectweb.asm.ClassWriter}.
  * 
  * @author scheglov_ke
  * @coverage gwtHosted
  */
-public final class GWTDesignTimeVisitor extends ToBytesClassAdapter {
+public final class GWTDesignTimeVisitor extends ClassAdapter {
   ////////////////////////////////////////////////////////////////////////////
   //
   // Constructor
   //
   ////////////////////////////////////////////////////////////////////////////
-  public GWTDesignTimeVisitor() {
-    super(ClassWriter.COMPUTE_MAXS);
+  public GWTDesignTimeVisitor(ClassVisitor cv) {
+    super(cv);
   }
 
   ////////////////////////////////////////////////////////////////////////////
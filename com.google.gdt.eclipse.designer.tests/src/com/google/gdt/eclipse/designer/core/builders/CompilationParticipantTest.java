@@ -15,11 +15,13 @@
 package com.google.gdt.eclipse.designer.core.builders;
 
 import com.google.gdt.eclipse.designer.Activator;
+import com.google.gdt.eclipse.designer.builders.participant.AbstractCompilationParticipant;
 import com.google.gdt.eclipse.designer.builders.participant.MyCompilationParticipant;
 import com.google.gdt.eclipse.designer.builders.participant.QuickFixer;
 import com.google.gdt.eclipse.designer.common.Constants;
 import com.google.gdt.eclipse.designer.core.GTestUtils;
 
+import org.eclipse.wb.internal.core.utils.reflect.ReflectionUtils;
 import org.eclipse.wb.tests.designer.core.AbstractJavaTest;
 
 import org.eclipse.core.resources.IFile;
@@ -33,6 +35,8 @@ import org.eclipse.ui.IMarkerResolutionGenerator2;
 
 import static org.fest.assertions.Assertions.assertThat;
 
+import java.util.concurrent.ThreadPoolExecutor;
+
 /**
  * Test for {@link MyCompilationParticipant}.
  * 
@@ -333,6 +337,62 @@ public class CompilationParticipantTest extends AbstractJavaTest {
     assertThat(markers).hasSize(1);
   }
 
+  /**
+   * Many files in single build are processed in parallel, each file should have its markers.
+   */
+  public void test_invalidSameProject_manyFiles() throws Exception {
+    setFileContentSrc(
+        "datas/MyData.java",
+        getSourceDQ(
+            "// filler filler filler filler filler",
+            "// filler filler filler filler filler",
+            "package datas;",
+            "public class MyData {",
+            "}"));
+    IFile[] sourceFiles = new IFile[20];
+    for (int i = 0; i < sourceFiles.length; i++) {
+      sourceFiles[i] =
+          setFileContentSrc(
+              "test/client/Foo" + i + ".java",
+              getSourceDQ(
+                  "package test.client;",
+                  "public class Foo" + i + " {",
+                  "  private datas.MyData data = null;",
+                  "  private String text = null;",
+                  "}"));
+    }
+    waitForAutoBuild();
+    // check for markers
+    for (IFile sourceFile : sourceFiles) {
+      IMarker[] markers = GTestUtils.getMyMarkers(sourceFile);
+      assertThat(markers).hasSize(1);
+    }
+    // executor is shared between builds and has limited number of threads
+    ThreadPoolExecutor executor = getParseExecutor();
+    assertTrue(executor.getMaximumPoolSize() <= 4);
+    for (int i = 0; i < sourceFiles.length; i++) {
+      setFileContentSrc(
+          "test/client/Foo" + i + ".java",
+          getSourceDQ(
+              "package test.client;",
+              "public class Foo" + i + " {",
+              "  private datas.MyData data = null;",
+              "}"));
+    }
+    waitForAutoBuild();
+    assertSame(executor, getParseExecutor());
+    for (IFile sourceFile : sourceFiles) {
+      IMarker[] markers = GTestUtils.getMyMarkers(sourceFile);
+      assertThat(markers).hasSize(1);
+    }
+  }
+
+  private static ThreadPoolExecutor getParseExecutor() throws Exception {
+    return (ThreadPoolExecutor) ReflectionUtils.getFieldObject(
+        AbstractCompilationParticipant.class,
+        "m_parseExecutor");
+  }
+
   /**
    * Validate {@link SimpleName} which is name of type in static {@link MethodInvocation}.
    */
@@ -25,6 +25,7 @@ import org.eclipse.wb.tests.designer.core.AbstractJavaTest;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IFolder;
 import org.eclipse.core.resources.IMarker;
+import org.eclipse.jdt.core.IType;
 
 import static org.fest.assertions.Assertions.assertThat;
 
@@ -801,6 +802,174 @@ public class GwtBuilderTest extends AbstractJavaTest {
         getFileContentSrc("test/client/SubServiceAsync.java"));
   }
 
+  /**
+   * Interface extends other interface, which later becomes <code>RemoteService</code>. So, even if
+   * names of super interfaces were not changed, interface is <code>RemoteService</code> now.
+   */
+  public void test_serviceInheritance_becomesService() throws Exception {
+    setFileContentSrc(
+        "test/client/SuperService.java",
+        getSourceDQ("package test.client;", "public interface SuperService {", "}"));
+    setFileContentSrc(
+        "test/client/SubService.java",
+        getSourceDQ(
+            "package test.client;",
+            "public interface SubService extends SuperService {",
+            "}"));
+    waitForAutoBuild();
+    assertNull(m_javaProject.findType("test.client.SubServiceAsync"));
+    // "Super" is RemoteService now
+    setFileContentSrc(
+        "test/client/SuperService.java",
+        getSourceDQ(
+            "package test.client;",
+            "import com.google.gwt.user.client.rpc.RemoteService;",
+            "public interface SuperService extends RemoteService {",
+            "}"));
+    waitForAutoBuild();
+    // touch "Sub", its super interfaces are the same, but it is RemoteService now
+    setFileContentSrc(
+        "test/client/SubService.java",
+        getSourceDQ(
+            "package test.client;",
+            "// comment",
+            "public interface SubService extends SuperService {",
+            "}"));
+    waitForAutoBuild();
+    IType asyncType = m_javaProject.findType("test.client.SubServiceAsync");
+    assertNotNull(asyncType);
+    assertThat(asyncType.getSuperInterfaceNames()).containsOnly("SuperServiceAsync");
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Skip update
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  /**
+   * Formatting of service does not change its signatures, so Async is not updated.
+   */
+  public void test_skipUpdate_sameSignatures() throws Exception {
+    createServiceWithImpl();
+    long asyncStamp = getFileSrc("test/client/MyServiceAsync.java").getModificationStamp();
+    // format service
+    setFileContentSrc(
+        "test/client/MyService.java",
+        getSourceDQ(
+            "package test.client;",
+            "import com.google.gwt.user.client.rpc.RemoteService;",
+            "public interface MyService extends RemoteService {",
+            "  // comment",
+            "  String   getValue()   throws Exception;",
+            "}"));
+    waitForAutoBuild();
+    assertEquals(
+        asyncStamp,
+        getFileSrc("test/client/MyServiceAsync.java").getModificationStamp());
+  }
+
+  /**
+   * Async was edited, so it is generated again, even if signatures of service are the same.
+   */
+  public void test_skipUpdate_asyncEdited() throws Exception {
+    createServiceWithImpl();
+    setFileContentSrc(
+        "test/client/MyServiceAsync.java",
+        getSourceDQ("package test.client;", "public interface MyServiceAsync {", "}"));
+    waitForAutoBuild();
+    touchService();
+    assertEquals(getAsyncSource(), getFileContentSrc("test/client/MyServiceAsync.java"));
+  }
+
+  /**
+   * Async was deleted, so it is generated again, even if signatures of service are the same.
+   */
+  public void test_skipUpdate_asyncDeleted() throws Exception {
+    createServiceWithImpl();
+    getFileSrc("test/client/MyServiceAsync.java").delete(true, null);
+    waitForAutoBuild();
+    touchService();
+    assertEquals(getAsyncSource(), getFileContentSrc("test/client/MyServiceAsync.java"));
+  }
+
+  /**
+   * Method was removed from Impl, so it is added again, even if signatures of service are the same.
+   */
+  public void test_skipUpdate_implEdited() throws Exception {
+    createServiceWithImpl();
+    setFileContentSrc("test/server/MyServiceImpl.java", getImplSourceEmpty());
+    waitForAutoBuild();
+    touchService();
+    assertEquals(getImplSource(), getFileContentSrc("test/server/MyServiceImpl.java"));
+  }
+
+  private String getAsyncSource() {
+    return getSourceDQ(
+        "package test.client;",
+        "import com.google.gwt.user.client.rpc.AsyncCallback;",
+        "public interface MyServiceAsync {",
+        "  void getValue(AsyncCallback<String> callback);",
+        "}");
+  }
+
+  private String getImplSourceEmpty() {
+    return getSourceDQ(
+        "package test.server;",
+        "import com.google.gwt.user.server.rpc.RemoteServiceServlet;",
+        "import test.client.MyService;",
+        "public class MyServiceImpl extends RemoteServiceServlet implements MyService {",
+        "}");
+  }
+
+  private String getImplSource() {
+    return getSourceDQ(
+        "package test.server;",
+        "import com.google.gwt.user.server.rpc.RemoteServiceServlet;",
+        "import test.client.MyService;",
+        "public class MyServiceImpl extends RemoteServiceServlet implements MyService {",
+        "",
+        "  @Override",
+        "  public String getValue() throws Exception {",
+        "    // TODO Auto-generated method stub",
+        "    return null;",
+        "  }",
+        "}");
+  }
+
+  /**
+   * Creates <code>MyService</code> with single method and its Impl, waits for Async and Impl.
+   */
+  private void createServiceWithImpl() throws Exception {
+    setFileContentSrc(
+        "test/client/MyService.java",
+        getSourceDQ(
+            "package test.client;",
+            "import com.google.gwt.user.client.rpc.RemoteService;",
+            "public interface MyService extends RemoteService {",
+            "  String getValue() throws Exception;",
+            "}"));
+    setFileContentSrc("test/server/MyServiceImpl.java", getImplSourceEmpty());
+    waitForAutoBuild();
+    assertEquals(getAsyncSource(), getFileContentSrc("test/client/MyServiceAsync.java"));
+    assertEquals(getImplSource(), getFileContentSrc("test/server/MyServiceImpl.java"));
+  }
+
+  /**
+   * Changes <code>MyService</code> without changing its signatures.
+   */
+  private void touchService() throws Exception {
+    setFileContentSrc(
+        "test/client/MyService.java",
+        getSourceDQ(
+            "package test.client;",
+            "import com.google.gwt.user.client.rpc.RemoteService;",
+            "public interface MyService extends RemoteService {",
+            "  // comment",
+            "  String getValue() throws Exception;",
+            "}"));
+    waitForAutoBuild();
+  }
+
   ////////////////////////////////////////////////////////////////////////////
   //
   // Rebuild on *.gwt.xml change
@@ -808,8 +977,7 @@ public class GwtBuilderTest extends AbstractJavaTest {
   ////////////////////////////////////////////////////////////////////////////
   /**
    * When module file changed, this may cause that some types from GWT inherited GWT modules may
-   * become valid/invalid. So, we should rebuild to allow {@link MyCompilationParticipant} to
-   * validate.
+   * become valid/invalid. So, we should allow {@link MyCompilationParticipant} to validate again.
    */
   public void test_rebuildOnModuleFileChange() throws Exception {
     MyCompilationParticipant.ENABLED = true;
@@ -842,6 +1010,17 @@ public class GwtBuilderTest extends AbstractJavaTest {
         IMarker[] markers = GTestUtils.getMyMarkers(sourceFile);
         assertThat(markers).isEmpty();
       }
+      // remove "com.google.gwt.xml.XML" again, so marker should be added
+      {
+        setFileContentSrc("test/Module.gwt.xml", getDoubleQuotes2(new String[]{
+            "<module>",
+            "  <inherits name='com.google.gwt.user.User'/>",
+            "  <entry-point class='test.client.Module'/>",
+            "</module>"}));
+        waitForAutoBuild();
+        IMarker[] markers = GTestUtils.getMyMarkers(sourceFile);
+        assertThat(markers).hasSize(1);
+      }
     } finally {
       MyCompilationParticipant.ENABLED = false;
     }
@@ -16,8 +16,11 @@ package com.google.gdt.eclipse.designer.core.model.widgets;
 
 import com.google.gdt.eclipse.designer.core.model.GwtModelTest;
 import com.google.gdt.eclipse.designer.model.widgets.WidgetInfo;
+import com.google.gdt.eclipse.designer.model.widgets.live.GwtLiveCacheEntry;
+import com.google.gdt.eclipse.designer.model.widgets.live.GwtLiveDiskCache;
 import com.google.gdt.eclipse.designer.model.widgets.live.GwtLiveManager;
 import com.google.gdt.eclipse.designer.model.widgets.panels.RootPanelInfo;
+import com.google.gdt.eclipse.designer.model.widgets.support.GwtState;
 
 import org.eclipse.wb.core.model.JavaInfo;
 import org.eclipse.wb.internal.core.DesignerPlugin;
@@ -638,4 +641,56 @@ public class GwtLiveManagerTest extends GwtModelTest {
     frame.refresh_dispose();
     assertNull(frame.getImage());
   }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Disk cache
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  /**
+   * {@link GwtLiveCacheEntry} stored in {@link GwtLiveDiskCache} can be loaded later.
+   */
+  public void test_diskCache() throws Exception {
+    String key = "test_diskCache " + System.currentTimeMillis();
+    assertNull(GwtLiveDiskCache.get(key));
+    // store entry
+    {
+      GwtLiveCacheEntry entry = new GwtLiveCacheEntry();
+      entry.setImage(new Image(null, 30, 20));
+      entry.shouldSetSize(true);
+      GwtLiveDiskCache.put(key, entry);
+      entry.dispose();
+    }
+    // load entry
+    GwtLiveCacheEntry entry = GwtLiveDiskCache.get(key);
+    assertNotNull(entry);
+    assertThat(entry.getImage().getBounds().width).isEqualTo(30);
+    assertThat(entry.getImage().getBounds().height).isEqualTo(20);
+    assertTrue(entry.shouldSetSize());
+    // each time new entry is returned, owned by caller
+    {
+      GwtLiveCacheEntry entry2 = GwtLiveDiskCache.get(key);
+      assertNotSame(entry, entry2);
+      entry2.dispose();
+      assertFalse(entry.getImage().isDisposed());
+    }
+    entry.dispose();
+  }
+
+  /**
+   * {@link GwtLiveCacheEntry}s of GWT session are disposed with it.
+   */
+  public void test_liveEntries_dispose() throws Exception {
+    GwtState state =
+        new GwtState(GwtLiveManagerTest.class.getClassLoader(), getTestModuleDescription());
+    GwtLiveCacheEntry entry = new GwtLiveCacheEntry();
+    entry.setImage(new Image(null, 30, 20));
+    Image image = entry.getImage();
+    state.getLiveEntries().put("a", entry);
+    state.getLiveEntries().put("b", null);
+    // dispose
+    state.dispose();
+    assertTrue(image.isDisposed());
+    assertThat(state.getLiveEntries()).isEmpty();
+  }
 }
\ No newline at end of file
@@ -14,13 +14,16 @@
  *******************************************************************************/
 package com.google.gdt.eclipse.designer.core.model.widgets;
 
+import com.google.common.collect.ImmutableList;
 import com.google.gdt.eclipse.designer.IExceptionConstants;
 import com.google.gdt.eclipse.designer.core.GTestUtils;
 import com.google.gdt.eclipse.designer.core.model.GwtModelTest;
+import com.google.gdt.eclipse.designer.model.widgets.WidgetInfo;
 import com.google.gdt.eclipse.designer.model.widgets.panels.RootPanelInfo;
 import com.google.gdt.eclipse.designer.model.widgets.support.GwtState;
 import com.google.gdt.eclipse.designer.util.ModuleDescription;
 
+import org.eclipse.wb.draw2d.geometry.Insets;
 import org.eclipse.wb.draw2d.geometry.Rectangle;
 import org.eclipse.wb.internal.core.utils.exception.DesignerException;
 import org.eclipse.wb.tests.designer.core.annotations.DisposeProjectAfter;
@@ -258,4 +261,84 @@ public class GwtStateTest extends GwtModelTest {
     Rectangle bounds = state.getModelBounds(null);
     assertEquals(new Rectangle(), bounds);
   }
-}
\ No newline at end of file
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Layout snapshot
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  /**
+   * Test for {@link GwtState#beginLayoutSnapshot(java.util.List)}.
+   * <p>
+   * Layout snapshot should return same values as separate native calls.
+   */
+  @DisposeProjectAfter
+  public void test_layoutSnapshot() throws Exception {
+    dontUseSharedGWTState();
+    setFileContent(
+        "war/Module.css",
+        getSource(
+            "/* filler filler filler filler filler */",
+            ".myStyle {",
+            "  margin: 2px 3px 4px 5px;",
+            "  border: 3px solid red;",
+            "  padding: 4px;",
+            "}"));
+    waitForAutoBuild();
+    //
+    RootPanelInfo frame =
+        parseJavaInfo(
+            "public class Test implements EntryPoint {",
+            "  public void onModuleLoad() {",
+            "    RootPanel rootPanel = RootPanel.get();",
+            "    {",
+            "      Button button = new Button();",
+            "      button.setStyleName('myStyle');",
+            "      rootPanel.add(button, 10, 20);",
+            "    }",
+            "  }",
+            "}");
+    refresh();
+    GwtState state = frame.getState();
+    WidgetInfo button = getJavaInfoByName("button");
+    Object rootElement = frame.getElement();
+    Object buttonElement = button.getElement();
+    // fetch using separate calls
+    Rectangle rootBounds = state.getAbsoluteBounds(rootElement);
+    Rectangle buttonBounds = state.getAbsoluteBounds(buttonElement);
+    Insets margins = state.getMargins(buttonElement);
+    Insets borders = state.getBorders(buttonElement);
+    Insets paddings = state.getPaddings(buttonElement);
+    assertEquals(new Insets(2, 5, 4, 3), margins);
+    assertEquals(new Insets(3), borders);
+    assertEquals(new Insets(4), paddings);
+    // fetch using snapshot
+    state.beginLayoutSnapshot(ImmutableList.of(rootElement, buttonElement));
+    try {
+      assertEquals(rootBounds, state.getAbsoluteBounds(rootElement));
+      assertEquals(buttonBounds, state.getAbsoluteBounds(buttonElement));
+      assertEquals(margins, state.getMargins(buttonElement));
+      assertEquals(borders, state.getBorders(buttonElement));
+      assertEquals(paddings, state.getPaddings(buttonElement));
+    } finally {
+      state.endLayoutSnapshot();
+    }
+  }
+
+  /**
+   * Test for {@link GwtState#fetchLayoutSnapshot(java.util.List)}.
+   */
+  public void test_fetchLayoutSnapshot_empty() throws Exception {
+    RootPanelInfo frame =
+        parseJavaInfo(
+            "public class Test implements EntryPoint {",
+            "  public void onModuleLoad() {",
+            "    RootPanel rootPanel = RootPanel.get();",
+            "  }",
+            "}");
+    GwtState state = frame.getState();
+    //
+    int[] layout = state.fetchLayoutSnapshot(ImmutableList.of());
+    assertEquals(0, layout.length);
+  }
+}
@@ -0,0 +1,271 @@
+/*******************************************************************************
+ * Copyright 2011 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.designer.core.model.widgets;
+
+import com.google.gdt.eclipse.designer.core.model.GwtModelTest;
+import com.google.gdt.eclipse.designer.util.ModuleDescription;
+
+import org.eclipse.wb.internal.core.utils.reflect.ReflectionUtils;
+import org.eclipse.wb.tests.designer.core.annotations.DisposeProjectAfter;
+
+import org.eclipse.core.runtime.Platform;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Test for <code>HostedModePool</code> of GWT 2.2 hosted mode.
+ *
+ * @author scheglov_ke
+ */
+public class HostedModePoolTest extends GwtModelTest {
+  private static final String MD = "com.google.gdt.eclipse.designer.hosted.IModuleDescription";
+  private Class<?> m_poolClass;
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Life cycle
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    m_poolClass =
+        Platform.getBundle("com.google.gdt.eclipse.designer.hosted.2_2").loadClass(
+            "com.google.gdt.eclipse.designer.hosted.tdt.HostedModePool");
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    ReflectionUtils.invokeMethod(m_poolClass, "dispose()");
+    super.tearDown();
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Exit zone :-) XXX
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  public void _test_exit() throws Exception {
+    System.exit(0);
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Key and stamp
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  /**
+   * Key depends only on classpath, but stamp is changed when content of output folder is changed.
+   */
+  @DisposeProjectAfter
+  public void test_keyStamp() throws Exception {
+    ModuleDescription moduleDescription = getTestModuleDescription();
+    String key = getKey(moduleDescription);
+    String stamp = getStamp(moduleDescription);
+    assertEquals(key, getKey(moduleDescription));
+    assertEquals(stamp, getStamp(moduleDescription));
+    // add new class
+    setFileContentSrc(
+        "test/client/MyClass.java",
+        getSourceDQ("package test.client;", "public class MyClass {", "}"));
+    waitForAutoBuild();
+    assertEquals(key, getKey(moduleDescription));
+    String newStamp = getStamp(moduleDescription);
+    assertFalse(stamp.equals(newStamp));
+    // change existing class
+    setFileContentSrc(
+        "test/client/MyClass.java",
+        getSourceDQ("package test.client;", "public class MyClass {", "  int m_value;", "}"));
+    waitForAutoBuild();
+    assertEquals(key, getKey(moduleDescription));
+    assertFalse(newStamp.equals(getStamp(moduleDescription)));
+  }
+
+  /**
+   * Stamp should be changed, even if modification stamp of changed file is not highest one.
+   */
+  @DisposeProjectAfter
+  public void test_stamp_notHighestFile() throws Exception {
+    ModuleDescription moduleDescription = getTestModuleDescription();
+    // change "MyClassA" several times, so it has high modification stamp
+    for (int i = 0; i < 3; i++) {
+      setFileContentSrc(
+          "test/client/MyClassA.java",
+          getSourceDQ(
+              "package test.client;",
+              "public class MyClassA {",
+              "  int m_" + i + ";",
+              "}"));
+      waitForAutoBuild();
+    }
+    setFileContentSrc(
+        "test/client/MyClassB.java",
+        getSourceDQ("package test.client;", "public class MyClassB {", "}"));
+    waitForAutoBuild();
+    String stamp = getStamp(moduleDescription);
+    assertEquals(stamp, getStamp(moduleDescription));
+    // change "MyClassB", its modification stamp is still lower than in "MyClassA"
+    setFileContentSrc(
+        "test/client/MyClassB.java",
+        getSourceDQ("package test.client;", "public class MyClassB {", "  int m_value;", "}"));
+    waitForAutoBuild();
+    assertFalse(stamp.equals(getStamp(moduleDescription)));
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // lease() and release()
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  /**
+   * No "warm" instances without warming up.
+   */
+  public void test_lease_noEntry() throws Exception {
+    ModuleDescription moduleDescription = getTestModuleDescription();
+    assertNull(lease(moduleDescription));
+  }
+
+  /**
+   * "Warm" instance has module space host for requested module, so it can be handed over to editor.
+   * Pool is replenished after lease.
+   */
+  public void test_lease() throws Exception {
+    ModuleDescription moduleDescription = getTestModuleDescription();
+    ReflectionUtils.invokeMethod(
+        m_poolClass,
+        "warmUp(" + MD + ",java.lang.String)",
+        moduleDescription,
+        "test.Module");
+    // first instance
+    {
+      Object instance = waitLease(moduleDescription);
+      assertNotNull(ReflectionUtils.getFieldObject(instance, "moduleSpaceHost"));
+      assertEquals("test.Module", ReflectionUtils.getFieldObject(instance, "moduleName"));
+      assertEquals(getStamp(moduleDescription), ReflectionUtils.invokeMethod(
+          instance,
+          "getWarmStamp()"));
+      ReflectionUtils.invokeMethod(instance, "disposeWarm()");
+    }
+    // pool was replenished
+    {
+      Object instance = waitLease(moduleDescription);
+      ReflectionUtils.invokeMethod(instance, "disposeWarm()");
+    }
+  }
+
+  /**
+   * Project classes may be already loaded by "warm" instance, so after change it is not leased.
+   */
+  @DisposeProjectAfter
+  public void test_lease_staleStamp() throws Exception {
+    ModuleDescription moduleDescription = getTestModuleDescription();
+    ReflectionUtils.invokeMethod(
+        m_poolClass,
+        "warmUp(" + MD + ",java.lang.String)",
+        moduleDescription,
+        "test.Module");
+    // wait for "warm" instance, return it into pool
+    waitWarmInstance(moduleDescription);
+    // change project class, so "warm" instance is stale
+    setFileContentSrc(
+        "test/client/MyClass.java",
+        getSourceDQ("package test.client;", "public class MyClass {", "}"));
+    waitForAutoBuild();
+    assertNull(lease(moduleDescription));
+    // new instance is created for new stamp
+    Object instance = waitLease(moduleDescription);
+    assertEquals(getStamp(moduleDescription), ReflectionUtils.invokeMethod(
+        instance,
+        "getWarmStamp()"));
+    ReflectionUtils.invokeMethod(instance, "disposeWarm()");
+  }
+
+  /**
+   * Editor releases its module with actual user agent, so next "warm" instance uses it.
+   */
+  public void test_release() throws Exception {
+    ModuleDescription moduleDescription = getTestModuleDescription();
+    ReflectionUtils.invokeMethod(
+        m_poolClass,
+        "release(" + MD + ",java.lang.String,java.lang.String)",
+        moduleDescription,
+        "test.Module",
+        "gecko1_8");
+    Object instance = waitLease(moduleDescription);
+    assertEquals("test.Module", ReflectionUtils.getFieldObject(instance, "moduleName"));
+    assertEquals("gecko1_8", ReflectionUtils.getFieldObject(instance, "warmUserAgent"));
+    ReflectionUtils.invokeMethod(instance, "disposeWarm()");
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Utils
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  private String getKey(ModuleDescription moduleDescription) throws Exception {
+    return (String) ReflectionUtils.invokeMethod(
+        m_poolClass,
+        "getKey(" + MD + ")",
+        moduleDescription);
+  }
+
+  private String getStamp(ModuleDescription moduleDescription) throws Exception {
+    return (String) ReflectionUtils.invokeMethod(
+        m_poolClass,
+        "getStamp(" + MD + ")",
+        moduleDescription);
+  }
+
+  private Object lease(ModuleDescription moduleDescription) throws Exception {
+    return ReflectionUtils.invokeMethod(m_poolClass, "lease(" + MD + ")", moduleDescription);
+  }
+
+  /**
+   * @return the leased "warm" instance, fails if it was not created during one minute.
+   */
+  private Object waitLease(ModuleDescription moduleDescription) throws Exception {
+    long end = System.currentTimeMillis() + 60 * 1000;
+    while (System.currentTimeMillis() < end) {
+      Object instance = lease(moduleDescription);
+      if (instance != null) {
+        return instance;
+      }
+      waitEventLoop(100);
+    }
+    fail("No warm instance for " + moduleDescription.getId());
+    return null;
+  }
+
+  /**
+   * Waits until "warm" instance is created, but keeps it in pool.
+   */
+  private void waitWarmInstance(ModuleDescription moduleDescription) throws Exception {
+    long end = System.currentTimeMillis() + 60 * 1000;
+    while (System.currentTimeMillis() < end) {
+      Map<?, ?> entries = (Map<?, ?>) ReflectionUtils.getFieldObject(m_poolClass, "entries");
+      synchronized (entries) {
+        for (Object entry : entries.values()) {
+          List<?> instances = (List<?>) ReflectionUtils.getFieldObject(entry, "instances");
+          if (!instances.isEmpty()) {
+            return;
+          }
+        }
+      }
+      waitEventLoop(100);
+    }
+    fail("No warm instance for " + moduleDescription.getId());
+  }
+}
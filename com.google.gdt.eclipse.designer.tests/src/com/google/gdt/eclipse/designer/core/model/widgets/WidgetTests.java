@@ -38,6 +38,7 @@ public class WidgetTests extends DesignerSuiteTests {
     suite.addTest(createSingleSuite(WidgetTest.class));
     suite.addTest(createSingleSuite(WidgetTopBoundsSupportTest.class));
     suite.addTest(createSingleSuite(GwtStateTest.class));
+    suite.addTest(createSingleSuite(HostedModePoolTest.class));
     suite.addTest(createSingleSuite(CssSupportTest.class));
     // XXX
     suite.addTest(createSingleSuite(JavaScriptObjectTest.class));
@@ -0,0 +1,298 @@
+/*******************************************************************************
+ * Copyright 2011 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.designer.core.util;
+
+import org.eclipse.wb.internal.core.utils.reflect.ReflectionUtils;
+import org.eclipse.wb.tests.designer.tests.DesignerTestCase;
+
+import org.eclipse.core.runtime.Platform;
+
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+/**
+ * Test for <code>CompilationUnitPackStore</code> of GWT 2.0 hosted mode.
+ *
+ * @author scheglov_ke
+ */
+public class CompilationUnitPackStoreTest extends DesignerTestCase {
+  private static final long VERSION = 1;
+  private Class<?> m_storeClass;
+  private File m_dir;
+  private Object m_store;
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Life cycle
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    m_storeClass =
+        Platform.getBundle("com.google.gdt.eclipse.designer.hosted.2_0").loadClass(
+            "com.google.gwt.dev.javac.CompilationUnitPackStore");
+    m_dir = File.createTempFile("packStoreTest", "");
+    m_dir.delete();
+    m_dir.mkdirs();
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    if (m_store != null) {
+      close();
+    }
+    FileUtils.deleteQuietly(m_dir);
+    super.tearDown();
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Exit zone :-) XXX
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  public void _test_exit() throws Exception {
+    System.exit(0);
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Round trip
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  public void test_putGetRemove() throws Exception {
+    open(VERSION);
+    assertNull(get("a"));
+    // put
+    put("a", "aaa");
+    put("b", "bbb");
+    assertEquals("aaa", get("a"));
+    assertEquals("bbb", get("b"));
+    // replace
+    put("a", "AAAA");
+    assertEquals("AAAA", get("a"));
+    // remove
+    remove("b");
+    assertNull(get("b"));
+    // reopen
+    close();
+    open(VERSION);
+    assertEquals("AAAA", get("a"));
+    assertNull(get("b"));
+    assertEquals(1, getPackFiles().length);
+  }
+
+  /**
+   * After {@link #close()} store does nothing.
+   */
+  public void test_close() throws Exception {
+    open(VERSION);
+    put("a", "aaa");
+    close();
+    assertNull(get("a"));
+    put("b", "bbb");
+    assertNull(get("b"));
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Corruption
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  /**
+   * Last record was not written completely, it is ignored and truncated.
+   */
+  public void test_incompleteLastRecord() throws Exception {
+    open(VERSION);
+    put("a", "aaa");
+    put("b", "bbb");
+    close();
+    // cut last byte
+    File packFile = getPackFiles()[0];
+    long validSize = packFile.length() - 1;
+    {
+      RandomAccessFile file = new RandomAccessFile(packFile, "rw");
+      file.setLength(validSize);
+      file.close();
+    }
+    // "b" is lost, pack is truncated before "b", so new records are appended
+    open(VERSION);
+    assertEquals("aaa", get("a"));
+    assertNull(get("b"));
+    assertTrue(packFile.length() < validSize);
+    put("c", "ccc");
+    close();
+    open(VERSION);
+    assertEquals("aaa", get("a"));
+    assertNull(get("b"));
+    assertEquals("ccc", get("c"));
+  }
+
+  /**
+   * Damaged data is detected using checksum, such record is removed.
+   */
+  public void test_damagedData() throws Exception {
+    open(VERSION);
+    put("a", "aaa");
+    put("b", "bbb");
+    close();
+    // damage "a"
+    File packFile = getPackFiles()[0];
+    {
+      byte[] bytes = FileUtils.readFileToByteArray(packFile);
+      int index = indexOf(bytes, "aaa".getBytes());
+      bytes[index] = 'x';
+      FileUtils.writeByteArrayToFile(packFile, bytes);
+    }
+    // "a" is damaged
+    open(VERSION);
+    assertNull(get("a"));
+    assertEquals("bbb", get("b"));
+    close();
+    // "a" was removed
+    open(VERSION);
+    assertNull(get("a"));
+    assertEquals("bbb", get("b"));
+  }
+
+  /**
+   * Pack with different version is discarded.
+   */
+  public void test_wrongVersion() throws Exception {
+    open(VERSION);
+    put("a", "aaa");
+    close();
+    File oldPackFile = getPackFiles()[0];
+    // new version, so new empty pack
+    open(VERSION + 1);
+    assertNull(get("a"));
+    put("b", "bbb");
+    assertEquals("bbb", get("b"));
+    assertFalse(oldPackFile.exists());
+    assertEquals(1, getPackFiles().length);
+  }
+
+  /**
+   * Pack with damaged header is discarded.
+   */
+  public void test_damagedHeader() throws Exception {
+    open(VERSION);
+    put("a", "aaa");
+    close();
+    File packFile = getPackFiles()[0];
+    FileUtils.writeByteArrayToFile(packFile, new byte[]{1, 2, 3});
+    // new empty pack
+    open(VERSION);
+    assertNull(get("a"));
+    put("b", "bbb");
+    assertEquals("bbb", get("b"));
+    assertEquals(1, getPackFiles().length);
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Compaction
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  /**
+   * When most of pack is replaced records, it is compacted into new pack, old pack is deleted.
+   */
+  public void test_compaction() throws Exception {
+    open(VERSION);
+    char[] chars = new char[100 * 1024];
+    put("b", "bbb");
+    for (int i = 0; i < 12; i++) {
+      Arrays.fill(chars, (char) ('0' + i % 10));
+      put("a", new String(chars));
+    }
+    // wait for compaction
+    long end = System.currentTimeMillis() + 10 * 1000;
+    while (getGeneration() == 0 && System.currentTimeMillis() < end) {
+      Thread.sleep(10);
+    }
+    assertEquals(1, getGeneration());
+    // records are still available
+    assertEquals(new String(chars), get("a"));
+    assertEquals("bbb", get("b"));
+    // only new pack, which has only live records
+    File[] packFiles = getPackFiles();
+    assertEquals(1, packFiles.length);
+    assertEquals("units-1.pack", packFiles[0].getName());
+    assertTrue(packFiles[0].length() < 5 * chars.length);
+    // reopen
+    close();
+    open(VERSION);
+    assertEquals(new String(chars), get("a"));
+    assertEquals("bbb", get("b"));
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Utils
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  private void open(long version) throws Exception {
+    m_store = m_storeClass.getConstructor(File.class, long.class).newInstance(m_dir, version);
+  }
+
+  private void close() throws Exception {
+    ReflectionUtils.invokeMethod(m_store, "close()");
+  }
+
+  private String get(String key) throws Exception {
+    byte[] data = (byte[]) ReflectionUtils.invokeMethod(m_store, "get(java.lang.String)", key);
+    return data != null ? new String(data) : null;
+  }
+
+  private void put(String key, String data) throws Exception {
+    ReflectionUtils.invokeMethod(m_store, "put(java.lang.String,byte[])", key, data.getBytes());
+  }
+
+  private void remove(String key) throws Exception {
+    ReflectionUtils.invokeMethod(m_store, "remove(java.lang.String)", key);
+  }
+
+  private int getGeneration() throws Exception {
+    synchronized (m_store) {
+      return (Integer) ReflectionUtils.getFieldObject(m_store, "m_generation");
+    }
+  }
+
+  private File[] getPackFiles() {
+    File[] files = m_dir.listFiles();
+    Arrays.sort(files);
+    return files;
+  }
+
+  private static int indexOf(byte[] bytes, byte[] pattern) {
+    for (int i = 0; i <= bytes.length - pattern.length; i++) {
+      boolean found = true;
+      for (int j = 0; j < pattern.length; j++) {
+        if (bytes[i + j] != pattern[j]) {
+          found = false;
+          break;
+        }
+      }
+      if (found) {
+        return i;
+      }
+    }
+    fail();
+    return -1;
+  }
+}
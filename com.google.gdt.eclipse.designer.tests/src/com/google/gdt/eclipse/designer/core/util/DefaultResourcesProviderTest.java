@@ -14,12 +14,15 @@
  *******************************************************************************/
 package com.google.gdt.eclipse.designer.core.util;
 
+import com.google.common.base.Predicate;
 import com.google.gdt.eclipse.designer.core.GTestUtils;
 import com.google.gdt.eclipse.designer.util.ModuleDescription;
 import com.google.gdt.eclipse.designer.util.Utils;
 import com.google.gdt.eclipse.designer.util.resources.DefaultResourcesProvider;
 import com.google.gdt.eclipse.designer.util.resources.IResourcesProvider;
+import com.google.gdt.eclipse.designer.util.resources.ResourcesProviderRegistry;
 
+import org.eclipse.wb.internal.core.utils.IOUtils2;
 import org.eclipse.wb.internal.core.utils.jdt.core.ProjectUtils;
 import org.eclipse.wb.tests.designer.core.AbstractJavaTest;
 import org.eclipse.wb.tests.designer.core.TestProject;
@@ -29,6 +32,7 @@ import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.Path;
+import org.eclipse.jdt.core.IClasspathEntry;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.JavaCore;
 
@@ -99,6 +103,43 @@ public class DefaultResourcesProviderTest extends AbstractJavaTest {
     do_projectDispose();
   }
 
+  /**
+   * Test for {@link ResourcesProviderRegistry}.
+   */
+  @DisposeProjectAfter
+  public void test_sharedProvider() throws Exception {
+    addTestJar();
+    ResourcesProviderRegistry.invalidate();
+    ModuleDescription moduleDescription = getTestModuleDescription();
+    // two providers, but single shared DefaultResourcesProvider
+    IResourcesProvider provider_1 = moduleDescription.getResourcesProvider();
+    IResourcesProvider provider_2 = moduleDescription.getResourcesProvider();
+    assertNotSame(provider_1, provider_2);
+    assertEquals(1, ResourcesProviderRegistry.getSize());
+    assertExistingResource(provider_1, "jar/folder/hello.txt");
+    assertExistingResource(provider_2, "test/client/Module.java");
+    // dispose first provider, second one still works
+    provider_1.dispose();
+    provider_1.dispose();
+    assertExistingResource(provider_2, "jar/folder/hello.txt");
+    provider_2.dispose();
+    // change classpath, shared provider should be closed
+    ProjectUtils.removeClasspathEntries(m_javaProject, new Predicate<IClasspathEntry>() {
+      public boolean apply(IClasspathEntry entry) {
+        return entry.getPath().lastSegment().equals("test.jar");
+      }
+    });
+    waitForAutoBuild();
+    assertEquals(0, ResourcesProviderRegistry.getSize());
+    // new provider, without "test.jar"
+    IResourcesProvider provider = moduleDescription.getResourcesProvider();
+    try {
+      assertNotExistingResource(provider, "jar/folder/hello.txt");
+    } finally {
+      provider.dispose();
+    }
+  }
+
   /**
    * Test for {@link DefaultResourcesProvider#getResourceAsStream(String)}.
    */
@@ -123,6 +164,49 @@ public class DefaultResourcesProviderTest extends AbstractJavaTest {
     }
   }
 
+  /**
+   * Test for {@link DefaultResourcesProvider#getResourceAsStream(String)}.
+   * <p>
+   * Resource in source folder should be used before same resource in JAR.
+   */
+  @DisposeProjectAfter
+  public void test_getResourceAsStream_sourceBeforeJar() throws Exception {
+    addTestJar();
+    setFileContentSrc("jar/folder/hello.txt", "Source!");
+    // prepare IResourcesProvider
+    IResourcesProvider provider = getTestModuleResourceProvider();
+    try {
+      InputStream stream = provider.getResourceAsStream("jar/folder/hello.txt");
+      assertEquals("Source!", IOUtils2.readString(stream));
+      // delete from source folder, now JAR should be used
+      getFileSrc("jar/folder/hello.txt").delete(true, null);
+      stream = provider.getResourceAsStream("jar/folder/hello.txt");
+      assertEquals("Hello!", IOUtils2.readString(stream));
+    } finally {
+      provider.dispose();
+    }
+  }
+
+  /**
+   * Test for {@link DefaultResourcesProvider#listFiles(String)}.
+   * <p>
+   * Entries of JAR files are listed using prefix.
+   */
+  @DisposeProjectAfter
+  public void test_listFiles_jar() throws Exception {
+    addTestJar();
+    // prepare IResourcesProvider
+    IResourcesProvider provider = getTestModuleResourceProvider();
+    try {
+      assertThat(provider.listFiles("jar")).containsOnly("folder/hello.txt");
+      assertThat(provider.listFiles("jar/folder")).containsOnly("hello.txt");
+      assertThat(provider.listFiles("jar/folder/")).containsOnly("hello.txt");
+      assertThat(provider.listFiles("jar/noSuchFolder")).isEmpty();
+    } finally {
+      provider.dispose();
+    }
+  }
+
   /**
    * Test for {@link DefaultResourcesProvider#listFiles(String)}.
    */
@@ -334,8 +418,15 @@ public class DefaultResourcesProviderTest extends AbstractJavaTest {
    * @return the {@link IResourcesProvider} for standard test module.
    */
   private static IResourcesProvider getTestModuleResourceProvider() throws Exception {
-    IFile moduleFile = getFileSrc("test/Module.gwt.xml");
-    ModuleDescription moduleDescription = Utils.getExactModule(moduleFile);
+    ModuleDescription moduleDescription = getTestModuleDescription();
     return new DefaultResourcesProvider(moduleDescription);
   }
+
+  /**
+   * @return the {@link ModuleDescription} for standard test module.
+   */
+  private static ModuleDescription getTestModuleDescription() throws Exception {
+    IFile moduleFile = getFileSrc("test/Module.gwt.xml");
+    return Utils.getExactModule(moduleFile);
+  }
 }
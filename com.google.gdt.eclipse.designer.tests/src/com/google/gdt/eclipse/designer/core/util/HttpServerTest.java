@@ -0,0 +1,333 @@
+/*******************************************************************************
+ * Copyright 2011 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.designer.core.util;
+
+import com.google.gdt.eclipse.designer.support.http.HttpServer;
+import com.google.gdt.eclipse.designer.support.http.ISharedResourceProvider;
+import com.google.gdt.eclipse.designer.support.http.ISharedResourceProvider.Resource;
+import com.google.gdt.eclipse.designer.support.http.SharedResourceCache;
+
+import org.eclipse.wb.tests.designer.tests.DesignerTestCase;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Test for {@link HttpServer}.
+ *
+ * @author scheglov_ke
+ */
+public class HttpServerTest extends DesignerTestCase {
+  private static final String PREFIX = "/httpServerTest/";
+  private HttpServer m_server;
+  private String m_lastETag;
+  private String m_lastContentEncoding;
+  private byte[] m_lastBody;
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Life cycle
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    m_server = HttpServer.getInstance();
+    m_server.addResourceProvider(PREFIX, new ISharedResourceProvider() {
+      public byte[] getResource(String resourcePath) {
+        Resource resource = getSharedResource(resourcePath);
+        return resource != null ? resource.getContent() : null;
+      }
+
+      public Resource getSharedResource(String resourcePath) {
+        if (resourcePath.endsWith(".txt")) {
+          return new Resource(resourcePath.substring(PREFIX.length()).getBytes(), null);
+        }
+        if (resourcePath.endsWith(".js")) {
+          SharedResourceCache.Key key =
+              new SharedResourceCache.Key("httpServerTest.jar", resourcePath, 0);
+          SharedResourceCache.Entry entry = SharedResourceCache.get(key);
+          if (entry == null) {
+            byte[] content = StringUtils.repeat("var a = 0;\n", 1000).getBytes();
+            entry = SharedResourceCache.put(key, resourcePath, content);
+          }
+          return new Resource(entry.getContent(), key);
+        }
+        return null;
+      }
+    });
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    m_server.removeResourceProvider(PREFIX);
+    super.tearDown();
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Exit zone :-) XXX
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  public void _test_exit() throws Exception {
+    System.exit(0);
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Tests
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  /**
+   * Several requests, including not existing resource, using single connection.
+   */
+  public void test_keepAlive_pipelined() throws Exception {
+    m_server.resetStatistics();
+    Socket socket = openSocket();
+    try {
+      OutputStream outputStream = socket.getOutputStream();
+      InputStream inputStream = new BufferedInputStream(socket.getInputStream());
+      // send all requests at once
+      String requests = getRequest("a.txt") + getRequest("no.gif") + getRequest("b.txt");
+      outputStream.write(requests.getBytes());
+      outputStream.flush();
+      // read responses, in same order
+      assertEquals("HTTP/1.1 200 OK|a.txt", readResponse(inputStream));
+      assertEquals("HTTP/1.1 404 Not Found", StringUtils.substringBefore(
+          readResponse(inputStream),
+          "|"));
+      assertEquals("HTTP/1.1 200 OK|b.txt", readResponse(inputStream));
+      // one more request, after waiting
+      outputStream.write(getRequest("c.txt").getBytes());
+      outputStream.flush();
+      assertEquals("HTTP/1.1 200 OK|c.txt", readResponse(inputStream));
+    } finally {
+      socket.close();
+    }
+    // statistics
+    assertTrue(m_server.getRequestCount() >= 4);
+    assertTrue(m_server.getRequestTime() >= m_server.getRequestTimeMax());
+  }
+
+  /**
+   * "Connection: close" should close connection after response.
+   */
+  public void test_connectionClose() throws Exception {
+    Socket socket = openSocket();
+    try {
+      OutputStream outputStream = socket.getOutputStream();
+      InputStream inputStream = new BufferedInputStream(socket.getInputStream());
+      String request = "GET " + PREFIX + "a.txt HTTP/1.1\r\nConnection: close\r\n\r\n";
+      outputStream.write(request.getBytes());
+      outputStream.flush();
+      assertEquals("HTTP/1.1 200 OK|a.txt", readResponse(inputStream));
+      assertEquals(-1, inputStream.read());
+    } finally {
+      socket.close();
+    }
+  }
+
+  /**
+   * Resource has "ETag", so when browser asks for same resource again, "304" is returned.
+   */
+  public void test_notModified() throws Exception {
+    Socket socket = openSocket();
+    try {
+      OutputStream outputStream = socket.getOutputStream();
+      InputStream inputStream = new BufferedInputStream(socket.getInputStream());
+      // first request, full response
+      outputStream.write(getRequest("a.txt").getBytes());
+      outputStream.flush();
+      assertEquals("HTTP/1.1 200 OK|a.txt", readResponse(inputStream));
+      String eTag = m_lastETag;
+      assertNotNull(eTag);
+      // same ETag, not modified
+      {
+        String request = "GET " + PREFIX + "a.txt HTTP/1.1\r\nIf-None-Match: " + eTag + "\r\n\r\n";
+        outputStream.write(request.getBytes());
+        outputStream.flush();
+        assertEquals("HTTP/1.1 304 Not Modified|", readResponse(inputStream));
+        assertEquals(eTag, m_lastETag);
+      }
+      // different resource, different ETag
+      {
+        String request = "GET " + PREFIX + "b.txt HTTP/1.1\r\nIf-None-Match: " + eTag + "\r\n\r\n";
+        outputStream.write(request.getBytes());
+        outputStream.flush();
+        assertEquals("HTTP/1.1 200 OK|b.txt", readResponse(inputStream));
+        assertFalse(eTag.equals(m_lastETag));
+      }
+    } finally {
+      socket.close();
+    }
+  }
+
+  /**
+   * Resource from {@link SharedResourceCache} is sent compressed, if browser accepts "gzip".
+   */
+  public void test_sharedResource_gzip() throws Exception {
+    String expectedContent = StringUtils.repeat("var a = 0;\n", 1000);
+    Socket socket = openSocket();
+    try {
+      OutputStream outputStream = socket.getOutputStream();
+      InputStream inputStream = new BufferedInputStream(socket.getInputStream());
+      // "gzip" is not accepted
+      outputStream.write(getRequest("a.js").getBytes());
+      outputStream.flush();
+      assertEquals("HTTP/1.1 200 OK|" + expectedContent, readResponse(inputStream));
+      assertNull(m_lastContentEncoding);
+      String eTag = m_lastETag;
+      // "gzip" is accepted
+      {
+        String request =
+            "GET " + PREFIX + "a.js HTTP/1.1\r\nAccept-Encoding: gzip, deflate\r\n\r\n";
+        outputStream.write(request.getBytes());
+        outputStream.flush();
+        readResponse(inputStream);
+        assertEquals("gzip", m_lastContentEncoding);
+        assertFalse(eTag.equals(m_lastETag));
+        assertTrue(m_lastBody.length < expectedContent.length());
+        InputStream gzipStream = new GZIPInputStream(new ByteArrayInputStream(m_lastBody));
+        assertEquals(expectedContent, IOUtils.toString(gzipStream));
+      }
+    } finally {
+      socket.close();
+    }
+  }
+
+  /**
+   * Resource is not in {@link SharedResourceCache}, for example evicted after it was returned by
+   * provider, so it is cached again and still sent compressed.
+   */
+  public void test_sharedResource_evicted() throws Exception {
+    String expectedContent = StringUtils.repeat("var a = 0;\n", 1000);
+    final byte[] content = expectedContent.getBytes();
+    // unique JAR stamp, so resource is not cached initially
+    final long stamp = System.nanoTime();
+    m_server.addResourceProvider(PREFIX + "evicted/", new ISharedResourceProvider() {
+      public byte[] getResource(String resourcePath) {
+        return content;
+      }
+
+      public Resource getSharedResource(String resourcePath) {
+        return new Resource(
+            content,
+            new SharedResourceCache.Key("httpServerTest.jar", resourcePath, stamp));
+      }
+    });
+    Socket socket = openSocket();
+    try {
+      OutputStream outputStream = socket.getOutputStream();
+      InputStream inputStream = new BufferedInputStream(socket.getInputStream());
+      String request =
+          "GET " + PREFIX + "evicted/a.js HTTP/1.1\r\nAccept-Encoding: gzip\r\n\r\n";
+      outputStream.write(request.getBytes());
+      outputStream.flush();
+      readResponse(inputStream);
+      assertEquals("gzip", m_lastContentEncoding);
+      InputStream gzipStream = new GZIPInputStream(new ByteArrayInputStream(m_lastBody));
+      assertEquals(expectedContent, IOUtils.toString(gzipStream));
+      // now cached
+      assertNotNull(SharedResourceCache.get(new SharedResourceCache.Key(
+          "httpServerTest.jar",
+          PREFIX + "evicted/a.js",
+          stamp)));
+    } finally {
+      socket.close();
+      m_server.removeResourceProvider(PREFIX + "evicted/");
+    }
+  }
+
+  /**
+   * Content is cached by {@link SharedResourceCache.Key}, so different JAR stamp means different
+   * content.
+   */
+  public void test_sharedResourceCache_key() throws Exception {
+    // unique JAR stamp, so entries of previous runs are not used
+    long stamp = System.nanoTime();
+    SharedResourceCache.Key key = new SharedResourceCache.Key("my.jar", "a.js", stamp);
+    assertNull(SharedResourceCache.get(key));
+    SharedResourceCache.Entry entry = SharedResourceCache.put(key, "a.js", new byte[]{1, 2});
+    SharedResourceCache.Key sameKey = new SharedResourceCache.Key("my.jar", "a.js", stamp);
+    assertSame(entry, SharedResourceCache.get(sameKey));
+    assertSame(entry, SharedResourceCache.put(key, "a.js", new byte[]{1, 2}));
+    assertNull(SharedResourceCache.get(new SharedResourceCache.Key("my.jar", "a.js", stamp + 1)));
+    assertNull(SharedResourceCache.get(new SharedResourceCache.Key("my.jar", "b.js", stamp)));
+    assertNull(SharedResourceCache.get(new SharedResourceCache.Key("my2.jar", "a.js", stamp)));
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Utils
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  private Socket openSocket() throws Exception {
+    String address = m_server.getTCPAddress();
+    String host = StringUtils.substringBefore(address, ":");
+    int port = Integer.parseInt(StringUtils.substringAfter(address, ":"));
+    Socket socket = new Socket(host, port);
+    socket.setSoTimeout(10000);
+    return socket;
+  }
+
+  private static String getRequest(String name) {
+    return "GET " + PREFIX + name + " HTTP/1.1\r\nHost: localhost\r\n\r\n";
+  }
+
+  /**
+   * @return the status line and body of response, separated with <code>"|"</code>.
+   */
+  private String readResponse(InputStream inputStream) throws Exception {
+    String status = readLine(inputStream);
+    int length = 0;
+    m_lastETag = null;
+    m_lastContentEncoding = null;
+    for (String line; (line = readLine(inputStream)).length() != 0;) {
+      if (line.toLowerCase().startsWith("content-length:")) {
+        length = Integer.parseInt(line.substring("content-length:".length()).trim());
+      }
+      if (line.toLowerCase().startsWith("etag:")) {
+        m_lastETag = line.substring("etag:".length()).trim();
+      }
+      if (line.toLowerCase().startsWith("content-encoding:")) {
+        m_lastContentEncoding = line.substring("content-encoding:".length()).trim();
+      }
+    }
+    byte[] body = new byte[length];
+    for (int i = 0; i < length; i++) {
+      body[i] = (byte) inputStream.read();
+    }
+    m_lastBody = body;
+    return status + "|" + new String(body);
+  }
+
+  private static String readLine(InputStream inputStream) throws Exception {
+    StringBuilder sb = new StringBuilder();
+    for (int c; (c = inputStream.read()) != '\n';) {
+      assertTrue(c != -1);
+      if (c != '\r') {
+        sb.append((char) c);
+      }
+    }
+    return sb.toString();
+  }
+}
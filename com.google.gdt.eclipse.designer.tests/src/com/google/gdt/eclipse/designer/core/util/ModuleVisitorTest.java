@@ -19,6 +19,7 @@ import com.google.gdt.eclipse.designer.core.GTestUtils;
 import com.google.gdt.eclipse.designer.model.module.ModuleElement;
 import com.google.gdt.eclipse.designer.util.DefaultModuleDescription;
 import com.google.gdt.eclipse.designer.util.ModuleDescription;
+import com.google.gdt.eclipse.designer.util.ModuleGraph;
 import com.google.gdt.eclipse.designer.util.ModuleVisitor;
 
 import org.eclipse.wb.internal.core.utils.exception.DesignerException;
@@ -26,6 +27,12 @@ import org.eclipse.wb.tests.designer.core.AbstractJavaTest;
 import org.eclipse.wb.tests.designer.core.annotations.DisposeProjectAfter;
 
 import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+
+import org.apache.commons.lang.ArrayUtils;
 
 import static org.fest.assertions.Assertions.assertThat;
 
@@ -240,6 +247,103 @@ public class ModuleVisitorTest extends AbstractJavaTest {
     });
   }
 
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // ModuleGraph
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  /**
+   * {@link ModuleGraph} is cached, so module files are not read again.
+   */
+  public void test_graph_cached() throws Exception {
+    ModuleDescription moduleDescription = getModuleDescription();
+    ModuleGraph graph = ModuleGraph.get(moduleDescription);
+    assertSame(graph, ModuleGraph.get(moduleDescription));
+    assertSame(graph, ModuleGraph.get(getModuleDescription()));
+    // graph has resolved modules and packages
+    assertEquals("test.Module", graph.getModules().get(0).getName());
+    assertThat(graph.getSourcePackages()).contains("test.client", "com.google.gwt.user.client");
+    assertThat(graph.getPublicPackages()).contains("test.public");
+  }
+
+  /**
+   * Change of module file should discard cached {@link ModuleGraph}.
+   */
+  @DisposeProjectAfter
+  public void test_graph_invalidate() throws Exception {
+    ModuleDescription moduleDescription = getModuleDescription();
+    ModuleGraph graph = ModuleGraph.get(moduleDescription);
+    assertThat(graph.getPublicPackages()).contains("test.public");
+    // update module
+    setFileContent(
+        getModuleFile(),
+        getSourceDQ(
+            "<!-- filler filler filler filler filler -->",
+            "<module>",
+            "  <inherits name='com.google.gwt.user.User'/>",
+            "  <public path='resources'/>",
+            "</module>"));
+    waitForAutoBuild();
+    // new graph expected
+    ModuleGraph newGraph = ModuleGraph.get(moduleDescription);
+    assertNotSame(graph, newGraph);
+    assertThat(newGraph.getPublicPackages()).contains("test.resources").excludes("test.public");
+  }
+
+  /**
+   * Change of resolved classpath, without change of <code>.classpath</code> file, should discard
+   * cached {@link ModuleGraph}.
+   */
+  @DisposeProjectAfter
+  public void test_graph_invalidate_resolvedClasspath() throws Exception {
+    String variable = "GWTD_MODULE_GRAPH_TEST";
+    JavaCore.setClasspathVariable(
+        variable,
+        new Path(GTestUtils.getLocation() + "/gwt-dev.jar"),
+        null);
+    try {
+      // add variable entry
+      {
+        IJavaProject javaProject = m_testProject.getJavaProject();
+        IClasspathEntry entry = JavaCore.newVariableEntry(new Path(variable), null, null);
+        IClasspathEntry[] entries = javaProject.getRawClasspath();
+        entries = (IClasspathEntry[]) ArrayUtils.add(entries, entry);
+        javaProject.setRawClasspath(entries, null);
+        waitForAutoBuild();
+      }
+      ModuleDescription moduleDescription = getModuleDescription();
+      ModuleGraph graph = ModuleGraph.get(moduleDescription);
+      assertSame(graph, ModuleGraph.get(moduleDescription));
+      // change variable, so resolved classpath is changed
+      JavaCore.setClasspathVariable(
+          variable,
+          new Path(GTestUtils.getLocation() + "/gwt-servlet.jar"),
+          null);
+      waitForAutoBuild();
+      assertNotSame(graph, ModuleGraph.get(moduleDescription));
+    } finally {
+      JavaCore.removeClasspathVariable(variable, null);
+    }
+  }
+
+  /**
+   * {@link ModuleGraph} with problem is not cached, so problem is not remembered.
+   */
+  @DisposeProjectAfter
+  public void test_graph_problem_notCached() throws Exception {
+    setFileContent(
+        getModuleFile(),
+        getSourceDQ(
+            "<!-- filler filler filler filler filler -->",
+            "<module>",
+            "  <inherits name='no.such.Module'/>",
+            "</module>"));
+    waitForAutoBuild();
+    ModuleDescription moduleDescription = getModuleDescription();
+    ModuleGraph graph = ModuleGraph.get(moduleDescription);
+    assertNotSame(graph, ModuleGraph.get(moduleDescription));
+  }
+
   ////////////////////////////////////////////////////////////////////////////
   //
   // Utils
@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright 2011 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.designer.core.util;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import org.eclipse.wb.internal.core.utils.reflect.ReflectionUtils;
+import org.eclipse.wb.tests.designer.tests.DesignerTestCase;
+
+import org.eclipse.core.runtime.Platform;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Test for <code>RewrittenClassCache</code> of GWT 2.0 hosted mode.
+ *
+ * @author scheglov_ke
+ */
+public class RewrittenClassCacheTest extends DesignerTestCase {
+  private static final byte[] BYTES = {1, 2, 3};
+  private static final byte[] REWRITTEN = {4, 5, 6, 7};
+  private static final Map<String, String> NO_ANONYMOUS = Collections.emptyMap();
+  private static final List<String> NO_INPUTS = Collections.emptyList();
+  private Class<?> m_cacheClass;
+  private String m_key;
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Life cycle
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    m_cacheClass =
+        Platform.getBundle("com.google.gdt.eclipse.designer.hosted.2_0").loadClass(
+            "com.google.gwt.dev.shell.RewrittenClassCache");
+    // unique class name, so records of previous runs are not used
+    m_key = getKey("test.MyClass" + System.nanoTime(), fingerprint(ImmutableList.of("a", "b")));
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Exit zone :-) XXX
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  public void _test_exit() throws Exception {
+    System.exit(0);
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Tests
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  /**
+   * Same class bytes and inputs, so rewritten bytes are returned.
+   */
+  public void test_hit() throws Exception {
+    assertNull(get(m_key, digest(BYTES, NO_ANONYMOUS, NO_INPUTS)));
+    put(m_key, digest(BYTES, NO_ANONYMOUS, NO_INPUTS), REWRITTEN);
+    assertTrue(Arrays.equals(REWRITTEN, get(m_key, digest(BYTES, NO_ANONYMOUS, NO_INPUTS))));
+  }
+
+  /**
+   * Class bytes were changed, so rewritten bytes can not be used.
+   */
+  public void test_miss_classBytes() throws Exception {
+    put(m_key, digest(BYTES, NO_ANONYMOUS, NO_INPUTS), REWRITTEN);
+    assertNull(get(m_key, digest(new byte[]{1, 2, 4}, NO_ANONYMOUS, NO_INPUTS)));
+  }
+
+  /**
+   * Anonymous classes were changed, so JSNI references are rewritten differently.
+   */
+  public void test_miss_anonymousClasses() throws Exception {
+    put(m_key, digest(BYTES, NO_ANONYMOUS, NO_INPUTS), REWRITTEN);
+    assertNull(get(m_key, digest(BYTES, ImmutableMap.of("test.A$1", "test.A$2"), NO_INPUTS)));
+  }
+
+  /**
+   * Interface hierarchy of class was changed, now it implements SingleJsoImpl interface, so
+   * trampolines should be generated.
+   */
+  public void test_miss_interfaces() throws Exception {
+    put(m_key, digest(BYTES, NO_ANONYMOUS, ImmutableList.of("nonAbstract:false")), REWRITTEN);
+    assertNull(get(m_key, digest(
+        BYTES,
+        NO_ANONYMOUS,
+        ImmutableList.of("nonAbstract:false", "test.IJso"))));
+    assertNull(get(m_key, digest(BYTES, NO_ANONYMOUS, ImmutableList.of("nonAbstract:true"))));
+  }
+
+  /**
+   * Fingerprint of rewriter configuration does not depend on order.
+   */
+  public void test_fingerprint() throws Exception {
+    assertEquals(fingerprint(ImmutableList.of("a", "b")), fingerprint(ImmutableList.of("b", "a")));
+    assertFalse(fingerprint(ImmutableList.of("a", "b")).equals(fingerprint(ImmutableList.of("a"))));
+  }
+
+  /**
+   * Version of disk store depends on rewriter classes, and is stable.
+   */
+  public void test_cacheVersion() throws Exception {
+    long version = (Long) ReflectionUtils.invokeMethod(m_cacheClass, "getCacheVersion()");
+    long formatVersion = (Long) ReflectionUtils.getFieldObject(m_cacheClass, "FORMAT_VERSION");
+    assertTrue(version != formatVersion);
+    assertEquals(version, ReflectionUtils.invokeMethod(m_cacheClass, "getCacheVersion()"));
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Utils
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  private String getKey(String className, String fingerprint) throws Exception {
+    return (String) ReflectionUtils.invokeMethod(
+        m_cacheClass,
+        "getKey(java.lang.String,java.lang.String)",
+        className,
+        fingerprint);
+  }
+
+  private String fingerprint(Collection<String> values) throws Exception {
+    return (String) ReflectionUtils.invokeMethod(
+        m_cacheClass,
+        "fingerprint(java.util.Collection)",
+        values);
+  }
+
+  private byte[] digest(byte[] classBytes,
+      Map<String, String> anonymousClassMap,
+      List<String> values) throws Exception {
+    return (byte[]) ReflectionUtils.invokeMethod(
+        m_cacheClass,
+        "digest(byte[],java.util.Map,java.util.Collection)",
+        classBytes,
+        anonymousClassMap,
+        values);
+  }
+
+  private byte[] get(String key, byte[] digest) throws Exception {
+    return (byte[]) ReflectionUtils.invokeMethod(
+        m_cacheClass,
+        "get(java.lang.String,byte[])",
+        key,
+        digest);
+  }
+
+  private void put(String key, byte[] digest, byte[] bytes) throws Exception {
+    ReflectionUtils.invokeMethod(
+        m_cacheClass,
+        "put(java.lang.String,byte[],byte[])",
+        key,
+        digest,
+        bytes);
+  }
+}
@@ -31,6 +31,9 @@ public class UtilTests extends DesignerSuiteTests {
     suite.addTest(createSingleSuite(UtilsTest.class));
     suite.addTest(createSingleSuite(ModuleVisitorTest.class));
     suite.addTest(createSingleSuite(GwtExceptionRewriterTest.class));
+    suite.addTest(createSingleSuite(HttpServerTest.class));
+    suite.addTest(createSingleSuite(CompilationUnitPackStoreTest.class));
+    suite.addTest(createSingleSuite(RewrittenClassCacheTest.class));
     return suite;
   }
 }
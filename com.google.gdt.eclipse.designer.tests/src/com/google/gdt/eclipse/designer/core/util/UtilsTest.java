@@ -25,8 +25,11 @@ import com.google.gdt.eclipse.designer.util.DefaultModuleDescription;
 import com.google.gdt.eclipse.designer.util.DefaultModuleProvider;
 import com.google.gdt.eclipse.designer.util.DefaultModuleProvider.ModuleModification;
 import com.google.gdt.eclipse.designer.util.IModuleFilter;
+import com.google.gdt.eclipse.designer.util.ModuleCache;
 import com.google.gdt.eclipse.designer.util.ModuleDescription;
 import com.google.gdt.eclipse.designer.util.Utils;
+import com.google.gdt.eclipse.designer.util.resources.DefaultResourcesProvider;
+import com.google.gdt.eclipse.designer.util.resources.IResourcesProvider;
 
 import org.eclipse.wb.internal.core.utils.Version;
 import org.eclipse.wb.internal.core.utils.ast.DomGenerics;
@@ -993,6 +996,91 @@ public class UtilsTest extends AbstractJavaTest {
     }
   }
 
+  /**
+   * Test for {@link Utils#readModule(ModuleDescription)}, {@link ModuleElement} should be cached
+   * until module file is changed.
+   */
+  @DisposeProjectAfter
+  public void test_readModule_cache() throws Exception {
+    ModuleDescription moduleDescription = getTestModuleDescription();
+    ModuleElement moduleElement = Utils.readModule(moduleDescription);
+    // same ModuleElement expected
+    {
+      int hitCount = ModuleCache.getHitCount();
+      assertSame(moduleElement, Utils.readModule(moduleDescription));
+      assertEquals(hitCount + 1, ModuleCache.getHitCount());
+    }
+    // modify module, new ModuleElement expected
+    {
+      int missCount = ModuleCache.getMissCount();
+      setFileContentSrc(
+          "test/Module.gwt.xml",
+          getSourceDQ(
+              "<!-- filler filler filler filler filler -->",
+              "<module>",
+              "  <inherits name='com.google.gwt.user.User'/>",
+              "</module>"));
+      ModuleElement newModuleElement = Utils.readModule(moduleDescription);
+      assertNotSame(moduleElement, newModuleElement);
+      assertEquals(missCount + 1, ModuleCache.getMissCount());
+      assertThat(newModuleElement.getInheritsElements()).hasSize(1);
+    }
+  }
+
+  /**
+   * Test for {@link Utils#readModule(String, IResourcesProvider, String)}, {@link ModuleElement}
+   * should be read again after change, even if {@link File#lastModified()} of module file is same.
+   */
+  @DisposeProjectAfter
+  public void test_readModule_resourcesProvider_cache() throws Exception {
+    String resourceName = "test/Module.gwt.xml";
+    IResourcesProvider resourcesProvider = new DefaultResourcesProvider(m_javaProject);
+    try {
+      ModuleElement moduleElement =
+          Utils.readModule("test.Module", resourcesProvider, resourceName);
+      assertSame(moduleElement, Utils.readModule("test.Module", resourcesProvider, resourceName));
+      // modify module, but keep File.lastModified(), as if in same second
+      File file = new File(resourcesProvider.getResourceLocation(resourceName));
+      long lastModified = file.lastModified();
+      setFileContentSrc(
+          "test/Module.gwt.xml",
+          getSourceDQ(
+              "<!-- filler filler filler filler filler -->",
+              "<module>",
+              "  <inherits name='com.google.gwt.user.User'/>",
+              "</module>"));
+      waitForAutoBuild();
+      file.setLastModified(lastModified);
+      // new ModuleElement expected
+      ModuleElement newModuleElement =
+          Utils.readModule("test.Module", resourcesProvider, resourceName);
+      assertNotSame(moduleElement, newModuleElement);
+      assertThat(newModuleElement.getInheritsElements()).hasSize(1);
+    } finally {
+      resourcesProvider.dispose();
+    }
+  }
+
+  /**
+   * Test for {@link Utils#readModule(String, InputStream)}, {@link ModuleElement} should be cached
+   * for same contents.
+   */
+  public void test_readModule_InputStream_cache() throws Exception {
+    String moduleId = "my.external.Module";
+    String moduleString = getSourceDQ("<module/>");
+    ModuleElement moduleElement =
+        Utils.readModule(moduleId, new ByteArrayInputStream(moduleString.getBytes()));
+    assertSame(
+        moduleElement,
+        Utils.readModule(moduleId, new ByteArrayInputStream(moduleString.getBytes())));
+    // different contents
+    String moduleString2 =
+        getSourceDQ("<module>", "  <inherits name='com.google.gwt.user.User'/>", "</module>");
+    assertNotSame(
+        moduleElement,
+        Utils.readModule(moduleId, new ByteArrayInputStream(moduleString2.getBytes())));
+  }
+
   ////////////////////////////////////////////////////////////////////////////
   //
   // Resources
@@ -27,6 +27,7 @@ public class BindingTests extends DesignerSuiteTests {
   public static Test suite() {
     TestSuite suite = new TestSuite("gwt.GXT.databinding");
     suite.addTest(createSingleSuite(DatabindingsProviderTest.class));
+    suite.addTest(createSingleSuite(ModelDataPropertiesIndexTest.class));
     return suite;
   }
 }
\ No newline at end of file
@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright 2011 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.designer.gxt.databinding;
+
+import com.google.gdt.eclipse.designer.gxt.databinding.model.beans.ModelDataPropertiesIndex;
+import com.google.gdt.eclipse.designer.gxt.model.GxtModelTest;
+
+import org.eclipse.wb.internal.core.utils.reflect.ReflectionUtils;
+import org.eclipse.wb.tests.designer.core.annotations.DisposeProjectAfter;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.util.Map;
+
+/**
+ * Test for {@link ModelDataPropertiesIndex}.
+ *
+ * @author scheglov_ke
+ */
+public class ModelDataPropertiesIndexTest extends GxtModelTest {
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Exit zone :-) XXX
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  public void _test_exit() throws Exception {
+    System.exit(0);
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Tests
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  /**
+   * Properties are parsed once and then taken from index.
+   */
+  @DisposeProjectAfter
+  public void test_cached() throws Exception {
+    ICompilationUnit unit = createModel("set('name', 'John');");
+    Map<String, String> properties = ModelDataPropertiesIndex.getProperties(unit);
+    assertThat(properties.keySet()).containsOnly("name");
+    assertEquals("java.lang.String", properties.get("name"));
+    assertSame(properties, ModelDataPropertiesIndex.getProperties(unit));
+  }
+
+  /**
+   * Change of <code>ModelData</code> subclass removes its entry, so properties are parsed again.
+   */
+  @DisposeProjectAfter
+  public void test_invalidate() throws Exception {
+    ICompilationUnit unit = createModel("set('name', 'John');");
+    Map<String, String> properties = ModelDataPropertiesIndex.getProperties(unit);
+    assertThat(properties.keySet()).containsOnly("name");
+    // update model
+    createModel("set('name', 'John');", "set('age', 5);");
+    assertFalse(getEntries().containsKey(unit.getHandleIdentifier()));
+    // new properties
+    properties = ModelDataPropertiesIndex.getProperties(unit);
+    assertThat(properties.keySet()).containsOnly("name", "age");
+  }
+
+  /**
+   * Removed <code>ModelData</code> subclass has no entry in index.
+   */
+  @DisposeProjectAfter
+  public void test_invalidate_delete() throws Exception {
+    ICompilationUnit unit = createModel("set('name', 'John');");
+    ModelDataPropertiesIndex.getProperties(unit);
+    assertTrue(getEntries().containsKey(unit.getHandleIdentifier()));
+    // delete model
+    unit.delete(true, null);
+    waitForAutoBuild();
+    assertFalse(getEntries().containsKey(unit.getHandleIdentifier()));
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Utils
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  /**
+   * Creates or updates <code>test.client.MyModel</code> with given statements in constructor.
+   */
+  private ICompilationUnit createModel(String... statements) throws Exception {
+    StringBuilder sb = new StringBuilder();
+    sb.append("package test.client;\n");
+    sb.append("import com.extjs.gxt.ui.client.data.BaseModel;\n");
+    sb.append("public class MyModel extends BaseModel {\n");
+    sb.append("  public MyModel() {\n");
+    for (String statement : statements) {
+      sb.append("    ").append(statement.replace('\'', '"')).append("\n");
+    }
+    sb.append("  }\n");
+    sb.append("}");
+    setFileContentSrc("test/client/MyModel.java", sb.toString());
+    waitForAutoBuild();
+    return m_javaProject.findType("test.client.MyModel").getCompilationUnit();
+  }
+
+  private static Map<?, ?> getEntries() throws Exception {
+    synchronized (ModelDataPropertiesIndex.class) {
+      Class<?> indexClass = ModelDataPropertiesIndex.class;
+      return (Map<?, ?>) ReflectionUtils.getFieldObject(indexClass, "m_entries");
+    }
+  }
+}
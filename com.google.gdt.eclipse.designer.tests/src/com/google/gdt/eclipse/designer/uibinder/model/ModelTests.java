@@ -33,6 +33,7 @@ public class ModelTests extends DesignerSuiteTests {
     TestSuite suite = new TestSuite("gwt.UiBinder.model");
     suite.addTest(createSingleSuite(UiBinderTagResolverTest.class));
     suite.addTest(createSingleSuite(UiBinderStaticFieldSupportTest.class));
+    suite.addTest(createSingleSuite(UiBinderContextTest.class));
     suite.addTest(UtilTests.suite());
     suite.addTest(WidgetTests.suite());
     suite.addTest(PropertyTests.suite());
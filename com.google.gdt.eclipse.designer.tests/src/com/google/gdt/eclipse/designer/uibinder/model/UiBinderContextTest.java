@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Copyright 2011 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.designer.uibinder.model;
+
+import com.google.gdt.eclipse.designer.uibinder.model.widgets.WidgetInfo;
+import com.google.gdt.eclipse.designer.uibinder.parser.UiBinderContext;
+import com.google.gdt.eclipse.designer.uibinder.parser.UiBinderParser;
+
+import org.eclipse.wb.internal.core.utils.reflect.ReflectionUtils;
+import org.eclipse.wb.internal.core.utils.xml.DocumentElement;
+import org.eclipse.wb.tests.designer.core.annotations.DisposeProjectAfter;
+
+/**
+ * Test for "Binder" rebind invalidation and paths of elements in {@link UiBinderContext}.
+ *
+ * @author scheglov_ke
+ */
+public class UiBinderContextTest extends UiBinderModelTest {
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Exit zone :-) XXX
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  public void _test_exit() throws Exception {
+    System.exit(0);
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Tests
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  /**
+   * Key is same for same template and dependencies.
+   */
+  public void test_key_same() throws Exception {
+    parseTemplate();
+    String content = "<ui:UiBinder><g:FlowPanel/></ui:UiBinder>";
+    String key = getBinderContentKey(content);
+    assertNotNull(key);
+    assertEquals(key, getBinderContentKey(content));
+    assertFalse(key.equals(getBinderContentKey("<ui:UiBinder><g:Button/></ui:UiBinder>")));
+  }
+
+  /**
+   * Change of CSS file used in <code>ui:style</code> should change key.
+   */
+  @DisposeProjectAfter
+  public void test_key_styleSource() throws Exception {
+    setFileContentSrc("test/client/MyStyle.css", ".one {color: red;}");
+    waitForAutoBuild();
+    parseTemplate();
+    String content = "<ui:UiBinder><ui:style src='MyStyle.css'/><g:FlowPanel/></ui:UiBinder>";
+    String key = getBinderContentKey(content);
+    assertNotNull(key);
+    // update CSS
+    setFileContentSrc("test/client/MyStyle.css", ".one {color: green;}");
+    waitForAutoBuild();
+    assertFalse(key.equals(getBinderContentKey(content)));
+  }
+
+  /**
+   * Change of type used in <code>ui:with</code> should change key.
+   */
+  @DisposeProjectAfter
+  public void test_key_withType() throws Exception {
+    setFileContentSrc(
+        "test/client/MyResources.java",
+        getJavaSource("public class MyResources {", "}"));
+    waitForAutoBuild();
+    parseTemplate();
+    String content =
+        "<ui:UiBinder><ui:with field='res' type='test.client.MyResources'/></ui:UiBinder>";
+    String key = getBinderContentKey(content);
+    assertNotNull(key);
+    // update type
+    setFileContentSrc(
+        "test/client/MyResources.java",
+        getJavaSource("public class MyResources {", "  public String text() {return null;}", "}"));
+    waitForAutoBuild();
+    assertFalse(key.equals(getBinderContentKey(content)));
+  }
+
+  /**
+   * Change of custom widget should change key.
+   */
+  @DisposeProjectAfter
+  public void test_key_customWidget() throws Exception {
+    setFileContentSrc(
+        "test/client/MyWidget.java",
+        getJavaSource("public class MyWidget extends Button {", "}"));
+    waitForAutoBuild();
+    parseTemplate();
+    String content =
+        "<ui:UiBinder xmlns:t='urn:import:test.client'><t:MyWidget/></ui:UiBinder>";
+    String key = getBinderContentKey(content);
+    assertNotNull(key);
+    // update widget
+    setFileContentSrc(
+        "test/client/MyWidget.java",
+        getJavaSource("public class MyWidget extends Button {", "  int m_value;", "}"));
+    waitForAutoBuild();
+    assertFalse(key.equals(getBinderContentKey(content)));
+  }
+
+  /**
+   * If dependency is not found, then "Binder" should be always generated.
+   */
+  public void test_key_unknownDependency() throws Exception {
+    parseTemplate();
+    assertNull(getBinderContentKey("<ui:UiBinder><ui:style src='NoSuch.css'/></ui:UiBinder>"));
+    assertNull(getBinderContentKey(
+        "<ui:UiBinder><ui:with field='res' type='test.client.NoSuch'/></ui:UiBinder>"));
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Paths
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  /**
+   * Path is remembered after rendering, but updated when document structure is changed.
+   */
+  public void test_getPath() throws Exception {
+    parse(
+        "// filler filler filler filler filler",
+        "// filler filler filler filler filler",
+        "<ui:UiBinder>",
+        "  <g:FlowPanel>",
+        "    <g:Button wbp:name='button_1'/>",
+        "    <g:Button wbp:name='button_2'/>",
+        "  </g:FlowPanel>",
+        "</ui:UiBinder>");
+    refresh();
+    WidgetInfo button_1 = getObjectByName("button_1");
+    WidgetInfo button_2 = getObjectByName("button_2");
+    DocumentElement element = button_2.getElement();
+    String path = m_lastContext.getPath(element);
+    assertEquals(UiBinderParser.getPath(element), path);
+    assertSame(path, m_lastContext.getPath(element));
+    // delete "button_1", so path of "button_2" is changed
+    button_1.delete();
+    assertEquals(UiBinderParser.getPath(element), m_lastContext.getPath(element));
+    assertFalse(path.equals(m_lastContext.getPath(element)));
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Utils
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  private void parseTemplate() throws Exception {
+    parse(
+        "// filler filler filler filler filler",
+        "// filler filler filler filler filler",
+        "<ui:UiBinder>",
+        "  <g:FlowPanel/>",
+        "</ui:UiBinder>");
+  }
+
+  private String getBinderContentKey(String content) throws Exception {
+    return (String) ReflectionUtils.invokeMethod(
+        m_lastContext,
+        "getBinderContentKey(java.lang.String)",
+        content);
+  }
+}
@@ -17,6 +17,8 @@ package com.google.gdt.eclipse.designer;
 import com.google.common.collect.Lists;
 import com.google.gdt.eclipse.designer.common.Constants;
 import com.google.gdt.eclipse.designer.launch.GwtLaunchConfigurationConfigurator;
+import com.google.gdt.eclipse.designer.util.ModuleGraph;
+import com.google.gdt.eclipse.designer.util.resources.ResourcesProviderRegistry;
 
 import org.eclipse.wb.internal.core.BundleResourceProvider;
 import org.eclipse.wb.internal.core.EnvironmentUtils;
@@ -55,6 +57,8 @@ public class Activator extends AbstractUIPlugin implements Constants, IStartup {
   ////////////////////////////////////////////////////////////////////////////
   @Override
   public void stop(BundleContext context) throws Exception {
+    ModuleGraph.dispose();
+    ResourcesProviderRegistry.dispose();
     m_plugin = null;
     super.stop(context);
   }
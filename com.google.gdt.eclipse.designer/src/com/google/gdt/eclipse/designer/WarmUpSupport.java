@@ -30,7 +30,6 @@ import org.eclipse.jdt.core.JavaCore;
 
 import org.osgi.framework.Bundle;
 
-import java.lang.reflect.Constructor;
 import java.util.List;
 
 /**
@@ -85,9 +84,8 @@ public class WarmUpSupport {
   }
 
   /**
-   * Initializes GWT 2.2 hosted mode using any existing GWT 2.2 project.
-   * <p>
-   * Gives <b>3</b> times speedup for first GWT editing opening in this Eclipse session.
+   * Asks pool of GWT 2.2 hosted mode to prepare "warm" instance for module of any existing GWT 2.2
+   * project. Pool replenishes itself in background, so each next editor also gets "warm" instance.
    */
   private static void warmUpHostedMode() {
     try {
@@ -101,8 +99,6 @@ public class WarmUpSupport {
             if (!modules.isEmpty()) {
               ModuleDescription module = modules.get(0);
               warmUpHostedMode(module);
-              warmUpHostedMode(module);
-              warmUpHostedMode(module);
             }
             break;
           }
@@ -114,23 +110,16 @@ public class WarmUpSupport {
   }
 
   private static void warmUpHostedMode(ModuleDescription module) throws Exception {
-    long startTime = System.nanoTime();
     Bundle hostedBundle = Platform.getBundle("com.google.gdt.eclipse.designer.hosted.2_2");
-    Class<?> hmsClass =
-        hostedBundle.loadClass("com.google.gdt.eclipse.designer.hosted.tdt.HostedModeSupport");
-    Constructor<?> hmsConstructor = hmsClass.getConstructor(IModuleDescription.class);
-    IHostedModeSupport hms = (IHostedModeSupport) hmsConstructor.newInstance(module);
-    //
-    try {
-      ReflectionUtils.invokeMethod(
-          hms,
-          "createModuleSpaceHost(java.lang.String)",
-          "com.google.gwt.user.User");
-    } finally {
-      hms.dispose();
-    }
+    Class<?> poolClass =
+        hostedBundle.loadClass("com.google.gdt.eclipse.designer.hosted.tdt.HostedModePool");
+    ReflectionUtils.invokeMethod(
+        poolClass,
+        "warmUp(" + IModuleDescription.class.getName() + ",java.lang.String)",
+        module,
+        module.getId());
     if (DEBUG) {
-      System.out.println("startup time: " + (System.nanoTime() - startTime) / 1000000.0);
+      System.out.println("warm up scheduled: " + module.getId());
     }
   }
 }
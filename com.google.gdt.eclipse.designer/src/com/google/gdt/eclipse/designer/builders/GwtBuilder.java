@@ -15,11 +15,15 @@
 package com.google.gdt.eclipse.designer.builders;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.gdt.eclipse.designer.Activator;
 import com.google.gdt.eclipse.designer.builders.participant.MyCompilationParticipant;
 import com.google.gdt.eclipse.designer.common.Constants;
+import com.google.gdt.eclipse.designer.model.module.ModuleElement;
 import com.google.gdt.eclipse.designer.refactoring.GwtRefactoringUtils;
+import com.google.gdt.eclipse.designer.util.ModuleDescription;
+import com.google.gdt.eclipse.designer.util.ModuleVisitor;
 import com.google.gdt.eclipse.designer.util.Utils;
 
 import org.eclipse.wb.internal.core.utils.ast.AstNodeUtils;
@@ -29,6 +33,7 @@ import org.eclipse.wb.internal.core.utils.execution.RunnableEx;
 import org.eclipse.wb.internal.core.utils.jdt.core.CodeUtils;
 
 import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IResourceDelta;
@@ -40,12 +45,13 @@ import org.eclipse.core.resources.WorkspaceJob;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
-import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubProgressMonitor;
 import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
 import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.dom.AST;
@@ -71,6 +77,7 @@ import org.eclipse.text.edits.MultiTextEdit;
 
 import org.apache.commons.lang.StringUtils;
 
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -91,6 +98,19 @@ public class GwtBuilder extends IncrementalProjectBuilder {
   private IResourceDelta m_delta;
   private List<IFile> m_serviceFiles;
 
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // State
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  private static final String SUPER_SOURCE_SUFFIX = " (super)";
+  private final RemoteServiceIndex m_serviceIndex = new RemoteServiceIndex();
+  /**
+   * Names of "source" packages of modules, as they were during last validation, keyed by module id.
+   * Name of "super-source" package has {@link #SUPER_SOURCE_SUFFIX}.
+   */
+  private Map<String, Set<String>> m_sourcePackages;
+
   ////////////////////////////////////////////////////////////////////////////
   //
   // Build
@@ -157,10 +177,12 @@ public class GwtBuilder extends IncrementalProjectBuilder {
             IProject project = (IProject) resource;
             // we are interesting only in GWT projects
             return Utils.isGWTProject(project);
-          case IResource.FILE :
-            if (Utils.isRemoteService(resource)) {
-              m_serviceFiles.add((IFile) resource);
+          case IResource.FILE : {
+            IFile file = (IFile) resource;
+            if (m_serviceIndex.isRemoteService(file)) {
+              m_serviceFiles.add(file);
             }
+          }
         }
         return true;
       }
@@ -169,23 +191,36 @@ public class GwtBuilder extends IncrementalProjectBuilder {
   }
 
   /**
-   * Updates Async and Impl parts for each modified <code>RemoteService</code>.
+   * Updates Async and Impl parts for each modified <code>RemoteService</code>, if its signatures
+   * were changed, or Async and Impl parts were changed after last update.
    */
   private void updateRemoteServices() throws Exception {
     for (IFile serviceFile : m_serviceFiles) {
       ICompilationUnit serviceUnit = (ICompilationUnit) JavaCore.create(serviceFile);
       IPackageFragment servicePackage = (IPackageFragment) serviceUnit.getParent();
+      // check if signatures were changed
+      String signatureHash = RemoteServiceIndex.getSignatureHash(serviceUnit);
+      if (m_serviceIndex.isUpdated(serviceFile, signatureHash)) {
+        continue;
+      }
       //
-      generateAsync(servicePackage, serviceUnit);
-      updateImpl(servicePackage, serviceUnit);
+      ICompilationUnit asyncUnit = generateAsync(servicePackage, serviceUnit);
+      ICompilationUnit implUnit = updateImpl(servicePackage, serviceUnit);
+      m_serviceIndex.setUpdated(
+          serviceFile,
+          signatureHash,
+          (IFile) asyncUnit.getUnderlyingResource(),
+          implUnit != null ? (IFile) implUnit.getUnderlyingResource() : null);
     }
   }
 
   /**
    * Generates Async type for given <code>RemoteService</code>.
+   * 
+   * @return the Async {@link ICompilationUnit}.
    */
-  private void generateAsync(IPackageFragment servicePackage, ICompilationUnit serviceUnit)
-      throws Exception {
+  private ICompilationUnit generateAsync(IPackageFragment servicePackage,
+      ICompilationUnit serviceUnit) throws Exception {
     IJavaProject javaProject = serviceUnit.getJavaProject();
     // parse service unit
     CompilationUnit serviceRoot = Utils.parseUnit(serviceUnit);
@@ -302,6 +337,7 @@ public class GwtBuilder extends IncrementalProjectBuilder {
               true,
               null);
       unit.getBuffer().save(null, true);
+      return unit;
     }
   }
 
@@ -377,14 +413,19 @@ public class GwtBuilder extends IncrementalProjectBuilder {
     }
   }
 
-  private void updateImpl(IPackageFragment servicePackage, ICompilationUnit serviceUnit)
-      throws Exception {
+  /**
+   * Adds methods of given <code>RemoteService</code> into its Impl type, if it exists.
+   * 
+   * @return the Impl {@link ICompilationUnit}, or <code>null</code> if there are no Impl type.
+   */
+  private ICompilationUnit updateImpl(IPackageFragment servicePackage,
+      ICompilationUnit serviceUnit) throws Exception {
     // find single Impl type 
     ICompilationUnit implUnit;
     {
       IType implType = GwtRefactoringUtils.getServiceImplType(serviceUnit.findPrimaryType(), null);
       if (implType == null) {
-        return;
+        return null;
       }
       implUnit = implType.getCompilationUnit();
     }
@@ -402,6 +443,7 @@ public class GwtBuilder extends IncrementalProjectBuilder {
     });
     implUnit.save(null, true);
     implUnit.getBuffer().save(null, true);
+    return implUnit;
   }
 
   /**
@@ -424,23 +466,26 @@ public class GwtBuilder extends IncrementalProjectBuilder {
 
   ////////////////////////////////////////////////////////////////////////////
   //
-  // Recompile on *.gwt.xml modification
+  // Revalidate on *.gwt.xml modification
   //
   ////////////////////////////////////////////////////////////////////////////
   /**
-   * Rebuilds GWT project if any of the *.gwt.xml file was modified. We need this to force out
-   * {@link MyCompilationParticipant} to validate again source, because *.gwt.xml may be
-   * included/removed some other GWT module and some types become accessible/inaccessible in
-   * "source" classpath.
+   * Schedules validation of sources if any of the *.gwt.xml file was modified. We need this to
+   * force {@link MyCompilationParticipant} to validate again source, because *.gwt.xml may be
+   * included/removed some other GWT module and some types become accessible/inaccessible in
+   * "source" classpath.
+   * <p>
+   * We don't rebuild project, we compare "source" packages before and after modification and
+   * validate only units which may be affected by difference.
    */
-  private void checkModuleFileModification() throws CoreException {
+  private void checkModuleFileModification() throws Exception {
     // optimization for tests
     if (!MyCompilationParticipant.ENABLED) {
       return;
     }
     //
-    // prepare projects with changed *.gwt.xml files
-    final Set<IProject> projectsToBuild = Sets.newHashSet();
+    // check for changed *.gwt.xml files
+    final boolean[] moduleModified = {false};
     IResourceDeltaVisitor visitor = new IResourceDeltaVisitor() {
       public boolean visit(IResourceDelta delta) throws CoreException {
         IResource resource = delta.getResource();
@@ -456,27 +501,178 @@ public class GwtBuilder extends IncrementalProjectBuilder {
           }
           case IResource.FILE :
             if (Utils.getExactModule(resource) != null) {
-              projectsToBuild.add(resource.getProject());
+              moduleModified[0] = true;
             }
         }
         return true;
       }
     };
     m_delta.accept(visitor);
-    // run "Clean" job for found projects
-    if (!projectsToBuild.isEmpty()) {
-      WorkspaceJob cleanJob = new WorkspaceJob("GWT project rebuild") {
+    final IJavaProject javaProject = JavaCore.create(getProject());
+    // remember "source" packages, to compare with them after modification
+    if (!moduleModified[0]) {
+      if (m_sourcePackages == null && Utils.isGWTProject(javaProject)) {
+        m_sourcePackages = getSourcePackages(javaProject);
+      }
+      return;
+    }
+    // run validation job
+    {
+      WorkspaceJob validateJob = new WorkspaceJob("GWT source path validation") {
         @Override
         public IStatus runInWorkspace(IProgressMonitor monitor) throws CoreException {
-          for (IProject project : projectsToBuild) {
-            project.build(IncrementalProjectBuilder.CLEAN_BUILD, new NullProgressMonitor());
-          }
+          ExecutionUtils.runLog(new RunnableEx() {
+            public void run() throws Exception {
+              validateSourcePath(javaProject);
+            }
+          });
           return Status.OK_STATUS;
         }
+
+        @Override
+        public boolean belongsTo(Object family) {
+          return family == ResourcesPlugin.FAMILY_AUTO_BUILD;
+        }
       };
-      cleanJob.setRule(ResourcesPlugin.getWorkspace().getRuleFactory().buildRule());
-      cleanJob.setUser(true);
-      cleanJob.schedule();
+      validateJob.setRule(ResourcesPlugin.getWorkspace().getRuleFactory().buildRule());
+      validateJob.setSystem(true);
+      validateJob.schedule();
+    }
+  }
+
+  /**
+   * Validates units of given {@link IJavaProject} which are affected by changes in "source"
+   * packages of its modules.
+   */
+  private void validateSourcePath(IJavaProject javaProject) throws Exception {
+    MyCompilationParticipant participant = new MyCompilationParticipant();
+    if (!participant.isActive(javaProject)) {
+      return;
+    }
+    Map<String, Set<String>> oldPackages = m_sourcePackages;
+    Map<String, Set<String>> newPackages = getSourcePackages(javaProject);
+    m_sourcePackages = newPackages;
+    // prepare units to validate
+    Set<IFile> files = Sets.newLinkedHashSet();
+    if (oldPackages == null) {
+      // no previous state, so validate all units in "source" packages
+      Set<String> packages = Sets.newHashSet();
+      for (Set<String> modulePackages : newPackages.values()) {
+        packages.addAll(modulePackages);
+      }
+      addUnits(files, javaProject, packages);
+    } else {
+      Set<String> enteredPackages = Sets.newHashSet();
+      Set<String> leftPackages = Sets.newHashSet();
+      for (String moduleId : Sets.union(oldPackages.keySet(), newPackages.keySet())) {
+        Set<String> oldModulePackages = getModulePackages(oldPackages, moduleId);
+        Set<String> newModulePackages = getModulePackages(newPackages, moduleId);
+        enteredPackages.addAll(Sets.difference(newModulePackages, oldModulePackages));
+        leftPackages.addAll(Sets.difference(oldModulePackages, newModulePackages));
+      }
+      // units which entered or left "source" path
+      addUnits(files, javaProject, Sets.union(enteredPackages, leftPackages));
+      // units with markers, their types may become accessible
+      for (IMarker marker : javaProject.getProject().findMarkers(
+          MyCompilationParticipant.MARKER_ID,
+          false,
+          IResource.DEPTH_INFINITE)) {
+        if (marker.getResource() instanceof IFile) {
+          files.add((IFile) marker.getResource());
+        }
+      }
+      // units which reference packages which left "source" path
+      if (!leftPackages.isEmpty()) {
+        addReferencingUnits(files, javaProject, leftPackages);
+      }
+    }
+    // validate
+    if (!files.isEmpty()) {
+      participant.validate(Lists.newArrayList(files));
+    }
+  }
+
+  /**
+   * @return the names of "source" and "super-source" packages for each module of given
+   *         {@link IJavaProject}, including packages of inherited modules.
+   */
+  private static Map<String, Set<String>> getSourcePackages(IJavaProject javaProject)
+      throws Exception {
+    Map<String, Set<String>> sourcePackages = Maps.newHashMap();
+    for (ModuleDescription module : Utils.getModules(javaProject)) {
+      final Set<String> modulePackages = Sets.newHashSet();
+      ModuleVisitor.accept(module, new ModuleVisitor() {
+        @Override
+        public void visitSourcePackage(ModuleElement moduleElement,
+            String packageName,
+            boolean superSource) throws Exception {
+          modulePackages.add(superSource ? packageName + SUPER_SOURCE_SUFFIX : packageName);
+        }
+      });
+      sourcePackages.put(module.getId(), modulePackages);
+    }
+    return sourcePackages;
+  }
+
+  private static Set<String> getModulePackages(Map<String, Set<String>> packages, String moduleId) {
+    Set<String> modulePackages = packages.get(moduleId);
+    return modulePackages != null ? modulePackages : Collections.<String>emptySet();
+  }
+
+  /**
+   * Adds {@link IFile}'s of units from given packages, including sub-packages.
+   */
+  private static void addUnits(Set<IFile> files, IJavaProject javaProject, Set<String> packages)
+      throws Exception {
+    if (packages.isEmpty()) {
+      return;
+    }
+    for (ICompilationUnit unit : getSourceUnits(javaProject)) {
+      String packageName = unit.getParent().getElementName();
+      for (String sourcePackage : packages) {
+        sourcePackage = StringUtils.removeEnd(sourcePackage, SUPER_SOURCE_SUFFIX);
+        if (sourcePackage.length() == 0
+            || packageName.equals(sourcePackage)
+            || packageName.startsWith(sourcePackage + ".")) {
+          files.add((IFile) unit.getResource());
+          break;
+        }
+      }
+    }
+  }
+
+  /**
+   * Adds {@link IFile}'s of units which may reference types from given packages. Types from other
+   * package are referenced using qualified name, in import or in code, so we check source text.
+   */
+  private static void addReferencingUnits(Set<IFile> files,
+      IJavaProject javaProject,
+      Set<String> packages) throws Exception {
+    for (ICompilationUnit unit : getSourceUnits(javaProject)) {
+      String source = unit.getSource();
+      for (String sourcePackage : packages) {
+        sourcePackage = StringUtils.removeEnd(sourcePackage, SUPER_SOURCE_SUFFIX);
+        if (source != null && source.contains(sourcePackage + ".")) {
+          files.add((IFile) unit.getResource());
+          break;
+        }
+      }
+    }
+  }
+
+  /**
+   * @return the {@link ICompilationUnit}'s from source folders of given {@link IJavaProject}.
+   */
+  private static List<ICompilationUnit> getSourceUnits(IJavaProject javaProject) throws Exception {
+    List<ICompilationUnit> units = Lists.newArrayList();
+    for (IPackageFragmentRoot root : javaProject.getPackageFragmentRoots()) {
+      if (root.getKind() == IPackageFragmentRoot.K_SOURCE) {
+        for (IJavaElement element : root.getChildren()) {
+          IPackageFragment packageFragment = (IPackageFragment) element;
+          Collections.addAll(units, packageFragment.getCompilationUnits());
+        }
+      }
     }
+    return units;
   }
 }
\ No newline at end of file
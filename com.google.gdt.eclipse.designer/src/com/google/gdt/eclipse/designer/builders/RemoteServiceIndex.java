@@ -0,0 +1,229 @@
+/*******************************************************************************
+ * Copyright 2011 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.designer.builders;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.gdt.eclipse.designer.util.Utils;
+
+import org.eclipse.wb.internal.core.utils.jdt.core.CodeUtils;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IImportDeclaration;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.ISourceRange;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index of <code>RemoteService</code> interfaces, used by {@link GwtBuilder}.
+ * <p>
+ * Type hierarchy of interface is checked only when resolved names of its super interfaces (direct
+ * and inherited) are changed, and Async and Impl parts are updated only when hash of service
+ * signatures is changed or Async/Impl units were changed after last update, so usual edits of
+ * service file (formatting, comments, etc) don't cause rewriting of Async and Impl units.
+ *
+ * @author scheglov_ke
+ * @coverage gwt.builder
+ */
+final class RemoteServiceIndex {
+  private final Map<IFile, Entry> m_entries = Maps.newHashMap();
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Access
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  /**
+   * @return <code>true</code> if given {@link IFile} is Java file with <code>RemoteService</code>.
+   */
+  public boolean isRemoteService(IFile file) throws CoreException {
+    if (!file.getName().endsWith(".java")) {
+      return false;
+    }
+    IType type = CodeUtils.getType(JavaCore.create(file));
+    if (type == null || !type.exists() || !type.isInterface()) {
+      m_entries.remove(file);
+      return false;
+    }
+    // check hierarchy only if super interfaces were changed
+    String superInterfaces = getHierarchyKey(type);
+    Entry entry = m_entries.get(file);
+    if (entry == null || !entry.superInterfaces.equals(superInterfaces)) {
+      entry = new Entry();
+      entry.superInterfaces = superInterfaces;
+      entry.service = superInterfaces.length() != 0 && Utils.isRemoteService(type);
+      m_entries.put(file, entry);
+    }
+    return entry.service;
+  }
+
+  /**
+   * @return <code>true</code> if Async and Impl parts were already updated for given signature
+   *         hash of service, see {@link #getSignatureHash(ICompilationUnit)}, and were not changed
+   *         (or deleted) after this.
+   */
+  public boolean isUpdated(IFile file, String signatureHash) {
+    Entry entry = m_entries.get(file);
+    return entry != null
+        && signatureHash.equals(entry.signatureHash)
+        && isSameStamp(entry.asyncFile, entry.asyncStamp)
+        && isSameStamp(entry.implFile, entry.implStamp);
+  }
+
+  /**
+   * Remembers that Async and Impl parts were updated for given signature hash of service.
+   *
+   * @param asyncFile
+   *          the Async unit of service.
+   * @param implFile
+   *          the Impl unit of service, may be <code>null</code> if there are no Impl.
+   */
+  public void setUpdated(IFile file, String signatureHash, IFile asyncFile, IFile implFile) {
+    Entry entry = m_entries.get(file);
+    if (entry != null) {
+      entry.signatureHash = signatureHash;
+      entry.asyncFile = asyncFile;
+      entry.asyncStamp = asyncFile.getModificationStamp();
+      entry.implFile = implFile;
+      entry.implStamp = implFile != null ? implFile.getModificationStamp() : 0;
+    }
+  }
+
+  /**
+   * @return the hash of everything in service unit that is used to generate Async and Impl parts:
+   *         imports, name and super interfaces of service, JavaDoc and methods. Whitespaces are
+   *         normalized, so formatting does not change hash.
+   */
+  public static String getSignatureHash(ICompilationUnit serviceUnit) throws Exception {
+    StringBuilder sb = new StringBuilder();
+    for (IImportDeclaration importDeclaration : serviceUnit.getImports()) {
+      sb.append("import ");
+      sb.append(importDeclaration.getElementName());
+      sb.append(";\n");
+    }
+    IType serviceType = CodeUtils.getType(serviceUnit);
+    sb.append(serviceType.getElementName());
+    sb.append(" extends ");
+    sb.append(StringUtils.join(serviceType.getSuperInterfaceNames(), ","));
+    sb.append("\n");
+    {
+      ISourceRange javadocRange = serviceType.getJavadocRange();
+      if (javadocRange != null) {
+        String source = serviceUnit.getSource();
+        int begin = javadocRange.getOffset();
+        int end = begin + javadocRange.getLength();
+        sb.append(normalizeWhitespaces(source.substring(begin, end)));
+        sb.append("\n");
+      }
+    }
+    for (IMethod method : serviceType.getMethods()) {
+      sb.append(normalizeWhitespaces(method.getSource()));
+      sb.append("\n");
+    }
+    return Utils.getContentsHash(sb.toString());
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Implementation
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  private static String normalizeWhitespaces(String source) {
+    return StringUtils.join(StringUtils.split(source), ' ');
+  }
+
+  private static boolean isSameStamp(IFile file, long stamp) {
+    return file == null || file.getModificationStamp() == stamp;
+  }
+
+  /**
+   * @return the resolved names of direct and inherited super interfaces of given {@link IType}, so
+   *         changes in hierarchy (even in other units or in imports) change key.
+   */
+  private static String getHierarchyKey(IType type) throws JavaModelException {
+    StringBuilder sb = new StringBuilder();
+    appendSuperInterfaces(sb, type, Sets.<String>newHashSet());
+    return sb.toString();
+  }
+
+  private static void appendSuperInterfaces(StringBuilder sb, IType type, Set<String> visited)
+      throws JavaModelException {
+    IJavaProject javaProject = type.getJavaProject();
+    for (String superName : type.getSuperInterfaceNames()) {
+      String qualifiedName = resolveTypeName(type, StringUtils.substringBefore(superName, "<"));
+      if (qualifiedName == null) {
+        sb.append("?").append(superName).append(",");
+        continue;
+      }
+      sb.append(qualifiedName);
+      if (visited.add(qualifiedName)) {
+        IType superType = javaProject.findType(qualifiedName);
+        if (superType == null) {
+          sb.append("?");
+        } else {
+          sb.append("(");
+          appendSuperInterfaces(sb, superType, visited);
+          sb.append(")");
+        }
+      }
+      sb.append(",");
+    }
+  }
+
+  /**
+   * @return the fully qualified name of type referenced in given {@link IType}, or
+   *         <code>null</code> if it can not be resolved.
+   */
+  private static String resolveTypeName(IType type, String name) throws JavaModelException {
+    if (type.isBinary()) {
+      return name;
+    }
+    String[][] resolved = type.resolveType(name);
+    if (resolved == null || resolved.length != 1) {
+      return null;
+    }
+    String packageName = resolved[0][0];
+    String typeName = resolved[0][1];
+    return packageName.length() != 0 ? packageName + "." + typeName : typeName;
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Entry
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  /**
+   * Information about single interface.
+   */
+  private static final class Entry {
+    private String superInterfaces;
+    private boolean service;
+    private String signatureHash;
+    private IFile asyncFile;
+    private long asyncStamp;
+    private IFile implFile;
+    private long implStamp;
+  }
+}
@@ -32,7 +32,14 @@ import org.eclipse.jdt.core.compiler.BuildContext;
 import org.eclipse.jdt.core.compiler.CompilationParticipant;
 import org.eclipse.jdt.core.dom.CompilationUnit;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * Abstract compilation participant for creating problem markers. We use it in GWT for checking that
@@ -42,6 +49,17 @@ import java.util.List;
  * @coverage gwt.compilation.participant
  */
 public abstract class AbstractCompilationParticipant extends CompilationParticipant {
+  /**
+   * Files are processed in parallel only if there are at least this number of them.
+   */
+  private static final int PARALLEL_THRESHOLD = 8;
+  /**
+   * Maximal number of files parsed with bindings at same time, by all participants. Each parse
+   * keeps its AST and bindings in memory, so we don't use all processors of big machine.
+   */
+  private static final int MAX_PARSE_THREADS =
+      Math.min(4, Runtime.getRuntime().availableProcessors());
+  private static ExecutorService m_parseExecutor;
   private final String m_markerID;
 
   ////////////////////////////////////////////////////////////////////////////
@@ -72,17 +90,38 @@ public abstract class AbstractCompilationParticipant extends CompilationParticip
    * {@link Exception}.
    */
   private void processAnnotationsEx(BuildContext[] contexts) throws Exception {
-    // prepare resources and markers
-    final List<IFile> resources = Lists.newArrayList();
-    final List<MarkerInfo> newMarkers = Lists.newArrayList();
+    List<IFile> resources = Lists.newArrayList();
     for (BuildContext context : contexts) {
-      IFile file = context.getFile();
-      // prepare AST unit for this file
-      ICompilationUnit modelUnit = JavaCore.createCompilationUnitFrom(file);
-      CompilationUnit astUnit = Utils.parseUnit(modelUnit);
-      // add resources and markers
-      resources.add(file);
-      addMarkers(newMarkers, file, modelUnit, astUnit);
+      resources.add(context.getFile());
+    }
+    processFiles(resources);
+  }
+
+  /**
+   * Validates given {@link IFile}'s outside of build, i.e. without compiling them. For example when
+   * *.gwt.xml file was changed, so validity of existing sources may be changed.
+   */
+  public void validate(List<IFile> files) throws Exception {
+    processFiles(files);
+  }
+
+  /**
+   * Replaces markers of given {@link IFile}'s with new ones.
+   */
+  private void processFiles(final List<IFile> resources) throws Exception {
+    final List<MarkerInfo> newMarkers =
+        Collections.synchronizedList(Lists.<MarkerInfo>newArrayList());
+    beginBatch();
+    try {
+      if (resources.size() < PARALLEL_THRESHOLD || MAX_PARSE_THREADS < 2) {
+        for (IFile file : resources) {
+          processFile(newMarkers, file);
+        }
+      } else {
+        processFilesParallel(newMarkers, resources);
+      }
+    } finally {
+      endBatch();
     }
     // delete markers from resources and add new markers
     {
@@ -102,11 +141,89 @@ public abstract class AbstractCompilationParticipant extends CompilationParticip
     }
   }
 
+  /**
+   * Parses given {@link IFile} and adds markers for it.
+   */
+  private void processFile(List<MarkerInfo> newMarkers, IFile file) throws Exception {
+    ICompilationUnit modelUnit = JavaCore.createCompilationUnitFrom(file);
+    CompilationUnit astUnit = Utils.parseUnit(modelUnit);
+    addMarkers(newMarkers, file, modelUnit, astUnit);
+  }
+
+  /**
+   * Processes given {@link IFile}'s using shared parse threads.
+   */
+  private void processFilesParallel(final List<MarkerInfo> newMarkers, List<IFile> files)
+      throws Exception {
+    ExecutorService executor = getParseExecutor();
+    List<Future<?>> futures = Lists.newArrayList();
+    try {
+      for (final IFile file : files) {
+        futures.add(executor.submit(new Callable<Object>() {
+          public Object call() throws Exception {
+            processFile(newMarkers, file);
+            return null;
+          }
+        }));
+      }
+      // wait for all files
+      for (Future<?> future : futures) {
+        try {
+          future.get();
+        } catch (ExecutionException e) {
+          Throwable cause = e.getCause();
+          throw cause instanceof Exception ? (Exception) cause : e;
+        }
+      }
+    } finally {
+      // if failed, don't parse remaining files
+      for (Future<?> future : futures) {
+        future.cancel(false);
+      }
+    }
+  }
+
+  /**
+   * @return the {@link ExecutorService} shared by all participants, so threads are not created
+   *         for each build, and number of concurrent parses is limited.
+   */
+  private static synchronized ExecutorService getParseExecutor() {
+    if (m_parseExecutor == null) {
+      m_parseExecutor = Executors.newFixedThreadPool(MAX_PARSE_THREADS, new ThreadFactory() {
+        public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable, "GWT Designer compilation participant");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    }
+    return m_parseExecutor;
+  }
+
   ////////////////////////////////////////////////////////////////////////////
   //
   // Compiling
   //
   ////////////////////////////////////////////////////////////////////////////
+  /**
+   * Notifies that processing of {@link BuildContext}'s is going to start, so any caches for them
+   * can be prepared.
+   */
+  protected void beginBatch() throws Exception {
+  }
+
+  /**
+   * Notifies that processing of {@link BuildContext}'s is done, so any caches can be released.
+   */
+  protected void endBatch() throws Exception {
+  }
+
+  /**
+   * Adds {@link MarkerInfo}'s for single file.
+   * <p>
+   * May be invoked concurrently from several threads, between {@link #beginBatch()} and
+   * {@link #endBatch()}.
+   */
   protected abstract void addMarkers(List<MarkerInfo> newMarkers,
       IFile file,
       ICompilationUnit modelUnit,
@@ -15,7 +15,7 @@
 package com.google.gdt.eclipse.designer.builders.participant;
 
 import com.google.common.collect.Lists;
-import com.google.common.collect.Sets;
+import com.google.common.collect.Maps;
 import com.google.gdt.eclipse.designer.Activator;
 import com.google.gdt.eclipse.designer.common.Constants;
 import com.google.gdt.eclipse.designer.model.module.ModuleElement;
@@ -30,6 +30,7 @@ import org.eclipse.wb.internal.core.utils.execution.ExecutionUtils;
 import org.eclipse.wb.internal.core.utils.execution.RunnableEx;
 import org.eclipse.wb.internal.core.utils.jdt.core.CodeUtils;
 
+import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IResource;
@@ -60,7 +61,8 @@ import org.apache.commons.lang.StringUtils;
 
 import java.io.InputStream;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Compilation participant that check that all imported packages are "source" packages of some
@@ -78,6 +80,7 @@ public final class MyCompilationParticipant extends AbstractCompilationParticipa
   public static boolean WIZARD_PLUGIN_PRESENT =
       Platform.getBundle("com.google.gdt.eclipse.designer.wizards") != null;
   public static final String MARKER_ID = "com.google.gdt.eclipse.designer.problem";
+  private volatile BuildBatch m_batch;
 
   ////////////////////////////////////////////////////////////////////////////
   //
@@ -108,6 +111,20 @@ public final class MyCompilationParticipant extends AbstractCompilationParticipa
   // Compiling
   //
   ////////////////////////////////////////////////////////////////////////////
+  @Override
+  protected void beginBatch() throws Exception {
+    m_batch = new BuildBatch();
+  }
+
+  @Override
+  protected void endBatch() throws Exception {
+    BuildBatch batch = m_batch;
+    m_batch = null;
+    if (batch != null) {
+      batch.dispose();
+    }
+  }
+
   @Override
   protected void addMarkers(List<MarkerInfo> newMarkers,
       IFile file,
@@ -120,14 +137,15 @@ public final class MyCompilationParticipant extends AbstractCompilationParticipa
         return;
       }
     }
+    BuildBatch batch = m_batch;
     // check if unit is in source package
-    if (!Utils.isModuleSourcePackage((IPackageFragment) modelUnit.getParent())) {
+    if (!batch.isModuleSourcePackage((IPackageFragment) modelUnit.getParent())) {
       return;
     }
     //
     {
-      ModuleDescription moduleDescription = Utils.getSingleModule(file);
-      if (moduleDescription != null) {
+      ModuleChecker moduleChecker = batch.getModuleChecker(file);
+      if (moduleChecker != null) {
         // prepare document
         IDocument document;
         {
@@ -135,18 +153,7 @@ public final class MyCompilationParticipant extends AbstractCompilationParticipa
           document = new Document(contents);
         }
         // add error markers for not imported types
-        IResourcesProvider resourcesProvider = moduleDescription.getResourcesProvider();
-        try {
-          addMarkers_notImportedTypes(
-              newMarkers,
-              resourcesProvider,
-              moduleDescription,
-              astUnit,
-              file,
-              document);
-        } finally {
-          resourcesProvider.dispose();
-        }
+        addMarkers_notImportedTypes(newMarkers, moduleChecker, astUnit, file, document);
       }
     }
   }
@@ -155,26 +162,13 @@ public final class MyCompilationParticipant extends AbstractCompilationParticipa
    * Adds error markers for types that are not visible in inherited "source" packages.
    */
   private void addMarkers_notImportedTypes(final List<MarkerInfo> newMarkers,
-      final IResourcesProvider resourcesProvider,
-      ModuleDescription moduleDescription,
+      final ModuleChecker moduleChecker,
       CompilationUnit astUnit,
       final IFile file,
       final IDocument document) throws Exception {
     final IJavaProject javaProject = JavaCore.create(file.getProject());
-    // prepare list of source packages
-    final List<SourcePackageDescriptor> sourcePackages = Lists.newArrayList();
-    ModuleVisitor.accept(moduleDescription, new ModuleVisitor() {
-      @Override
-      public void visitSourcePackage(ModuleElement module, String packageName, boolean superSource)
-          throws Exception {
-        sourcePackages.add(new SourcePackageDescriptor(packageName, superSource));
-      }
-    });
     // validate all types in CompilationUnit
     astUnit.accept(new ASTVisitor() {
-      private final Set<String> m_validClasses = Sets.newTreeSet();
-      private final Set<String> m_invalidClasses = Sets.newTreeSet();
-
       @Override
       public boolean visit(SingleMemberAnnotation node) {
         return false;
@@ -226,61 +220,10 @@ public final class MyCompilationParticipant extends AbstractCompilationParticipa
           }
           // check this type
           String typeName = AstNodeUtils.getFullyQualifiedName(typeBinding, true);
-          if (isSecondarySourceType(typeName)) {
-            return;
+          if (!moduleChecker.isValidType(javaProject, typeName)) {
+            markAsInvalid(node, typeName);
           }
-          checkClass(node, typeName);
-        }
-      }
-
-      private boolean isSecondarySourceType(String typeName) throws Exception {
-        // usually secondary type can not be found using this way
-        IType type = javaProject.findType(typeName);
-        if (type == null) {
-          return true;
-        }
-        // "secondary source type" has compilation unit
-        ICompilationUnit compilationUnit = type.getCompilationUnit();
-        if (compilationUnit == null) {
-          return false;
         }
-        // check if type name in same as unit name
-        String unitName = compilationUnit.getElementName();
-        unitName = StringUtils.removeEnd(unitName, ".java");
-        return !typeName.endsWith("." + unitName);
-      }
-
-      /**
-       * Check that class with given name is defined in this or inherited module.
-       */
-      private void checkClass(ASTNode node, String className) throws Exception {
-        if (!isValid(className)) {
-          markAsInvalid(node, className);
-        }
-      }
-
-      /**
-       * @return <code>true</code> if given class is valid.
-       */
-      private boolean isValid(String className) {
-        // check cached valid classes
-        if (m_validClasses.contains(className)) {
-          return true;
-        }
-        // check cached invalid classes
-        if (m_invalidClasses.contains(className)) {
-          return false;
-        }
-        // no information in caches, do checks 
-        for (SourcePackageDescriptor sourcePackageDescriptor : sourcePackages) {
-          if (sourcePackageDescriptor.isValidClass(resourcesProvider, className)) {
-            m_validClasses.add(className);
-            return true;
-          }
-        }
-        // mark as invalid
-        m_invalidClasses.add(className);
-        return false;
       }
 
       private void markAsInvalid(ASTNode node, String className) throws Exception {
@@ -290,7 +233,7 @@ public final class MyCompilationParticipant extends AbstractCompilationParticipa
                 + "Check the inheritance chain from your module; "
                 + "it may not be inheriting a required module or a module "
                 + "may not be adding its source path entries properly.";
-        String moduleNameToImport = getEnclosingModule(resourcesProvider, className);
+        String moduleNameToImport = moduleChecker.getEnclosingModule(className);
         newMarkers.add(createMarkerInfo_importModule(
             file,
             document,
@@ -302,6 +245,28 @@ public final class MyCompilationParticipant extends AbstractCompilationParticipa
     });
   }
 
+  /**
+   * @return <code>true</code> if type with given name is secondary type, i.e. not main type of its
+   *         compilation unit, so can not be found as source.
+   */
+  private static boolean isSecondarySourceType(IJavaProject javaProject, String typeName)
+      throws Exception {
+    // usually secondary type can not be found using this way
+    IType type = javaProject.findType(typeName);
+    if (type == null) {
+      return true;
+    }
+    // "secondary source type" has compilation unit
+    ICompilationUnit compilationUnit = type.getCompilationUnit();
+    if (compilationUnit == null) {
+      return false;
+    }
+    // check if type name in same as unit name
+    String unitName = compilationUnit.getElementName();
+    unitName = StringUtils.removeEnd(unitName, ".java");
+    return !typeName.endsWith("." + unitName);
+  }
+
   /**
    * @return the name of GWT module that contains given class, may be <code>null</code>.
    */
@@ -338,6 +303,150 @@ public final class MyCompilationParticipant extends AbstractCompilationParticipa
         moduleNameToImport);
   }
 
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Build batch
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  /**
+   * Information shared between all files processed in single build batch.
+   */
+  private static final class BuildBatch {
+    private final Map<IPackageFragment, Boolean> m_sourcePackages = Maps.newHashMap();
+    private final Map<IContainer, ModuleChecker> m_folderCheckers = Maps.newHashMap();
+    private final Map<String, ModuleChecker> m_moduleCheckers = Maps.newHashMap();
+
+    /**
+     * @return <code>true</code> if given {@link IPackageFragment} is "source" package of some GWT
+     *         module.
+     */
+    public synchronized boolean isModuleSourcePackage(IPackageFragment packageFragment)
+        throws Exception {
+      Boolean result = m_sourcePackages.get(packageFragment);
+      if (result == null) {
+        result = Utils.isModuleSourcePackage(packageFragment);
+        m_sourcePackages.put(packageFragment, result);
+      }
+      return result;
+    }
+
+    /**
+     * @return the {@link ModuleChecker} for module of given {@link IFile}, may be
+     *         <code>null</code> if file is not in module.
+     */
+    public synchronized ModuleChecker getModuleChecker(IFile file) throws Exception {
+      IContainer folder = file.getParent();
+      if (m_folderCheckers.containsKey(folder)) {
+        return m_folderCheckers.get(folder);
+      }
+      // prepare checker for module
+      ModuleChecker moduleChecker = null;
+      ModuleDescription moduleDescription = Utils.getSingleModule(file);
+      if (moduleDescription != null) {
+        String key = moduleDescription.getProject().getName() + "|" + moduleDescription.getId();
+        moduleChecker = m_moduleCheckers.get(key);
+        if (moduleChecker == null) {
+          moduleChecker = new ModuleChecker(moduleDescription);
+          m_moduleCheckers.put(key, moduleChecker);
+        }
+      }
+      // remember for folder
+      m_folderCheckers.put(folder, moduleChecker);
+      return moduleChecker;
+    }
+
+    /**
+     * Releases resources of all {@link ModuleChecker}'s.
+     */
+    public synchronized void dispose() {
+      for (ModuleChecker moduleChecker : m_moduleCheckers.values()) {
+        moduleChecker.dispose();
+      }
+    }
+  }
+
+  /**
+   * Checker for visibility of types in single module, with "source" packages and results cached.
+   */
+  private static final class ModuleChecker {
+    private final IResourcesProvider m_resourcesProvider;
+    private final List<SourcePackageDescriptor> m_sourcePackages = Lists.newArrayList();
+    private final Map<String, Boolean> m_validTypes = new ConcurrentHashMap<String, Boolean>();
+    private final Map<String, String> m_enclosingModules = Maps.newHashMap();
+
+    ////////////////////////////////////////////////////////////////////////////
+    //
+    // Constructor
+    //
+    ////////////////////////////////////////////////////////////////////////////
+    public ModuleChecker(ModuleDescription moduleDescription) throws Exception {
+      m_resourcesProvider = moduleDescription.getResourcesProvider();
+      try {
+        ModuleVisitor.accept(moduleDescription, new ModuleVisitor() {
+          @Override
+          public void visitSourcePackage(ModuleElement module,
+              String packageName,
+              boolean superSource) throws Exception {
+            m_sourcePackages.add(new SourcePackageDescriptor(packageName, superSource));
+          }
+        });
+      } catch (Exception e) {
+        m_resourcesProvider.dispose();
+        throw e;
+      }
+    }
+
+    ////////////////////////////////////////////////////////////////////////////
+    //
+    // Access
+    //
+    ////////////////////////////////////////////////////////////////////////////
+    /**
+     * @return <code>true</code> if type with given name is visible in module.
+     */
+    public boolean isValidType(IJavaProject javaProject, String typeName) throws Exception {
+      Boolean valid = m_validTypes.get(typeName);
+      if (valid == null) {
+        valid = isSecondarySourceType(javaProject, typeName) || isValidClass(typeName);
+        m_validTypes.put(typeName, valid);
+      }
+      return valid;
+    }
+
+    /**
+     * @return the name of GWT module that contains given class, may be <code>null</code>.
+     */
+    public synchronized String getEnclosingModule(String className) throws Exception {
+      if (!m_enclosingModules.containsKey(className)) {
+        String moduleName =
+            MyCompilationParticipant.getEnclosingModule(m_resourcesProvider, className);
+        m_enclosingModules.put(className, moduleName);
+      }
+      return m_enclosingModules.get(className);
+    }
+
+    public void dispose() {
+      m_resourcesProvider.dispose();
+    }
+
+    ////////////////////////////////////////////////////////////////////////////
+    //
+    // Implementation
+    //
+    ////////////////////////////////////////////////////////////////////////////
+    /**
+     * @return <code>true</code> if class with given name is defined in this or inherited module.
+     */
+    private boolean isValidClass(String className) {
+      for (SourcePackageDescriptor sourcePackageDescriptor : m_sourcePackages) {
+        if (sourcePackageDescriptor.isValidClass(m_resourcesProvider, className)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
   ////////////////////////////////////////////////////////////////////////////
   //
   // Source package
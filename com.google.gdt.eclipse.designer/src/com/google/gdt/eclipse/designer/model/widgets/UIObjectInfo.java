@@ -14,6 +14,7 @@
  *******************************************************************************/
 package com.google.gdt.eclipse.designer.model.widgets;
 
+import com.google.common.collect.Lists;
 import com.google.gdt.eclipse.designer.model.widgets.support.DOMUtils;
 import com.google.gdt.eclipse.designer.model.widgets.support.GwtState;
 import com.google.gdt.eclipse.designer.model.widgets.support.UIObjectUtils;
@@ -289,7 +290,23 @@ public class UIObjectInfo extends AbstractComponentInfo implements IUIObjectInfo
     // prepare image
     if (isRoot()) {
       fetchImage(element);
+      // fetch layout of all elements at once
+      GwtState state = getState();
+      state.beginLayoutSnapshot(getLayoutElements());
+      try {
+        refresh_fetch0();
+      } finally {
+        state.endLayoutSnapshot();
+      }
+    } else {
+      refresh_fetch0();
     }
+  }
+
+  /**
+   * Fetches bounds and spacing of this {@link UIObjectInfo} and continues for children.
+   */
+  private void refresh_fetch0() throws Exception {
     // prepare parent-relative bounds
     {
       Rectangle parentBounds = new Rectangle(m_absoluteBounds);
@@ -319,6 +336,35 @@ public class UIObjectInfo extends AbstractComponentInfo implements IUIObjectInfo
     super.refresh_fetch();
   }
 
+  /**
+   * @return the elements of this {@link UIObjectInfo} and all its {@link UIObjectInfo} children, to
+   *         fetch their layout at once.
+   */
+  private List<Object> getLayoutElements() {
+    List<Object> elements = Lists.newArrayList();
+    addLayoutElements(elements);
+    return elements;
+  }
+
+  /**
+   * Adds elements of this {@link UIObjectInfo} and its children, which layout can be fetched before
+   * {@link #refresh_fetch()}. Subclasses which change DOM during {@link #refresh_fetch()}, for
+   * example show popups, should not add affected elements.
+   */
+  protected void addLayoutElements(List<Object> elements) {
+    Object element = ExecutionUtils.runObjectIgnore(new RunnableObjectEx<Object>() {
+      public Object runObject() throws Exception {
+        return getElement();
+      }
+    }, null);
+    if (element != null) {
+      elements.add(element);
+    }
+    for (UIObjectInfo child : getChildren(UIObjectInfo.class)) {
+      child.addLayoutElements(elements);
+    }
+  }
+
   protected void fetchBounds(Object element) throws Exception {
     m_absoluteBounds = fetchAbsoluteBounds(element);
     {
@@ -373,8 +419,13 @@ public class UIObjectInfo extends AbstractComponentInfo implements IUIObjectInfo
       imageBounds = imageBounds.getTranslated(2, 2);
     }
     // set image
-    Image objectImage = UiUtils.getCroppedImage(browserScreenshot, imageBounds.getSwtRectangle());
-    setImage(objectImage);
+    try {
+      Image objectImage =
+          UiUtils.getCroppedImage(browserScreenshot, imageBounds.getSwtRectangle());
+      setImage(objectImage);
+    } finally {
+      browserScreenshot.dispose();
+    }
   }
 
   /**
@@ -0,0 +1,171 @@
+/*******************************************************************************
+ * Copyright 2011 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.designer.model.widgets.live;
+
+import com.google.gdt.eclipse.designer.Activator;
+import com.google.gdt.eclipse.designer.util.Utils;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.ImageLoader;
+
+import org.apache.commons.io.IOUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+
+/**
+ * Persistent cache of {@link GwtLiveCacheEntry}s, so "live" images of palette components are not
+ * rendered again in each Eclipse session.
+ * <p>
+ * Entry is stored as PNG image with "should set size" flag, in file with name based on hash of
+ * key. Key should include everything which affects rendering, such as component class, GWT
+ * version, CSS and browser, so changed inputs mean just new key, without explicit invalidation.
+ * Entries which were not used for long time are removed.
+ *
+ * @author scheglov_ke
+ * @coverage gwt.model
+ */
+public final class GwtLiveDiskCache {
+  private static final String CACHE_DIR_NAME = "liveCache";
+  private static final int VERSION = 1;
+  /**
+   * Entries which were not used during this time are removed.
+   */
+  private static final long EXPIRE_TIME = 30L * 24 * 60 * 60 * 1000;
+  private static boolean m_expiredRemoved;
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Constructor
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  private GwtLiveDiskCache() {
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Access
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  /**
+   * @return the new {@link GwtLiveCacheEntry} for given key, or <code>null</code> if no entry on
+   *         disk. Caller should dispose returned entry.
+   */
+  public static GwtLiveCacheEntry get(String key) {
+    return load(key);
+  }
+
+  /**
+   * Stores {@link GwtLiveCacheEntry} on disk. Given entry itself is not remembered.
+   */
+  public static void put(String key, GwtLiveCacheEntry entry) {
+    Image image = entry.getImage();
+    if (image == null || image.isDisposed()) {
+      return;
+    }
+    try {
+      File file = getFile(key);
+      file.getParentFile().mkdirs();
+      DataOutputStream output =
+          new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+      try {
+        output.writeInt(VERSION);
+        output.writeUTF(key);
+        output.writeBoolean(entry.shouldSetSize());
+        ImageLoader imageLoader = new ImageLoader();
+        imageLoader.data = new ImageData[]{image.getImageData()};
+        imageLoader.save(output, SWT.IMAGE_PNG);
+      } finally {
+        IOUtils.closeQuietly(output);
+      }
+    } catch (Throwable e) {
+      // cache is optional
+    }
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Implementation
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  /**
+   * @return the {@link GwtLiveCacheEntry} loaded from disk, or <code>null</code>.
+   */
+  private static GwtLiveCacheEntry load(String key) {
+    removeExpiredEntries();
+    try {
+      File file = getFile(key);
+      if (!file.isFile()) {
+        return null;
+      }
+      DataInputStream input =
+          new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+      try {
+        // check that file is for this key, hash collision is not probable, but possible
+        if (input.readInt() != VERSION || !key.equals(input.readUTF())) {
+          return null;
+        }
+        boolean shouldSetSize = input.readBoolean();
+        ImageData[] imageData = new ImageLoader().load(input);
+        // remember that entry was used
+        file.setLastModified(System.currentTimeMillis());
+        // OK, create entry
+        GwtLiveCacheEntry entry = new GwtLiveCacheEntry();
+        entry.setImage(new Image(null, imageData[0]));
+        entry.shouldSetSize(shouldSetSize);
+        return entry;
+      } finally {
+        IOUtils.closeQuietly(input);
+      }
+    } catch (Throwable e) {
+      return null;
+    }
+  }
+
+  /**
+   * Removes entries which were not used for {@link #EXPIRE_TIME}, once in session.
+   */
+  private static void removeExpiredEntries() {
+    if (m_expiredRemoved) {
+      return;
+    }
+    m_expiredRemoved = true;
+    File[] files = getCacheDirectory().listFiles();
+    if (files != null) {
+      long expireTime = System.currentTimeMillis() - EXPIRE_TIME;
+      for (File file : files) {
+        if (file.lastModified() < expireTime) {
+          file.delete();
+        }
+      }
+    }
+  }
+
+  private static File getFile(String key) throws Exception {
+    return new File(getCacheDirectory(), Utils.getContentsHash(key) + ".live");
+  }
+
+  private static File getCacheDirectory() {
+    File stateDirectory = Activator.getDefault().getStateLocation().toFile();
+    return new File(stateDirectory, CACHE_DIR_NAME);
+  }
+}
@@ -16,7 +16,9 @@ package com.google.gdt.eclipse.designer.model.widgets.live;
 
 import com.google.gdt.eclipse.designer.model.widgets.WidgetInfo;
 import com.google.gdt.eclipse.designer.model.widgets.panels.RootPanelInfo;
+import com.google.gdt.eclipse.designer.model.widgets.support.GwtState;
 import com.google.gdt.eclipse.designer.model.widgets.support.UIObjectUtils;
+import com.google.gdt.eclipse.designer.util.Utils;
 
 import org.eclipse.wb.core.model.AbstractComponentInfo;
 import org.eclipse.wb.core.model.JavaInfo;
@@ -28,17 +30,27 @@ import org.eclipse.wb.internal.core.model.JavaInfoUtils;
 import org.eclipse.wb.internal.core.model.clipboard.ComponentInfoMemento;
 import org.eclipse.wb.internal.core.model.creation.CreationSupport;
 import org.eclipse.wb.internal.core.model.creation.ILiveCreationSupport;
+import org.eclipse.wb.internal.core.model.description.ComponentDescription;
 import org.eclipse.wb.internal.core.model.util.live.AbstractLiveManager;
 import org.eclipse.wb.internal.core.model.util.live.ILiveCacheEntry;
+import org.eclipse.wb.internal.core.utils.IOUtils2;
 import org.eclipse.wb.internal.core.utils.check.Assert;
 import org.eclipse.wb.internal.core.utils.execution.ExecutionUtils;
 import org.eclipse.wb.internal.core.utils.execution.RunnableEx;
+import org.eclipse.wb.internal.core.utils.execution.RunnableObjectEx;
 import org.eclipse.wb.internal.core.utils.ui.UiUtils;
 
+import org.eclipse.core.resources.IFile;
 import org.eclipse.swt.graphics.Image;
 
 import org.apache.commons.lang.StringUtils;
 
+import java.io.File;
+import java.net.URL;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
 /**
  * Default live components manager for GWT.
  * 
@@ -119,6 +131,13 @@ public class GwtLiveManager extends AbstractLiveManager {
     GwtLiveCacheEntry entry = new GwtLiveCacheEntry();
     entry.setImage(getWidgetImage(widget));
     entry.shouldSetSize(m_shouldSetSize);
+    // remember for next sessions
+    {
+      String key = getDiskCacheKey();
+      if (key != null) {
+        GwtLiveDiskCache.put(key, entry);
+      }
+    }
     return entry;
   }
 
@@ -286,7 +305,126 @@ public class GwtLiveManager extends AbstractLiveManager {
           false);
       return getEntry();
     }
+    // check entries of this GWT session, try disk cache only on first request
+    Map<String, GwtLiveCacheEntry> entries = ((WidgetInfo) m_component).getState().getLiveEntries();
+    String key = getMemoryCacheKey();
+    GwtLiveCacheEntry entry = entries.get(key);
+    if (entry == null && !entries.containsKey(key)) {
+      entry = loadDiskCacheEntry();
+      entries.put(key, entry);
+    }
+    if (entry != null) {
+      return entry;
+    }
     // use code parsing
     return (GwtLiveCacheEntry) getCachedEntry();
   }
+
+  /**
+   * @return the key of this component in {@link GwtState#getLiveEntries()}. It includes only inputs
+   *         which may change during GWT session, i.e. component and stamps of CSS files.
+   */
+  private String getMemoryCacheKey() {
+    ComponentDescription description = m_component.getDescription();
+    StringBuilder sb = new StringBuilder();
+    sb.append(description.getComponentClass().getName());
+    sb.append('|').append(m_component.getCreationSupport());
+    sb.append('|').append(new TreeMap<String, String>(description.getParameters()));
+    List<IFile> files = ((WidgetInfo) m_component).getState().getCssSupport().getFiles();
+    if (files != null) {
+      for (IFile file : files) {
+        sb.append('|').append(file.getModificationStamp());
+      }
+    }
+    return sb.toString();
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Disk cache
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  /**
+   * @return the {@link GwtLiveCacheEntry} rendered in one of the previous sessions, or
+   *         <code>null</code>.
+   */
+  private GwtLiveCacheEntry loadDiskCacheEntry() {
+    String key = getDiskCacheKey();
+    return key != null ? GwtLiveDiskCache.get(key) : null;
+  }
+
+  /**
+   * @return the key for {@link GwtLiveDiskCache}, or <code>null</code> if "live" properties of this
+   *         component should not be stored on disk.
+   */
+  private String getDiskCacheKey() {
+    return ExecutionUtils.runObjectIgnore(new RunnableObjectEx<String>() {
+      public String runObject() throws Exception {
+        return getDiskCacheKey0();
+      }
+    }, null);
+  }
+
+  private String getDiskCacheKey0() throws Exception {
+    // creation should be described by its text, not by identity
+    String creation = m_component.getCreationSupport().toString();
+    if (creation.contains("@")) {
+      return null;
+    }
+    // component class, with its location and modification time
+    ComponentDescription description = m_component.getDescription();
+    Class<?> componentClass = description.getComponentClass();
+    URL classURL =
+        componentClass.getClassLoader().getResource(
+            componentClass.getName().replace('.', '/') + ".class");
+    long classModified = getLastModified(classURL);
+    if (classModified == 0) {
+      return null;
+    }
+    // environment of rendering
+    GwtState state = ((WidgetInfo) m_component).getState();
+    StringBuilder sb = new StringBuilder();
+    sb.append(componentClass.getName());
+    sb.append('|').append(creation);
+    sb.append('|').append(classURL).append('|').append(classModified);
+    sb.append('|').append(new TreeMap<String, String>(description.getParameters()));
+    sb.append('|').append(state.getVersion());
+    sb.append('|').append(state.getShell().getUserAgentString());
+    sb.append('|').append(state.isStrictMode());
+    sb.append('|').append(getCssHash(state));
+    return sb.toString();
+  }
+
+  /**
+   * @return the modification time of class file or JAR file, or <code>0</code> if unknown.
+   */
+  private static long getLastModified(URL url) throws Exception {
+    if (url == null) {
+      return 0;
+    }
+    if ("jar".equals(url.getProtocol())) {
+      String path = url.getPath();
+      url = new URL(StringUtils.substringBefore(path, "!/"));
+    }
+    if ("file".equals(url.getProtocol())) {
+      return new File(url.toURI()).lastModified();
+    }
+    return 0;
+  }
+
+  /**
+   * @return the hash of CSS resources and contents of CSS files used in {@link GwtState}.
+   */
+  private static String getCssHash(GwtState state) throws Exception {
+    StringBuilder sb = new StringBuilder();
+    sb.append(state.getCssSupport().getResources());
+    List<IFile> files = state.getCssSupport().getFiles();
+    if (files != null) {
+      for (IFile file : files) {
+        sb.append('\n').append(file.getFullPath()).append('\n');
+        sb.append(IOUtils2.readString(file));
+      }
+    }
+    return Utils.getContentsHash(sb.toString());
+  }
 }
@@ -34,7 +34,6 @@ import org.eclipse.wb.internal.core.model.menu.MenuObjectInfoUtils;
 import org.eclipse.wb.internal.core.utils.IAdaptable;
 import org.eclipse.wb.internal.core.utils.ast.AstEditor;
 import org.eclipse.wb.internal.core.utils.reflect.ReflectionUtils;
-import org.eclipse.wb.internal.core.utils.ui.UiUtils;
 
 import org.eclipse.swt.graphics.Image;
 
@@ -96,6 +95,14 @@ public final class MenuBarInfo extends WidgetInfo implements IAdaptable {
     fetchVisualData();
   }
 
+  @Override
+  protected void addLayoutElements(List<Object> elements) {
+    // sub-menu is fetched from popup, shown only during refresh_fetch()
+    if (isTopLevel()) {
+      super.addLayoutElements(elements);
+    }
+  }
+
   ////////////////////////////////////////////////////////////////////////////
   //
   // State
@@ -198,8 +205,7 @@ public final class MenuBarInfo extends WidgetInfo implements IAdaptable {
     // make shot of whole browser - we don't have other way to get screen shot of menu
     List<Object> hiddenWidgets = getUIObjectUtils().hideRootPanelWidgets(popup);
     try {
-      Image browserImage = getState().getShell().createBrowserScreenshot();
-      return UiUtils.getCroppedImage(browserImage, popupBounds.getSwtRectangle());
+      return getState().createBrowserScreenshot(popupBounds);
     } finally {
       UIObjectUtils.showWidgets(hiddenWidgets);
     }
@@ -14,6 +14,7 @@
  *******************************************************************************/
 package com.google.gdt.eclipse.designer.model.widgets.support;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.gdt.eclipse.designer.Activator;
@@ -21,6 +22,7 @@ import com.google.gdt.eclipse.designer.util.DefaultModuleDescription;
 import com.google.gdt.eclipse.designer.util.ModuleDescription;
 import com.google.gdt.eclipse.designer.util.Utils;
 
+import org.eclipse.wb.internal.core.DesignerPlugin;
 import org.eclipse.wb.internal.core.utils.IOUtils2;
 import org.eclipse.wb.internal.core.utils.execution.ExecutionUtils;
 import org.eclipse.wb.internal.core.utils.execution.RunnableEx;
@@ -29,7 +31,6 @@ import org.eclipse.wb.internal.core.utils.execution.RunnableObjectEx;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.jface.text.Document;
 
-import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.StringUtils;
 
 import java.text.MessageFormat;
@@ -50,6 +51,7 @@ public final class CssSupport {
   private List<IFile> files;
   private long nextRequestId;
   private final Map<IFile, Long> filesStampMap = Maps.newHashMap();
+  private final Map<String, IFile> resourceFileMap = Maps.newHashMap();
   private final Set<String> waitRequestSet = Sets.newHashSet();
   private final Set<String> waitApplySet = Sets.newHashSet();
 
@@ -93,12 +95,15 @@ public final class CssSupport {
     ModuleDescription moduleDescription = state.getModuleDescription();
     resources = Utils.getCssResources(moduleDescription);
     if (moduleDescription instanceof DefaultModuleDescription) {
-      files =
-          Utils.getFilesForResources(
-              ((DefaultModuleDescription) moduleDescription).getFile(),
-              resources);
-      for (IFile file : files) {
-        filesStampMap.put(file, file.getModificationStamp());
+      IFile moduleFile = ((DefaultModuleDescription) moduleDescription).getFile();
+      files = Lists.newArrayList();
+      for (String resource : resources) {
+        IFile file = Utils.getFileForResource(moduleFile, resource);
+        if (file != null) {
+          files.add(file);
+          resourceFileMap.put(resource, file);
+          filesStampMap.put(file, file.getModificationStamp());
+        }
       }
     }
   }
@@ -129,48 +134,53 @@ public final class CssSupport {
   }
 
   /**
-   * @return <code>true</code> if one or more CSS files were modified (and schedules them for
-   *         reloading with next refresh).
+   * @return <code>true</code> if one or more CSS files were modified (and reloads them in
+   *         Browser).
    */
   boolean isModified() {
-    waitRequestSet.clear();
-    waitApplySet.clear();
-    boolean modified = false;
+    synchronized (waitRequestSet) {
+      waitRequestSet.clear();
+    }
+    synchronized (waitApplySet) {
+      waitApplySet.clear();
+    }
     // check CSS files
-    boolean hasModifiedCSSFiles = false;
+    Set<IFile> modifiedFiles = Sets.newHashSet();
     for (Map.Entry<IFile, Long> entry : filesStampMap.entrySet()) {
       IFile file = entry.getKey();
       long storedStamp = entry.getValue();
       long fileStamp = file.getModificationStamp();
       if (fileStamp != storedStamp) {
-        modified = true;
         filesStampMap.put(file, fileStamp);
-        hasModifiedCSSFiles = true;
+        modifiedFiles.add(file);
       }
     }
-    // schedule CSS load waiting
-    if (hasModifiedCSSFiles) {
-      synchronized (waitRequestSet) {
-        for (String resource : resources) {
-          String waitRequestName = getWaitRequestName(resource);
-          waitRequestSet.add(waitRequestName);
-        }
+    if (modifiedFiles.isEmpty()) {
+      return false;
+    }
+    // schedule CSS load waiting, only for modified resources
+    final List<String> modifiedResources = Lists.newArrayList();
+    for (String resource : resources) {
+      if (modifiedFiles.contains(resourceFileMap.get(resource))) {
+        modifiedResources.add(resource);
       }
     }
-    // if has modified CSS files, ask Browser for reload
-    if (modified) {
-      ExecutionUtils.runLog(new RunnableEx() {
-        public void run() throws Exception {
-          state.getHostModeSupport().invokeNativeVoid(
-              "__reload_css",
-              ArrayUtils.EMPTY_CLASS_ARRAY,
-              ArrayUtils.EMPTY_OBJECT_ARRAY);
-        }
-      });
-      waitFor();
+    synchronized (waitRequestSet) {
+      for (String resource : modifiedResources) {
+        waitRequestSet.add(getWaitRequestName(resource));
+      }
     }
-    // return final modification state
-    return modified;
+    // ask Browser to reload modified resources
+    ExecutionUtils.runLog(new RunnableEx() {
+      public void run() throws Exception {
+        state.getHostModeSupport().invokeNativeVoid(
+            "__reload_css",
+            new Class<?>[]{String.class},
+            new Object[]{StringUtils.join(modifiedResources, "\n")});
+      }
+    });
+    waitFor();
+    return true;
   }
 
   /**
@@ -197,28 +207,41 @@ public final class CssSupport {
    * HTML-element with fake CSS class applied, thats why its needed to dynamically generate the HTML
    * element with fake CSS class for every CSS file in project (see set CSS wait declarations in
    * constructor).
+   * <p>
+   * We don't poll, but sleep until HTTP-server wakes us up, when it receives request.
    */
   void waitFor() {
-    long startWait = System.currentTimeMillis();
-    while (true) {
-      // may be done
-      boolean done = true;
-      synchronized (waitRequestSet) {
-        done &= waitRequestSet.isEmpty();
-      }
-      synchronized (waitApplySet) {
-        done &= waitApplySet.isEmpty();
-      }
-      if (done) {
-        break;
-      }
+    long endWait = System.currentTimeMillis() + 500;
+    while (!isWaitDone()) {
       // do not wait more than 500ms
-      if (System.currentTimeMillis() - startWait > 500) {
+      long remainingWait = endWait - System.currentTimeMillis();
+      if (remainingWait <= 0) {
         break;
       }
       // wait more
-      state.runMessagesLoop();
+      state.runMessagesLoop((int) remainingWait);
+    }
+  }
+
+  /**
+   * @return <code>true</code> if all requested CSS files were loaded and applied.
+   */
+  private boolean isWaitDone() {
+    synchronized (waitRequestSet) {
+      if (!waitRequestSet.isEmpty()) {
+        return false;
+      }
     }
+    synchronized (waitApplySet) {
+      return waitApplySet.isEmpty();
+    }
+  }
+
+  /**
+   * Wakes up {@link #waitFor()}, invoked from HTTP-server thread.
+   */
+  private static void wakeWaitFor() {
+    DesignerPlugin.getStandardDisplay().wake();
   }
 
   /**
@@ -244,6 +267,7 @@ public final class CssSupport {
   byte[] getResourceWait(String publicResourcePath) {
     synchronized (waitApplySet) {
       if (waitApplySet.remove(publicResourcePath)) {
+        wakeWaitFor();
         // IE requires the content, otherwise 'image.complete' is always false.
         // This doesn't affect other browsers though, but returning some content is the right way.
         return ExecutionUtils.runObjectIgnore(new RunnableObjectEx<byte[]>() {
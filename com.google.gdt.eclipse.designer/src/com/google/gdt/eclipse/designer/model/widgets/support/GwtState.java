@@ -15,18 +15,24 @@
 package com.google.gdt.eclipse.designer.model.widgets.support;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.gdt.eclipse.designer.Activator;
 import com.google.gdt.eclipse.designer.IExceptionConstants;
 import com.google.gdt.eclipse.designer.common.Constants;
 import com.google.gdt.eclipse.designer.hosted.IBrowserShell;
 import com.google.gdt.eclipse.designer.hosted.IHostedModeSupport;
 import com.google.gdt.eclipse.designer.hosted.IHostedModeSupportFactory;
-import com.google.gdt.eclipse.designer.model.module.ModuleElement;
 import com.google.gdt.eclipse.designer.model.module.PropertyProviderElement;
+import com.google.gdt.eclipse.designer.model.widgets.live.GwtLiveCacheEntry;
+import com.google.gdt.eclipse.designer.model.widgets.live.GwtLiveDiskCache;
+import com.google.gdt.eclipse.designer.model.widgets.live.GwtLiveManager;
 import com.google.gdt.eclipse.designer.support.http.HttpServer;
 import com.google.gdt.eclipse.designer.support.http.IModuleInitializer;
-import com.google.gdt.eclipse.designer.support.http.IResourceProvider;
+import com.google.gdt.eclipse.designer.support.http.ISharedResourceProvider;
+import com.google.gdt.eclipse.designer.support.http.ISharedResourceProvider.Resource;
+import com.google.gdt.eclipse.designer.support.http.SharedResourceCache;
 import com.google.gdt.eclipse.designer.util.ModuleDescription;
+import com.google.gdt.eclipse.designer.util.ModuleGraph;
 import com.google.gdt.eclipse.designer.util.ModuleVisitor;
 import com.google.gdt.eclipse.designer.util.Utils;
 import com.google.gdt.eclipse.designer.util.resources.IResourcesProvider;
@@ -44,6 +50,7 @@ import org.eclipse.wb.internal.core.utils.execution.ExecutionUtils;
 import org.eclipse.wb.internal.core.utils.execution.RunnableEx;
 import org.eclipse.wb.internal.core.utils.external.ExternalFactoriesHelper;
 import org.eclipse.wb.internal.core.utils.reflect.ReflectionUtils;
+import org.eclipse.wb.internal.core.utils.ui.UiUtils;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jdt.core.IJavaProject;
@@ -61,7 +68,11 @@ import org.apache.commons.lang.StringUtils;
 
 import java.io.InputStream;
 import java.lang.reflect.Field;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Provides access to the GWT module, hosted mode {@link ClassLoader} and many other low level
@@ -100,6 +111,7 @@ public final class GwtState {
   private final DOMUtils m_domUtils = new DOMUtils(this);
   private final UIObjectUtils m_uiObjectUtils = new UIObjectUtils(this);
   private Object m_body;
+  private final Map<String, GwtLiveCacheEntry> m_liveEntries = Maps.newHashMap();
   ////////////////////////////////////////////////////////////////////////////
   //
   // IDevModeBridge 
@@ -259,18 +271,14 @@ public final class GwtState {
    * @return the script for assigning property values into "values" map, declared in "__start.html".
    */
   private String getPropertyProviderValuesScript() throws Exception {
-    final StringBuilder sb = new StringBuilder();
-    ModuleVisitor.accept(m_moduleDescription, new ModuleVisitor() {
-      @Override
-      public void endVisitModule(ModuleElement module) {
-        for (PropertyProviderElement provider : module.getPropertyProviderElements()) {
-          String script = provider.getScript();
-          if (script != null) {
-            sb.append("values['" + provider.getName() + "'] = function() {" + script + "} ();\n");
-          }
-        }
+    StringBuilder sb = new StringBuilder();
+    ModuleGraph moduleGraph = ModuleGraph.get(m_moduleDescription);
+    for (PropertyProviderElement provider : moduleGraph.getPropertyProviders()) {
+      String script = provider.getScript();
+      if (script != null) {
+        sb.append("values['" + provider.getName() + "'] = function() {" + script + "} ();\n");
       }
-    });
+    }
     return sb.toString();
   }
 
@@ -294,6 +302,9 @@ public final class GwtState {
   /**
    * Creates a screenshot image of Browser control. This method waits for any pending images to load
    * and CSS loading Browser operations to complete, then calls native part to create the image.
+   * <p>
+   * Returned {@link Image} has size of whole Browser control, so caller should crop required part
+   * and dispose it at once.
    */
   public Image createBrowserScreenshot() throws Exception {
     // wait for possibly updated CSS files to be applied
@@ -304,6 +315,21 @@ public final class GwtState {
     return m_shell.createBrowserScreenshot();
   }
 
+  /**
+   * Creates a screenshot image of Browser control, without waiting for images and CSS, and returns
+   * its part. Used for popups which are shown only to make screenshot.
+   * 
+   * @return the new {@link Image} with given part of Browser control, caller should dispose it.
+   */
+  public Image createBrowserScreenshot(Rectangle bounds) throws Exception {
+    Image browserScreenshot = m_shell.createBrowserScreenshot();
+    try {
+      return UiUtils.getCroppedImage(browserScreenshot, bounds.getSwtRectangle());
+    } finally {
+      browserScreenshot.dispose();
+    }
+  }
+
   /**
    * Forces an outstanding messages to be processed
    */
@@ -319,6 +345,37 @@ public final class GwtState {
     }
   }
 
+  /**
+   * Forces an outstanding messages to be processed, then sleeps until new messages or
+   * {@link Display#wake()}, but not longer than given time, and processes new messages.
+   * 
+   * @param timeout
+   *          the maximal time to sleep, in milliseconds.
+   */
+  public void runMessagesLoop(int timeout) {
+    Display display = Display.getCurrent();
+    Runnable enableEventsRunnable = disableMouseAndKeyboard();
+    Runnable wakeRunnable = new Runnable() {
+      public void run() {
+        // timer message is enough to wake up
+      }
+    };
+    try {
+      while (display.readAndDispatch()) {
+        // wait
+      }
+      display.timerExec(timeout, wakeRunnable);
+      display.sleep();
+      display.timerExec(-1, wakeRunnable);
+      while (display.readAndDispatch()) {
+        // wait
+      }
+    } catch (Throwable e) {
+    } finally {
+      enableEventsRunnable.run();
+    }
+  }
+
   /**
    * We should process messages while waiting Browser to load all images, style, etc. However this
    * means that user may perform some action, such as trying to change properties, move components,
@@ -443,6 +500,15 @@ public final class GwtState {
     return m_cssSupport;
   }
 
+  /**
+   * @return the "live" entries of components in this GWT session, by keys of components. Entry is
+   *         <code>null</code> if it is rendered and cached by {@link GwtLiveManager}, not null
+   *         entries were loaded from {@link GwtLiveDiskCache} and are disposed with session.
+   */
+  public Map<String, GwtLiveCacheEntry> getLiveEntries() {
+    return m_liveEntries;
+  }
+
   ////////////////////////////////////////////////////////////////////////////
   //
   // SWT Shell wrapping methods
@@ -576,10 +642,32 @@ public final class GwtState {
         }
       });
     }
+    // release resources
+    disposeLiveEntries();
+    synchronized (m_resourceCache) {
+      m_resourceCache.clear();
+      m_resourceCacheSize = 0;
+    }
+    if (m_resourcesProvider != null) {
+      m_resourcesProvider.dispose();
+      m_resourcesProvider = null;
+    }
     // disposed in any case
     INSTANCES.remove(this);
   }
 
+  /**
+   * Disposes "live" entries loaded from {@link GwtLiveDiskCache} for this GWT session.
+   */
+  private void disposeLiveEntries() {
+    for (GwtLiveCacheEntry entry : m_liveEntries.values()) {
+      if (entry != null) {
+        entry.dispose();
+      }
+    }
+    m_liveEntries.clear();
+  }
+
   /**
    * Disposes top level GWT <code>Window</code> class.
    */
@@ -694,6 +782,10 @@ public final class GwtState {
     if (element == null) {
       return new Rectangle();
     }
+    int layoutIndex = getLayoutIndex(element);
+    if (layoutIndex != -1) {
+      return getAbsoluteBounds(element, layoutIndex);
+    }
     Dimension size = getUIObjectSize(element);
     // for BODY we assume (0,0) as top-left
     Insets margins = getMargins(element);
@@ -733,6 +825,12 @@ public final class GwtState {
    * @return the size of given element.
    */
   private Dimension getUIObjectSize(Object element) {
+    {
+      int layoutIndex = getLayoutIndex(element);
+      if (layoutIndex != -1) {
+        return getUIObjectSize(element, layoutIndex);
+      }
+    }
     int width;
     int height;
     if (isBody(element)) {
@@ -758,6 +856,12 @@ public final class GwtState {
   }
 
   public Insets getBorders(Object element) {
+    {
+      int layoutIndex = getLayoutIndex(element);
+      if (layoutIndex != -1) {
+        return getLayoutInsets(layoutIndex + LAYOUT_BORDERS);
+      }
+    }
     int top = getBorderSideWidth(element, "top");
     int left = getBorderSideWidth(element, "left");
     int bottom = getBorderSideWidth(element, "bottom");
@@ -774,6 +878,12 @@ public final class GwtState {
   }
 
   public Insets getMargins(Object element) {
+    {
+      int layoutIndex = getLayoutIndex(element);
+      if (layoutIndex != -1) {
+        return getLayoutInsets(layoutIndex + LAYOUT_MARGINS);
+      }
+    }
     String oldDisplayStyleValue = null;
     try {
       if (isBrowserWebKit()) {
@@ -808,6 +918,12 @@ public final class GwtState {
   }
 
   public Insets getPaddings(Object element) {
+    {
+      int layoutIndex = getLayoutIndex(element);
+      if (layoutIndex != -1) {
+        return getLayoutInsets(layoutIndex + LAYOUT_PADDINGS);
+      }
+    }
     int top = getComputedStylePx(element, "padding-top");
     int left = getComputedStylePx(element, "padding-left");
     int bottom = getComputedStylePx(element, "padding-bottom");
@@ -815,6 +931,148 @@ public final class GwtState {
     return new Insets(top, left, bottom, right);
   }
 
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Layout snapshot
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  /**
+   * The number of <code>int</code> values in layout record of single element:
+   * <ul>
+   * <li>offsetWidth, offsetHeight, clientWidth, clientHeight;</li>
+   * <li>absolute left, absolute top;</li>
+   * <li>margins: top, left, bottom, right;</li>
+   * <li>borders: top, left, bottom, right;</li>
+   * <li>paddings: top, left, bottom, right.</li>
+   * </ul>
+   */
+  public static final int LAYOUT_RECORD_SIZE = 18;
+  private static final int LAYOUT_OFFSET_SIZE = 0;
+  private static final int LAYOUT_CLIENT_SIZE = 2;
+  private static final int LAYOUT_LOCATION = 4;
+  private static final int LAYOUT_MARGINS = 6;
+  private static final int LAYOUT_BORDERS = 10;
+  private static final int LAYOUT_PADDINGS = 14;
+  /**
+   * Maximum number of elements to pass into single native call.
+   */
+  private static final int LAYOUT_ELEMENTS_PER_CALL = 100;
+  private Map<Object, Integer> m_layoutIndexes;
+  private int[] m_layout;
+
+  /**
+   * Fetches layout information for all given elements, using one native call for each
+   * {@link #LAYOUT_ELEMENTS_PER_CALL} elements.
+   * 
+   * @return the packed array of {@link #LAYOUT_RECORD_SIZE} values for each element.
+   */
+  public int[] fetchLayoutSnapshot(List<?> elements) {
+    int[] layout = new int[elements.size() * LAYOUT_RECORD_SIZE];
+    Class<?> classOfElement = m_uiObjectUtils.getClassOfElement();
+    for (int begin = 0; begin < elements.size(); begin += LAYOUT_ELEMENTS_PER_CALL) {
+      int end = Math.min(begin + LAYOUT_ELEMENTS_PER_CALL, elements.size());
+      // prepare arguments
+      int count = end - begin;
+      Class<?>[] types = new Class<?>[1 + count];
+      Object[] args = new Object[1 + count];
+      types[0] = boolean.class;
+      args[0] = isBrowserWebKit();
+      for (int i = 0; i < count; i++) {
+        types[1 + i] = classOfElement;
+        args[1 + i] = elements.get(begin + i);
+      }
+      // fetch records
+      String records = m_hostModeSupport.invokeNativeString("__wbp_getLayoutSnapshot", types, args);
+      String[] values = StringUtils.split(records, ',');
+      if (values.length != count * LAYOUT_RECORD_SIZE) {
+        throw new IllegalStateException("Unexpected layout snapshot: " + records);
+      }
+      int offset = begin * LAYOUT_RECORD_SIZE;
+      for (int i = 0; i < values.length; i++) {
+        layout[offset + i] = Integer.parseInt(values[i]);
+      }
+    }
+    return layout;
+  }
+
+  /**
+   * Fetches layout information for given elements and uses it in {@link #getAbsoluteBounds(Object)},
+   * {@link #getMargins(Object)}, {@link #getBorders(Object)} and {@link #getPaddings(Object)}, until
+   * {@link #endLayoutSnapshot()}.
+   * <p>
+   * Elements are fetched all at once, instead of separate native call for each attribute and style.
+   * So, DOM should not be changed between begin/end.
+   */
+  public void beginLayoutSnapshot(List<?> elements) {
+    Map<Object, Integer> indexes = new IdentityHashMap<Object, Integer>();
+    List<Object> uniqueElements = Lists.newArrayList();
+    for (Object element : elements) {
+      if (element != null && !indexes.containsKey(element)) {
+        indexes.put(element, uniqueElements.size() * LAYOUT_RECORD_SIZE);
+        uniqueElements.add(element);
+      }
+    }
+    m_layout = fetchLayoutSnapshot(uniqueElements);
+    m_layoutIndexes = indexes;
+  }
+
+  /**
+   * Stops using layout snapshot, prepared in {@link #beginLayoutSnapshot(List)}.
+   */
+  public void endLayoutSnapshot() {
+    m_layoutIndexes = null;
+    m_layout = null;
+  }
+
+  /**
+   * @return the index of record for given element in layout snapshot, or <code>-1</code> if no
+   *         snapshot or element is not in it.
+   */
+  private int getLayoutIndex(Object element) {
+    if (m_layoutIndexes != null) {
+      Integer index = m_layoutIndexes.get(element);
+      if (index != null) {
+        return index;
+      }
+    }
+    return -1;
+  }
+
+  private Insets getLayoutInsets(int index) {
+    return new Insets(m_layout[index], m_layout[index + 1], m_layout[index + 2], m_layout[index + 3]);
+  }
+
+  /**
+   * Same as {@link #getUIObjectSize(Object)}, but uses layout snapshot.
+   */
+  private Dimension getUIObjectSize(Object element, int index) {
+    if (isBody(element) && !isBrowserExplorer()) {
+      index += LAYOUT_CLIENT_SIZE;
+    } else {
+      index += LAYOUT_OFFSET_SIZE;
+    }
+    return new Dimension(m_layout[index], m_layout[index + 1]);
+  }
+
+  /**
+   * Same as {@link #getAbsoluteBounds(Object)}, but uses layout snapshot.
+   */
+  private Rectangle getAbsoluteBounds(Object element, int index) {
+    Dimension size = getUIObjectSize(element, index);
+    Insets margins = getLayoutInsets(index + LAYOUT_MARGINS);
+    if (isBody(element)) {
+      if (isStrictMode()) {
+        Insets borders = getLayoutInsets(index + LAYOUT_BORDERS);
+        size.width += margins.getWidth() + borders.getWidth();
+        size.height += margins.getHeight() + borders.getHeight();
+      }
+      return new Rectangle(new Point(0, 0), size);
+    }
+    int x = m_layout[index + LAYOUT_LOCATION] - margins.left;
+    int y = m_layout[index + LAYOUT_LOCATION + 1] - margins.top;
+    return new Rectangle(x, y, size.width + margins.getWidth(), size.height + margins.getHeight());
+  }
+
   ////////////////////////////////////////////////////////////////////////////
   //
   // Style
@@ -871,13 +1129,18 @@ public final class GwtState {
   // RequestHandler
   //
   ////////////////////////////////////////////////////////////////////////////
-  private class ResourceProvider implements IResourceProvider {
+  private class ResourceProvider implements ISharedResourceProvider {
     /**
      * Returns public resource with given path.
      * 
      * Here "public" means resource placed in folders defined as public in module descriptors.
      */
     public byte[] getResource(String requestPath) {
+      Resource resource = getSharedResource(requestPath);
+      return resource != null ? resource.getContent() : null;
+    }
+
+    public Resource getSharedResource(String requestPath) {
       String resourcePath = StringUtils.substringBefore(requestPath, "?");
       // System.out.println(System.currentTimeMillis() + ": requestPath: " + requestPath);
       // resources from classpath
@@ -886,7 +1149,8 @@ public final class GwtState {
         if (index != -1) {
           String classpathPath = requestPath.substring(index + CLASSPATH_URL_MARKER.length());
           try {
-            return IOUtils2.readBytes(getResourcesProvider().getResourceAsStream(classpathPath));
+            InputStream is = getResourcesProvider().getResourceAsStream(classpathPath);
+            return new Resource(IOUtils2.readBytes(is), null);
           } catch (Throwable e) {
             return null;
           }
@@ -894,10 +1158,10 @@ public final class GwtState {
       }
       // HTML
       if (m_startHtmlUrl.equals(resourcePath)) {
-        return m_html.getBytes();
+        return new Resource(m_html.getBytes(), null);
       }
       // prepare "public" resource path
-      String publicResourcePath = StringUtils.removeStart(resourcePath, m_moduleBaseURL);
+      String publicResourcePath = getPublicResourcePath(requestPath);
       /*synchronized (System.out) {
       	System.out.println("publicResourcePath: " + publicResourcePath);
       	System.out.flush();
@@ -906,29 +1170,33 @@ public final class GwtState {
       {
         byte[] result = m_cssSupport.getResourceWait(publicResourcePath);
         if (result != null) {
-          return result;
+          return new Resource(result, null);
         }
       }
       // load resource
       try {
-        byte[] result = null;
+        Resource result = null;
         // load static resource
-        {
-          InputStream is = Utils.getResource(m_moduleDescription, publicResourcePath);
-          if (is != null) {
-            result = IOUtils2.readBytes(is);
-          }
-        }
+        result = getStaticResource(publicResourcePath);
         // may be generated resource
         if (result == null) {
-          result = m_hostModeSupport.getGeneratedResource(publicResourcePath);
+          byte[] content = m_hostModeSupport.getGeneratedResource(publicResourcePath);
+          if (content != null) {
+            result = new Resource(content, null);
+          }
         }
         // may be no resource
         if (result == null) {
           return null;
         }
         // if CSS resource, then include "apply wait" class
-        result = m_cssSupport.getResource(publicResourcePath, result);
+        {
+          byte[] content = m_cssSupport.getResource(publicResourcePath, result.getContent());
+          // updated content is not shared
+          if (content != result.getContent()) {
+            result = new Resource(content, null);
+          }
+        }
         // done
         //System.out.println("-----------: " + result.length);
         return result;
@@ -938,6 +1206,108 @@ public final class GwtState {
     }
   }
 
+  /**
+   * @return the path of resource relative to module base URL.
+   */
+  private String getPublicResourcePath(String requestPath) {
+    String resourcePath = StringUtils.substringBefore(requestPath, "?");
+    return StringUtils.removeStart(resourcePath, m_moduleBaseURL);
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Static resources cache
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  private static final int RESOURCE_CACHE_LIMIT = 4 * 1024 * 1024;
+  /**
+   * Cached content of static resources, least recently used first.
+   */
+  private final Map<String, CachedResource> m_resourceCache =
+      new LinkedHashMap<String, CachedResource>(16, 0.75f, true);
+  private int m_resourceCacheSize;
+
+  /**
+   * @return the content of static "public" or "web" resource, may be cached if resource was not
+   *         changed since last request. Resource in JAR has {@link SharedResourceCache.Key}.
+   */
+  private Resource getStaticResource(String publicResourcePath) throws Exception {
+    String key = Utils.getResourceKey(m_moduleDescription, publicResourcePath);
+    // resource in JAR is not changed while JAR is same, so share it with all editors
+    SharedResourceCache.Key sharedKey = createSharedResourceKey(key);
+    if (sharedKey != null) {
+      SharedResourceCache.Entry entry = SharedResourceCache.get(sharedKey);
+      if (entry == null) {
+        InputStream is = Utils.getResource(m_moduleDescription, publicResourcePath);
+        if (is == null) {
+          return null;
+        }
+        entry = SharedResourceCache.put(sharedKey, publicResourcePath, IOUtils2.readBytes(is));
+      }
+      return new Resource(entry.getContent(), sharedKey);
+    }
+    // check cache of this state
+    if (key != null) {
+      synchronized (m_resourceCache) {
+        CachedResource cachedResource = m_resourceCache.get(publicResourcePath);
+        if (cachedResource != null && cachedResource.m_key.equals(key)) {
+          return new Resource(cachedResource.m_content, null);
+        }
+      }
+    }
+    // read resource
+    InputStream is = Utils.getResource(m_moduleDescription, publicResourcePath);
+    if (is == null) {
+      return null;
+    }
+    byte[] content = IOUtils2.readBytes(is);
+    // remember in cache
+    if (key != null) {
+      synchronized (m_resourceCache) {
+        CachedResource oldResource =
+            m_resourceCache.put(publicResourcePath, new CachedResource(key, content));
+        if (oldResource != null) {
+          m_resourceCacheSize -= oldResource.m_content.length;
+        }
+        m_resourceCacheSize += content.length;
+        // evict least recently used resources
+        Iterator<CachedResource> I = m_resourceCache.values().iterator();
+        while (m_resourceCacheSize > RESOURCE_CACHE_LIMIT && I.hasNext()) {
+          m_resourceCacheSize -= I.next().m_content.length;
+          I.remove();
+        }
+      }
+    }
+    return new Resource(content, null);
+  }
+
+  /**
+   * @return the {@link SharedResourceCache.Key} for given key of resource in JAR, in form
+   *         <code>jarPath!/entryName@jarStamp</code>, or <code>null</code> if resource is not in
+   *         JAR. See {@link Utils#getResourceKey(ModuleDescription, String)}.
+   */
+  private static SharedResourceCache.Key createSharedResourceKey(String key) {
+    if (key == null || !key.contains("!/")) {
+      return null;
+    }
+    String location = StringUtils.substringBeforeLast(key, "@");
+    long jarStamp = Long.parseLong(StringUtils.substringAfterLast(key, "@"));
+    return new SharedResourceCache.Key(
+        StringUtils.substringBefore(location, "!/"),
+        StringUtils.substringAfter(location, "!/"),
+        jarStamp);
+  }
+
+  private static final class CachedResource {
+    private final String m_key;
+    private final byte[] m_content;
+
+    public CachedResource(String key, byte[] content) {
+      m_key = key;
+      m_content = content;
+    }
+  }
+
   ////////////////////////////////////////////////////////////////////////////
   //
   // IHostedModeSupportFactory
@@ -14,15 +14,24 @@
  *******************************************************************************/
 package com.google.gdt.eclipse.designer.support.http;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.Socket;
 
 /**
- * Thread class for handle client's connection
- * 
+ * Handler for client's connection. Connection is kept alive, so browser can send several requests
+ * (also pipelined) using same connection.
+ *
  * @author mitin_aa
  * @coverage gwt.http
  */
-public class HttpClient extends Thread implements IHttpConstants {
+public class HttpClient implements Runnable, IHttpConstants {
+  /**
+   * Time in milliseconds to wait for next request on idle connection.
+   */
+  private static final int KEEP_ALIVE_TIMEOUT = 30000;
   private final Socket m_socket;
   private final HttpServer m_server;
 
@@ -32,41 +41,44 @@ public class HttpClient extends Thread implements IHttpConstants {
   //
   ////////////////////////////////////////////////////////////////////////////
   /**
-   * @param group
-   *          A group for which all client handling threads will belong
-   * @param name
-   *          A thread name
    * @param server
    *          A http server object. All client's requests will be delegated to it.
    * @param socket
    *          A socket provided by accept() call of server socket
    */
-  public HttpClient(ThreadGroup group, String name, HttpServer server, Socket socket) {
-    super(group, name);
+  public HttpClient(HttpServer server, Socket socket) {
     m_server = server;
     m_socket = socket;
   }
 
   /**
-   * main thread method for handling client requests
+   * Handles client requests, until connection is closed.
    */
-  @Override
   public void run() {
     try {
       // setup socket timeout for to avoid hanging thread on blocked sockets
-      m_socket.setSoTimeout(30000);
-      // prepare responce
-      HttpResponse response = new HttpResponse(m_socket.getOutputStream());
-      {
+      m_socket.setSoTimeout(KEEP_ALIVE_TIMEOUT);
+      m_socket.setTcpNoDelay(true);
+      InputStream inputStream = new BufferedInputStream(m_socket.getInputStream());
+      OutputStream outputStream = new BufferedOutputStream(m_socket.getOutputStream());
+      boolean keepAlive = true;
+      while (keepAlive) {
         // create the request, will wait for data in ctor
-        HttpRequest request = new HttpRequest(m_socket.getInputStream());
+        HttpRequest request = new HttpRequest(inputStream);
+        long start = System.nanoTime();
+        keepAlive = request.isKeepAlive();
+        // prepare response
+        HttpResponse response = new HttpResponse(outputStream);
+        response.setHeader("connection", keepAlive ? "keep-alive" : "close");
         // delegate request handling
         if (!m_server.handleRequest(request, response)) {
           // request cant be processed
           response.sendError(HTTP_NOT_FOUND);
+        } else {
+          response.flush();
         }
+        m_server.requestDone(request, System.nanoTime() - start);
       }
-      response.flush();
     } catch (Throwable e) {
       // We ignore exceptions (such as for example "Connection reset") because browser can close
       // connection in any time. In reality we know one case when this happens:
@@ -74,6 +86,7 @@ public class HttpClient extends Thread implements IHttpConstants {
       // 2. Tree contains Image's, so browser opens connection for images;
       // 3. we finish with properties and remove Tree;
       // 4. browser detects that images are not required and closes connection.
+      // Also we get here when browser closes idle keep-alive connection.
     } finally {
       // always close the socket
       try {
@@ -82,4 +95,4 @@ public class HttpClient extends Thread implements IHttpConstants {
       }
     }
   }
-}
\ No newline at end of file
+}
@@ -14,40 +14,65 @@
  *******************************************************************************/
 package com.google.gdt.eclipse.designer.support.http;
 
+import com.google.common.collect.Maps;
+
 import org.apache.commons.lang.StringUtils;
 
-import java.io.BufferedReader;
+import java.io.EOFException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.util.Locale;
+import java.util.Map;
 
 /**
  * Class implementing very basics of HTTP requests
- * 
+ *
  * @author mitin_aa
  * @coverage gwt.http
  */
 public class HttpRequest implements IHttpConstants {
+  private final Map<String, String> m_headers = Maps.newHashMap();
   private String m_url;
+  private String m_version;
 
   ////////////////////////////////////////////////////////////////////////////
   //
   // Constructor
   //
   ////////////////////////////////////////////////////////////////////////////
+  /**
+   * Reads single request from given {@link InputStream}, so next request can be read from same
+   * {@link InputStream} later.
+   */
   public HttpRequest(InputStream inputStream) throws Exception {
-    BufferedReader inputReader = new BufferedReader(new InputStreamReader(inputStream));
     // first read and parse the first line, with waiting for data
-    String line = inputReader.readLine();
+    String line = readLine(inputStream);
+    if (line == null) {
+      throw new EOFException();
+    }
     int result = parseRequest(line);
     if (result != HTTP_OK) {
       throw new IllegalArgumentException("" + result);
     }
+    // read headers
+    while ((line = readLine(inputStream)) != null && line.length() != 0) {
+      int index = line.indexOf(':');
+      if (index != -1) {
+        String key = line.substring(0, index).trim().toLowerCase(Locale.ENGLISH);
+        String value = line.substring(index + 1).trim();
+        m_headers.put(key, value);
+      }
+    }
+    // skip body, we don't use it
+    {
+      int length = Integer.parseInt(getHeader("content-length", "0"));
+      for (int i = 0; i < length && inputStream.read() != -1; i++) {
+      }
+    }
   }
 
   /**
    * Parses request from browser.
-   * 
+   *
    * @param requestLine
    */
   private int parseRequest(String requestLine) {
@@ -60,9 +85,30 @@ public class HttpRequest implements IHttpConstants {
       return HTTP_BAD_METHOD;
     }
     m_url = items[1];
+    m_version = items.length > 2 ? items[2].toUpperCase(Locale.ENGLISH) : "HTTP/1.0";
     return HTTP_OK;
   }
 
+  /**
+   * @return the single line, without line terminator, or <code>null</code> if end of stream.
+   */
+  private static String readLine(InputStream inputStream) throws Exception {
+    StringBuilder sb = new StringBuilder();
+    while (true) {
+      int c = inputStream.read();
+      if (c == -1) {
+        return sb.length() != 0 ? sb.toString() : null;
+      }
+      if (c == '\n') {
+        break;
+      }
+      if (c != '\r') {
+        sb.append((char) c);
+      }
+    }
+    return sb.toString();
+  }
+
   ////////////////////////////////////////////////////////////////////////////
   //
   // Access
@@ -71,4 +117,23 @@ public class HttpRequest implements IHttpConstants {
   public String getUrl() {
     return m_url;
   }
+
+  /**
+   * @return the value of header with given name, or given default value.
+   */
+  public String getHeader(String key, String defaultValue) {
+    String value = m_headers.get(key.toLowerCase(Locale.ENGLISH));
+    return value != null ? value : defaultValue;
+  }
+
+  /**
+   * @return <code>true</code> if connection should be kept open after response to this request.
+   */
+  public boolean isKeepAlive() {
+    String connection = getHeader("connection", "").toLowerCase(Locale.ENGLISH);
+    if ("HTTP/1.1".equals(m_version)) {
+      return !connection.equals("close");
+    }
+    return connection.equals("keep-alive");
+  }
 }
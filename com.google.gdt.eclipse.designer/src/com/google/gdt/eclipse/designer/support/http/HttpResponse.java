@@ -30,6 +30,7 @@ public class HttpResponse implements IHttpConstants {
   private final OutputStream m_outputStream;
   private final Map<String, String> m_headers = Maps.newTreeMap();
   private final List<IResponseData> m_sendQueue = Lists.newArrayList();
+  private int m_code = HTTP_OK;
 
   ////////////////////////////////////////////////////////////////////////////
   //
@@ -103,12 +104,21 @@ public class HttpResponse implements IHttpConstants {
     m_sendQueue.clear();
   }
 
+  /**
+   * Adds status line and headers. We always send "content-length", so connection can be kept alive.
+   */
   private void prepareHeaders() {
-    if (m_headers.isEmpty()) {
-      return;
+    int length = 0;
+    for (IResponseData element : m_sendQueue) {
+      length += element.getBytes().length;
+    }
+    // "304 Not Modified" has no body, so no length
+    if (m_code != HTTP_NOT_MODIFIED) {
+      m_headers.put("content-length", Integer.toString(length));
     }
+    //
     StringBuffer sb = new StringBuffer();
-    sb.append("HTTP/1.1 200 OK");
+    sb.append("HTTP/1.1 " + getStatusString(m_code));
     sb.append("\r\n");
     // send all headers
     for (Map.Entry<String, String> entry : m_headers.entrySet()) {
@@ -122,31 +132,47 @@ public class HttpResponse implements IHttpConstants {
 
   ////////////////////////////////////////////////////////////////////////////
   //
-  // Error
+  // Status
   //
   ////////////////////////////////////////////////////////////////////////////
-  public void sendError(int code) throws Exception {
-    String errorString;
+  /**
+   * Sets status code of this response, {@link #HTTP_OK} by default.
+   */
+  public void setStatus(int code) {
+    m_code = code;
+  }
+
+  private static String getStatusString(int code) {
     switch (code) {
+      case HTTP_OK :
+        return "200 OK";
       case HTTP_MOVED_PERMANENTLY :
-        errorString = "301 Moved Permanently";
-        break;
+        return "301 Moved Permanently";
+      case HTTP_NOT_MODIFIED :
+        return "304 Not Modified";
       case HTTP_BAD_REQUEST :
-        errorString = "400 Bad Request";
-        break;
+        return "400 Bad Request";
       case HTTP_NOT_FOUND :
-        errorString = "404 Not Found";
-        break;
+        return "404 Not Found";
       case HTTP_BAD_METHOD :
-        errorString = "405 Bad Method";
-        break;
+        return "405 Bad Method";
       case HTTP_LENGTH_REQUIRED :
-        errorString = "405 Bad Method";
-        break;
+        return "405 Bad Method";
       default :
-        errorString = "500 Internal Server Error";
-        break;
+        return "500 Internal Server Error";
     }
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Error
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  public void sendError(int code) throws Exception {
+    String errorString = getStatusString(code);
+    m_code = code;
+    m_sendQueue.clear();
+    setHeader("content-type", "text/html");
     print("<html><head><title>" + errorString + "</title></head>");
     print("<h1>" + errorString + "</h1>");
     print("</body></html>");
@@ -162,14 +188,14 @@ public class HttpResponse implements IHttpConstants {
     byte[] getBytes();
   }
   private final class StringResponseData implements IResponseData {
-    private final String m_data;
+    private final byte[] m_data;
 
     private StringResponseData(String data) {
-      m_data = data;
+      m_data = data.getBytes();
     }
 
     public byte[] getBytes() {
-      return m_data.getBytes();
+      return m_data;
     }
   }
   private final class ByteResponseData implements IResponseData {
@@ -14,11 +14,15 @@
  *******************************************************************************/
 package com.google.gdt.eclipse.designer.support.http;
 
-import com.google.common.collect.Maps;
-
 import org.eclipse.wb.internal.core.EnvironmentUtils;
 
+import org.apache.commons.lang.StringUtils;
+
+import java.util.Collections;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
 
 /**
  * Simple HTTP server.
@@ -26,8 +30,15 @@ import java.util.Map;
  * @author mitin_aa
  * @coverage gwt.http
  */
-public class HttpServer extends TcpServer {
-  private final Map<String, IResourceProvider> m_providers = Maps.newTreeMap();
+public class HttpServer extends TcpServer implements IHttpConstants {
+  /**
+   * Sorted map of prefixes into {@link IResourceProvider}'s. It is never modified, but replaced,
+   * so can be used without synchronization.
+   */
+  private volatile Map<String, IResourceProvider> m_providers = Collections.emptyMap();
+  private final AtomicLong m_requestCount = new AtomicLong();
+  private final AtomicLong m_requestTime = new AtomicLong();
+  private final AtomicLong m_requestTimeMax = new AtomicLong();
   private static HttpServer m_instance;
 
   ////////////////////////////////////////////////////////////////////////////
@@ -61,7 +72,7 @@ public class HttpServer extends TcpServer {
   ////////////////////////////////////////////////////////////////////////////
   @Override
   protected void clientConnected(java.net.Socket socket) {
-    new HttpClient(m_threadGroup, "http-server thread-" + m_threadCounter++, this, socket).start();
+    m_executor.execute(new HttpClient(this, socket));
   }
 
   boolean handleRequest(HttpRequest request, HttpResponse response) throws Exception {
@@ -71,39 +82,184 @@ public class HttpServer extends TcpServer {
       return false;
     }
     //
-    byte[] resource = provider.getResource(url);
+    byte[] resource;
+    SharedResourceCache.Key sharedKey = null;
+    if (provider instanceof ISharedResourceProvider) {
+      ISharedResourceProvider.Resource sharedResource =
+          ((ISharedResourceProvider) provider).getSharedResource(url);
+      if (sharedResource == null) {
+        return false;
+      }
+      resource = sharedResource.getContent();
+      sharedKey = sharedResource.getKey();
+    } else {
+      resource = provider.getResource(url);
+    }
     if (resource == null) {
       return false;
     }
     //
+    // shared resource has precomputed entity tag and may be sent compressed
+    SharedResourceCache.Entry sharedEntry = getSharedEntry(sharedKey, url, resource);
+    byte[] compressedResource = null;
+    String eTag;
+    if (sharedEntry != null) {
+      eTag = sharedEntry.getETag();
+      if (sharedEntry.getCompressedContent() != null) {
+        response.setHeader("vary", "accept-encoding");
+        if (isGzipAccepted(request)) {
+          compressedResource = sharedEntry.getCompressedContent();
+          eTag = StringUtils.removeEnd(eTag, "\"") + "-gzip\"";
+        }
+      }
+    } else {
+      eTag = getETag(resource);
+    }
+    // browser may cache resource, but should revalidate it each time
+    response.setHeader("etag", eTag);
+    response.setHeader("cache-control", "no-cache");
+    if (isMatchingETag(request.getHeader("if-none-match", null), eTag)) {
+      response.setStatus(HTTP_NOT_MODIFIED);
+      return true;
+    }
+    //
     response.setHeader("content-type", MimeTypes.getMimeType(url));
-    response.setHeader("content-length", Integer.toString(resource.length));
-    response.print(resource);
+    if (compressedResource != null) {
+      response.setHeader("content-encoding", "gzip");
+      response.print(compressedResource);
+    } else {
+      response.print(resource);
+    }
     return true;
   }
 
-  private IResourceProvider getProvider(String url) {
-    synchronized (m_providers) {
-      for (Map.Entry<String, IResourceProvider> entry : m_providers.entrySet()) {
-        String prefix = entry.getKey();
-        if (url.startsWith(prefix)) {
-          IResourceProvider provider = entry.getValue();
-          return provider;
+  /**
+   * @return the {@link SharedResourceCache.Entry} for given resource, or <code>null</code> if
+   *         resource is not shared.
+   */
+  private static SharedResourceCache.Entry getSharedEntry(SharedResourceCache.Key key,
+      String url,
+      byte[] resource) {
+    if (key == null) {
+      return null;
+    }
+    SharedResourceCache.Entry entry = SharedResourceCache.get(key);
+    // may be evicted since returned by provider, cache again
+    if (entry == null) {
+      entry = SharedResourceCache.put(key, url, resource);
+    }
+    return entry;
+  }
+
+  /**
+   * @return <code>true</code> if browser accepts "gzip" content encoding.
+   */
+  private static boolean isGzipAccepted(HttpRequest request) {
+    String acceptEncoding = request.getHeader("accept-encoding", "");
+    for (String encoding : StringUtils.split(acceptEncoding, ",")) {
+      encoding = encoding.trim();
+      if (encoding.equals("gzip") || encoding.startsWith("gzip;") && !encoding.endsWith("q=0")) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return the entity tag for given content, changes when content is changed.
+   */
+  static String getETag(byte[] resource) {
+    CRC32 crc = new CRC32();
+    crc.update(resource);
+    String hash = Long.toHexString(crc.getValue());
+    return "\"" + hash + "-" + Integer.toHexString(resource.length) + "\"";
+  }
+
+  /**
+   * @return <code>true</code> if given "If-None-Match" header value contains given entity tag.
+   */
+  private static boolean isMatchingETag(String ifNoneMatch, String eTag) {
+    if (ifNoneMatch != null) {
+      for (String tag : StringUtils.split(ifNoneMatch, ",")) {
+        tag = tag.trim();
+        if (tag.equals(eTag) || tag.equals("*")) {
+          return true;
         }
       }
     }
-    return null;
+    return false;
   }
 
-  public void addResourceProvider(String prefix, IResourceProvider handler) {
-    synchronized (m_providers) {
-      m_providers.put(prefix, handler);
+  private IResourceProvider getProvider(String url) {
+    for (Map.Entry<String, IResourceProvider> entry : m_providers.entrySet()) {
+      String prefix = entry.getKey();
+      if (url.startsWith(prefix)) {
+        IResourceProvider provider = entry.getValue();
+        return provider;
+      }
     }
+    return null;
+  }
+
+  public synchronized void addResourceProvider(String prefix, IResourceProvider handler) {
+    Map<String, IResourceProvider> providers = new TreeMap<String, IResourceProvider>(m_providers);
+    providers.put(prefix, handler);
+    m_providers = Collections.unmodifiableMap(providers);
   }
 
   public synchronized void removeResourceProvider(String prefix) {
-    synchronized (m_providers) {
-      m_providers.remove(prefix);
+    Map<String, IResourceProvider> providers = new TreeMap<String, IResourceProvider>(m_providers);
+    providers.remove(prefix);
+    m_providers = Collections.unmodifiableMap(providers);
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Statistics
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  /**
+   * Remembers that given {@link HttpRequest} was handled during given time.
+   */
+  void requestDone(HttpRequest request, long nanos) {
+    m_requestCount.incrementAndGet();
+    m_requestTime.addAndGet(nanos);
+    // update maximum
+    while (true) {
+      long max = m_requestTimeMax.get();
+      if (nanos <= max || m_requestTimeMax.compareAndSet(max, nanos)) {
+        break;
+      }
     }
   }
-}
\ No newline at end of file
+
+  /**
+   * @return the number of handled requests.
+   */
+  public long getRequestCount() {
+    return m_requestCount.get();
+  }
+
+  /**
+   * @return the total time in nanoseconds spent for handling requests.
+   */
+  public long getRequestTime() {
+    return m_requestTime.get();
+  }
+
+  /**
+   * @return the maximum time in nanoseconds spent for handling single request.
+   */
+  public long getRequestTimeMax() {
+    return m_requestTimeMax.get();
+  }
+
+  /**
+   * Resets request statistics.
+   */
+  public void resetStatistics() {
+    m_requestCount.set(0);
+    m_requestTime.set(0);
+    m_requestTimeMax.set(0);
+  }
+}
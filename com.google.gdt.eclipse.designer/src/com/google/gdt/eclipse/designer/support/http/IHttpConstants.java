@@ -21,6 +21,7 @@ package com.google.gdt.eclipse.designer.support.http;
 public interface IHttpConstants {
   int HTTP_OK = 200;
   int HTTP_MOVED_PERMANENTLY = 301;
+  int HTTP_NOT_MODIFIED = 304;
   int HTTP_BAD_REQUEST = 400;
   int HTTP_NOT_FOUND = 404;
   int HTTP_BAD_METHOD = 405;
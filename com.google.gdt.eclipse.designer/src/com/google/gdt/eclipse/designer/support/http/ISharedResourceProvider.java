@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright 2011 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.designer.support.http;
+
+/**
+ * {@link IResourceProvider} which may return resources from {@link SharedResourceCache}.
+ * 
+ * @author scheglov_ke
+ * @coverage gwt.http
+ */
+public interface ISharedResourceProvider extends IResourceProvider {
+  /**
+   * @return the {@link Resource} with content for given path and its
+   *         {@link SharedResourceCache.Key}, or <code>null</code> if there are no such resource.
+   */
+  Resource getSharedResource(String resourcePath);
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Resource
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  /**
+   * Content of resource together with its {@link SharedResourceCache.Key}, so they are consistent.
+   */
+  final class Resource {
+    private final byte[] m_content;
+    private final SharedResourceCache.Key m_key;
+
+    public Resource(byte[] content, SharedResourceCache.Key key) {
+      m_content = content;
+      m_key = key;
+    }
+
+    /**
+     * @return the content of resource.
+     */
+    public byte[] getContent() {
+      return m_content;
+    }
+
+    /**
+     * @return the {@link SharedResourceCache.Key} of content, or <code>null</code> if this content
+     *         is not shared, for example it was updated for this editor.
+     */
+    public SharedResourceCache.Key getKey() {
+      return m_key;
+    }
+  }
+}
@@ -0,0 +1,224 @@
+/*******************************************************************************
+ * Copyright 2011 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.designer.support.http;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Process-wide cache of immutable resources, such as scripts and skins of SmartClient runtime in
+ * JAR files. Resources are shared by all editors, so large runtime is read from JAR only once.
+ * <p>
+ * Resources are identified by {@link Key}: JAR path, entry name and JAR modification stamp.
+ * Compressible resources are stored also in "gzip" form, so {@link HttpServer} sends them without
+ * compressing again.
+ *
+ * @author scheglov_ke
+ * @coverage gwt.http
+ */
+public final class SharedResourceCache {
+  /**
+   * Maximal total size of cached content, including compressed one.
+   */
+  private static final int LIMIT = 32 * 1024 * 1024;
+  /**
+   * Resources smaller than this are not compressed.
+   */
+  private static final int COMPRESS_THRESHOLD = 1024;
+  private static final Map<Key, Entry> m_entries = new LinkedHashMap<Key, Entry>(64, 0.75f, true);
+  private static int m_size;
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Constructor
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  private SharedResourceCache() {
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Access
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  /**
+   * @return the cached {@link Entry} for given {@link Key}, or <code>null</code>.
+   */
+  public static synchronized Entry get(Key key) {
+    return m_entries.get(key);
+  }
+
+  /**
+   * Remembers content for given {@link Key}, compressed if needed.
+   *
+   * @param path
+   *          the path of resource, used to check if it should be compressed.
+   * @return the cached {@link Entry}, may be existing one, if it was already cached.
+   */
+  public static Entry put(Key key, String path, byte[] content) {
+    // prepare entry outside of lock, compression may take time
+    Entry entry = new Entry(content, compress(path, content));
+    synchronized (SharedResourceCache.class) {
+      Entry existingEntry = m_entries.get(key);
+      if (existingEntry != null) {
+        return existingEntry;
+      }
+      m_entries.put(key, entry);
+      m_size += entry.getSize();
+      // evict least recently used entries
+      for (Iterator<Entry> I = m_entries.values().iterator(); m_size > LIMIT && I.hasNext();) {
+        Entry oldEntry = I.next();
+        if (oldEntry != entry) {
+          I.remove();
+          m_size -= oldEntry.getSize();
+        }
+      }
+    }
+    return entry;
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Implementation
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  /**
+   * @return the "gzip" form of given content, or <code>null</code> if it should not be compressed.
+   */
+  private static byte[] compress(String path, byte[] content) {
+    if (content.length < COMPRESS_THRESHOLD || !isCompressible(path)) {
+      return null;
+    }
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream(content.length / 3);
+      GZIPOutputStream gzipStream = new GZIPOutputStream(bytes);
+      gzipStream.write(content);
+      gzipStream.close();
+      byte[] compressed = bytes.toByteArray();
+      return compressed.length < content.length ? compressed : null;
+    } catch (Throwable e) {
+      return null;
+    }
+  }
+
+  /**
+   * @return <code>true</code> if resource with given path is text, so compression makes sense.
+   */
+  private static boolean isCompressible(String path) {
+    if (path.lastIndexOf('.') == -1) {
+      return false;
+    }
+    String mimeType = MimeTypes.getMimeType(path);
+    return mimeType.startsWith("text/")
+        || mimeType.endsWith("javascript")
+        || mimeType.endsWith("xml")
+        || mimeType.endsWith("json");
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Key
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  /**
+   * Identifier of resource in JAR, content of JAR entry is not changed while JAR is not changed.
+   */
+  public static final class Key {
+    private final String m_jarPath;
+    private final String m_entryName;
+    private final long m_jarStamp;
+
+    public Key(String jarPath, String entryName, long jarStamp) {
+      m_jarPath = jarPath;
+      m_entryName = entryName;
+      m_jarStamp = jarStamp;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj == this) {
+        return true;
+      }
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) obj;
+      return m_jarStamp == key.m_jarStamp
+          && m_jarPath.equals(key.m_jarPath)
+          && m_entryName.equals(key.m_entryName);
+    }
+
+    @Override
+    public int hashCode() {
+      int hash = m_jarPath.hashCode();
+      hash = 31 * hash + m_entryName.hashCode();
+      hash = 31 * hash + (int) (m_jarStamp ^ m_jarStamp >>> 32);
+      return hash;
+    }
+
+    @Override
+    public String toString() {
+      return m_jarPath + "!/" + m_entryName + "@" + m_jarStamp;
+    }
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Entry
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  /**
+   * Cached resource with its compressed form and entity tag.
+   */
+  public static final class Entry {
+    private final byte[] m_content;
+    private final byte[] m_compressedContent;
+    private final String m_eTag;
+
+    private Entry(byte[] content, byte[] compressedContent) {
+      m_content = content;
+      m_compressedContent = compressedContent;
+      m_eTag = HttpServer.getETag(content);
+    }
+
+    /**
+     * @return the not compressed content.
+     */
+    public byte[] getContent() {
+      return m_content;
+    }
+
+    /**
+     * @return the "gzip" compressed content, or <code>null</code> if not compressed.
+     */
+    public byte[] getCompressedContent() {
+      return m_compressedContent;
+    }
+
+    /**
+     * @return the entity tag for not compressed content.
+     */
+    public String getETag() {
+      return m_eTag;
+    }
+
+    private int getSize() {
+      return m_content.length + (m_compressedContent != null ? m_compressedContent.length : 0);
+    }
+  }
+}
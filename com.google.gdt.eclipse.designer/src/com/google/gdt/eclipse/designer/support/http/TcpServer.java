@@ -19,28 +19,43 @@ import org.eclipse.wb.internal.core.DesignerPlugin;
 import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * Simple localhost TCP server managing incoming connections.
+ * <p>
+ * Connections are handled using pool of threads, so threads are reused between connections.
  * 
  * @author mitin_aa
  */
 public class TcpServer extends Thread {
   private static final String ADDRESS = "127.0.0.1";
   protected final ThreadGroup m_threadGroup;
+  protected final ExecutorService m_executor;
   protected int m_threadCounter;
+  private ServerSocket m_serverSocket;
   private boolean m_started;
   private int m_port;
-  private boolean m_quit;
+  private volatile boolean m_quit;
 
   ////////////////////////////////////////////////////////////////////////////
   //
   // Constructor
   //
   ////////////////////////////////////////////////////////////////////////////
-  public TcpServer(String name) {
+  public TcpServer(final String name) {
     super();
     m_threadGroup = new ThreadGroup(name + " group");
+    m_executor = Executors.newCachedThreadPool(new ThreadFactory() {
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(m_threadGroup, runnable, name + " thread-" + m_threadCounter++);
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+    setDaemon(true);
     start();
   }
 
@@ -55,43 +70,42 @@ public class TcpServer extends Thread {
         // create the server socket
         ServerSocket serverSocket = new ServerSocket();
         serverSocket.bind(new InetSocketAddress(ADDRESS, 0));
-        serverSocket.setSoTimeout(5000);
+        // fetch local port on which server socket bounded to
+        m_port = serverSocket.getLocalPort();
+        m_serverSocket = serverSocket;
         // notify waiting start() method about thread start
         synchronized (this) {
           m_started = true;
           notify();
         }
-        // fetch local port on which server socket bounded to
-        m_port = serverSocket.getLocalPort();
         try {
           while (isWorking()) {
-            try {
-              Socket clientSocket = serverSocket.accept();
-              // after possibly long waiting
-              if (!isWorking()) {
-                clientSocket.close();
-                break;
-              }
-              // handle client
-              clientConnected(clientSocket);
-            } catch (java.net.SocketTimeoutException e) {
+            Socket clientSocket = serverSocket.accept();
+            // after possibly long waiting
+            if (!isWorking()) {
+              clientSocket.close();
+              break;
             }
+            // handle client
+            clientConnected(clientSocket);
           }
         } finally {
           serverSocket.close();
-          serverSocket = null;
         }
       } catch (Throwable e) {
-        DesignerPlugin.log(e);
+        // closing server socket during shutdown() causes exception in accept()
+        if (!m_quit) {
+          DesignerPlugin.log(e);
+        }
       }
     } finally {
       // interrupt all threads
-      m_threadGroup.interrupt();
+      m_executor.shutdownNow();
     }
   }
 
   private boolean isWorking() {
-    return !m_quit || !isInterrupted();
+    return !m_quit && !isInterrupted();
   }
 
   @Override
@@ -111,6 +125,13 @@ public class TcpServer extends Thread {
   public synchronized void shutdown() {
     m_quit = true;
     interrupt();
+    // break blocking accept()
+    try {
+      if (m_serverSocket != null) {
+        m_serverSocket.close();
+      }
+    } catch (Throwable e) {
+    }
     try {
       join();
     } catch (InterruptedException e) {
@@ -124,4 +145,4 @@ public class TcpServer extends Thread {
   ////////////////////////////////////////////////////////////////////////////
   protected void clientConnected(Socket socket) {
   }
-}
\ No newline at end of file
+}
@@ -17,8 +17,8 @@ package com.google.gdt.eclipse.designer.util;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.google.gdt.eclipse.designer.common.Constants;
-import com.google.gdt.eclipse.designer.util.resources.DefaultResourcesProvider;
 import com.google.gdt.eclipse.designer.util.resources.IResourcesProvider;
+import com.google.gdt.eclipse.designer.util.resources.ResourcesProviderRegistry;
 
 import org.eclipse.wb.internal.core.utils.reflect.ProjectClassLoader;
 
@@ -85,6 +85,16 @@ public class DefaultModuleDescription extends ModuleDescription {
     return StringUtils.chomp(m_file.getName(), Constants.GWT_XML_EXT);
   }
 
+  @Override
+  public String getLocation() {
+    return m_file.getFullPath().toPortableString();
+  }
+
+  @Override
+  public long getModificationStamp() {
+    return m_file.getModificationStamp();
+  }
+
   @Override
   public InputStream getContents() throws Exception {
     return m_file.getContents(true);
@@ -92,7 +102,7 @@ public class DefaultModuleDescription extends ModuleDescription {
 
   @Override
   public IResourcesProvider getResourcesProvider() throws Exception {
-    return new DefaultResourcesProvider(this);
+    return ResourcesProviderRegistry.get(getJavaProject());
   }
 
   @Override
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright 2011 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.designer.util;
+
+import com.google.gdt.eclipse.designer.model.module.ModuleElement;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache for parsed {@link ModuleElement}'s.
+ * <p>
+ * Each module is identified by its ID and location, and has stamp, which changes when module file
+ * is changed. So, only last version of each module is kept. Total number of modules is limited,
+ * least recently used modules are evicted.
+ *
+ * @author scheglov_ke
+ * @coverage gwt.util
+ */
+public final class ModuleCache {
+  private static final int MAX_SIZE = 500;
+  private static final Map<String, Entry> m_entries =
+      new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        private static final long serialVersionUID = 0L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+          return size() > MAX_SIZE;
+        }
+      };
+  private static int m_hitCount;
+  private static int m_missCount;
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Constructor
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  private ModuleCache() {
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Access
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  /**
+   * @param id
+   *          the ID of module.
+   * @param location
+   *          the location of module file, for example path of file in file system or in jar.
+   * @param stamp
+   *          the modification stamp or hash of contents of module file.
+   *
+   * @return the cached {@link ModuleElement}, or <code>null</code> if module was not cached yet, or
+   *         its stamp was changed.
+   */
+  public static synchronized ModuleElement get(String id, String location, String stamp) {
+    Entry entry = m_entries.get(getKey(id, location));
+    if (entry != null && entry.stamp.equals(stamp)) {
+      m_hitCount++;
+      return entry.module;
+    }
+    m_missCount++;
+    return null;
+  }
+
+  /**
+   * Remembers {@link ModuleElement} for given ID, location and stamp. Replaces any previous version
+   * of this module.
+   */
+  public static synchronized void put(String id,
+      String location,
+      String stamp,
+      ModuleElement module) {
+    m_entries.put(getKey(id, location), new Entry(stamp, module));
+  }
+
+  /**
+   * Removes all cached modules and resets statistics.
+   */
+  public static synchronized void clear() {
+    m_entries.clear();
+    m_hitCount = 0;
+    m_missCount = 0;
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Statistics
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  /**
+   * @return the number of cached modules.
+   */
+  public static synchronized int getSize() {
+    return m_entries.size();
+  }
+
+  /**
+   * @return the number of {@link #get(String, String, String)} requests with cached result.
+   */
+  public static synchronized int getHitCount() {
+    return m_hitCount;
+  }
+
+  /**
+   * @return the number of {@link #get(String, String, String)} requests without cached result.
+   */
+  public static synchronized int getMissCount() {
+    return m_missCount;
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Implementation
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  private static String getKey(String id, String location) {
+    return id + "|" + StringUtils.defaultString(location);
+  }
+
+  /**
+   * Cached version of module.
+   */
+  private static final class Entry {
+    private final String stamp;
+    private final ModuleElement module;
+
+    public Entry(String stamp, ModuleElement module) {
+      this.stamp = stamp;
+      this.module = module;
+    }
+  }
+}
@@ -60,6 +60,21 @@ public abstract class ModuleDescription
    */
   public abstract String getSimpleName();
 
+  /**
+   * @return the location of module file, used as key for caching. May be <code>null</code> if
+   *         module has no known location, so should be read every time.
+   */
+  public String getLocation() {
+    return null;
+  }
+
+  /**
+   * @return the modification stamp of module file, changes when content of module is changed.
+   */
+  public long getModificationStamp() {
+    return 0;
+  }
+
   ////////////////////////////////////////////////////////////////////////////
   //
   // Module packages/folders access
@@ -0,0 +1,470 @@
+/*******************************************************************************
+ * Copyright 2011 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.designer.util;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.gdt.eclipse.designer.IExceptionConstants;
+import com.google.gdt.eclipse.designer.model.module.InheritsElement;
+import com.google.gdt.eclipse.designer.model.module.ModuleElement;
+import com.google.gdt.eclipse.designer.model.module.PropertyProviderElement;
+import com.google.gdt.eclipse.designer.model.module.PublicElement;
+import com.google.gdt.eclipse.designer.model.module.SourceElement;
+import com.google.gdt.eclipse.designer.model.module.SuperSourceElement;
+import com.google.gdt.eclipse.designer.util.resources.IResourcesProvider;
+import com.google.gdt.eclipse.designer.util.resources.ResourcesProviderRegistry;
+
+import org.eclipse.wb.internal.core.utils.exception.DesignerException;
+import org.eclipse.wb.internal.core.utils.jdt.core.CodeUtils;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.JavaCore;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resolved structure of GWT module and its inherited modules (recursively).
+ * <p>
+ * {@link ModuleGraph} is created once for each {@link ModuleDescription} and then reused by
+ * {@link ModuleVisitor}, so module files are not opened on each visit. Cached graphs are discarded
+ * when any module file, jar or <code>.classpath</code> in workspace is changed, or when resolved
+ * classpath of Java project is changed. Graphs of modules with problems are not cached.
+ *
+ * @author scheglov_ke
+ * @coverage gwt.util
+ */
+public final class ModuleGraph {
+  private final Node m_root;
+  private final List<ModuleElement> m_modules;
+  private final List<String> m_sourcePackages;
+  private final List<String> m_publicPackages;
+  private final List<PropertyProviderElement> m_propertyProviders;
+  private boolean m_hasProblem;
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Constructor
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  private ModuleGraph(Node root) throws Exception {
+    m_root = root;
+    // prepare lists using full visit
+    final List<ModuleElement> modules = Lists.newArrayList();
+    final List<String> sourcePackages = Lists.newArrayList();
+    final List<String> publicPackages = Lists.newArrayList();
+    final List<PropertyProviderElement> propertyProviders = Lists.newArrayList();
+    try {
+      accept(new ModuleVisitor() {
+        @Override
+        public boolean visitModule(ModuleElement module) {
+          modules.add(module);
+          return true;
+        }
+
+        @Override
+        public void endVisitModule(ModuleElement module) {
+          propertyProviders.addAll(module.getPropertyProviderElements());
+        }
+
+        @Override
+        public void visitSourcePackage(ModuleElement module,
+            String packageName,
+            boolean superSource) throws Exception {
+          sourcePackages.add(packageName);
+        }
+
+        @Override
+        public void visitPublicPackage(ModuleElement module, String packageName) throws Exception {
+          publicPackages.add(packageName);
+        }
+      });
+    } catch (DesignerException e) {
+      // graph has problem, it will be reported during visiting
+      m_hasProblem = true;
+    }
+    m_modules = Collections.unmodifiableList(modules);
+    m_sourcePackages = Collections.unmodifiableList(sourcePackages);
+    m_publicPackages = Collections.unmodifiableList(publicPackages);
+    m_propertyProviders = Collections.unmodifiableList(propertyProviders);
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Access
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  /**
+   * @return the {@link ModuleElement}'s in order of visiting.
+   */
+  public List<ModuleElement> getModules() {
+    return m_modules;
+  }
+
+  /**
+   * @return the qualified names of "source" and "super-source" packages, in order of visiting.
+   */
+  public List<String> getSourcePackages() {
+    return m_sourcePackages;
+  }
+
+  /**
+   * @return the qualified names of "public" packages, in order of visiting.
+   */
+  public List<String> getPublicPackages() {
+    return m_publicPackages;
+  }
+
+  /**
+   * @return the {@link PropertyProviderElement}'s of all modules, inherited modules first.
+   */
+  public List<PropertyProviderElement> getPropertyProviders() {
+    return m_propertyProviders;
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Visiting
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  /**
+   * Replays visiting of modules, exactly as if module files were read.
+   */
+  void accept(ModuleVisitor visitor) throws Exception {
+    accept(Sets.<String>newHashSet(), m_root, visitor);
+  }
+
+  private static void accept(Set<String> visitedModules, Node node, ModuleVisitor visitor)
+      throws Exception {
+    // check, may be we already visited this module
+    if (!visitedModules.add(node.name)) {
+      return;
+    }
+    // may be problem with module
+    if (node.module == null) {
+      throw new DesignerException(IExceptionConstants.NO_MODULE, node.name);
+    }
+    ModuleElement module = node.module;
+    // start visit module
+    if (!visitor.visitModule(module)) {
+      return;
+    }
+    for (SourcePackage sourcePackage : node.sourcePackages) {
+      visitor.visitSourcePackage(module, sourcePackage.name, sourcePackage.superSource);
+    }
+    for (String publicPackage : node.publicPackages) {
+      visitor.visitPublicPackage(module, publicPackage);
+    }
+    // inherited modules
+    for (Node inheritedNode : node.inherits) {
+      accept(visitedModules, inheritedNode, visitor);
+    }
+    if (node.inheritsNoName) {
+      throw new DesignerException(IExceptionConstants.INHERITS_NO_NAME, node.name);
+    }
+    // end visit modules
+    visitor.endVisitModule(module);
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Cache
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  private static final Map<String, ModuleGraph> m_graphs = Maps.newHashMap();
+  /**
+   * Incremented on {@link #clear()}, so graph created concurrently with clearing is not cached.
+   */
+  private static int m_generation;
+  private static IResourceChangeListener m_resourceListener;
+  private static IElementChangedListener m_javaListener;
+
+  /**
+   * @return the {@link ModuleGraph} for given {@link ModuleDescription}, existing or new one.
+   */
+  public static ModuleGraph get(ModuleDescription moduleDescription) throws Exception {
+    String key = getKey(moduleDescription);
+    // check cache
+    int generation;
+    synchronized (m_graphs) {
+      if (key != null) {
+        installListeners();
+        ModuleGraph graph = m_graphs.get(key);
+        if (graph != null) {
+          return graph;
+        }
+      }
+      generation = m_generation;
+    }
+    // create new graph
+    ModuleGraph graph = create(moduleDescription);
+    if (key != null && !graph.m_hasProblem) {
+      synchronized (m_graphs) {
+        if (m_generation == generation) {
+          m_graphs.put(key, graph);
+        }
+      }
+    }
+    return graph;
+  }
+
+  /**
+   * Discards all cached {@link ModuleGraph}'s.
+   */
+  public static void clear() {
+    synchronized (m_graphs) {
+      m_graphs.clear();
+      m_generation++;
+    }
+  }
+
+  /**
+   * Discards all cached {@link ModuleGraph}'s and stops listening for resource changes.
+   */
+  public static void dispose() {
+    synchronized (m_graphs) {
+      m_graphs.clear();
+      m_generation++;
+      if (m_resourceListener != null) {
+        ResourcesPlugin.getWorkspace().removeResourceChangeListener(m_resourceListener);
+        m_resourceListener = null;
+      }
+      if (m_javaListener != null) {
+        JavaCore.removeElementChangedListener(m_javaListener);
+        m_javaListener = null;
+      }
+    }
+  }
+
+  /**
+   * @return the key for caching {@link ModuleGraph} of given {@link ModuleDescription}, may be
+   *         <code>null</code> if it should not be cached.
+   */
+  private static String getKey(ModuleDescription moduleDescription) {
+    if (moduleDescription.getLocation() == null) {
+      return null;
+    }
+    return moduleDescription.getProject().getName() + "|" + moduleDescription.getId();
+  }
+
+  private static void installListeners() {
+    if (m_resourceListener == null) {
+      m_resourceListener = new IResourceChangeListener() {
+        public void resourceChanged(IResourceChangeEvent event) {
+          if (hasAffectingChange(event.getDelta())) {
+            clear();
+          }
+        }
+      };
+      ResourcesPlugin.getWorkspace().addResourceChangeListener(
+          m_resourceListener,
+          IResourceChangeEvent.POST_CHANGE);
+    }
+    if (m_javaListener == null) {
+      m_javaListener = new IElementChangedListener() {
+        public void elementChanged(ElementChangedEvent event) {
+          if (ResourcesProviderRegistry.hasClasspathChange(event.getDelta())) {
+            clear();
+          }
+        }
+      };
+      JavaCore.addElementChangedListener(m_javaListener, ElementChangedEvent.POST_CHANGE);
+    }
+  }
+
+  /**
+   * @return <code>true</code> if given {@link IResourceDelta} has changes of modules or classpath.
+   */
+  private static boolean hasAffectingChange(IResourceDelta delta) {
+    if (delta == null) {
+      return false;
+    }
+    final boolean[] result = new boolean[1];
+    try {
+      delta.accept(new IResourceDeltaVisitor() {
+        public boolean visit(IResourceDelta delta) throws CoreException {
+          if (result[0]) {
+            return false;
+          }
+          IResource resource = delta.getResource();
+          if (resource.getType() == IResource.FILE) {
+            String name = resource.getName();
+            result[0] =
+                name.endsWith(".gwt.xml") || name.endsWith(".jar") || name.equals(".classpath");
+          }
+          return true;
+        }
+      });
+    } catch (CoreException e) {
+      return true;
+    }
+    return result[0];
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Creation
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  /**
+   * Reads modules starting from given {@link ModuleDescription}.
+   */
+  private static ModuleGraph create(ModuleDescription moduleDescription) throws Exception {
+    IResourcesProvider resourcesProvider = moduleDescription.getResourcesProvider();
+    try {
+      Map<String, Node> nodes = Maps.newHashMap();
+      Node root = createNode(resourcesProvider, nodes, moduleDescription.getId());
+      return new ModuleGraph(root);
+    } finally {
+      resourcesProvider.dispose();
+    }
+  }
+
+  /**
+   * Creates {@link Node} for module with given name and its inherited modules (recursively).
+   */
+  private static Node createNode(IResourcesProvider resources,
+      Map<String, Node> nodes,
+      String moduleName) throws Exception {
+    // check, may be we already created this module
+    {
+      Node node = nodes.get(moduleName);
+      if (node != null) {
+        return node;
+      }
+    }
+    Node node = new Node(moduleName);
+    nodes.put(moduleName, node);
+    // prepare module
+    {
+      String moduleResourceName = moduleName.replace('.', '/') + ".gwt.xml";
+      if (resources.getResourceLocation(moduleResourceName) == null) {
+        return node;
+      }
+      node.module = Utils.readModule(moduleName, resources, moduleResourceName);
+    }
+    ModuleElement module = node.module;
+    String modulePackageName = CodeUtils.getPackage(moduleName);
+    // "source" packages
+    {
+      List<SuperSourceElement> superSourceElements = module.getSuperSourceElements();
+      List<SourceElement> sourceElements = module.getSourceElements();
+      // explicit
+      for (SuperSourceElement sourceElement : superSourceElements) {
+        node.addSourcePackage(modulePackageName, sourceElement.getPath(), true);
+      }
+      for (SourceElement sourceElement : sourceElements) {
+        node.addSourcePackage(modulePackageName, sourceElement.getPath(), false);
+      }
+      // no any source elements, use default
+      if (superSourceElements.isEmpty() && sourceElements.isEmpty()) {
+        node.addSourcePackage(modulePackageName, "client", false);
+      }
+    }
+    // "public" packages
+    {
+      List<PublicElement> publicElements = module.getPublicElements();
+      if (publicElements.isEmpty()) {
+        PublicElement defaultPublicElement = new PublicElement();
+        defaultPublicElement.setPath("public");
+        publicElements = ImmutableList.of(defaultPublicElement);
+      }
+      for (PublicElement publicElement : publicElements) {
+        String packageName = modulePackageName + "." + publicElement.getPath().replace('/', '.');
+        node.publicPackages.add(packageName);
+      }
+    }
+    // inherited modules
+    for (InheritsElement inheritsElement : module.getInheritsElements()) {
+      String inheritsName = inheritsElement.getName();
+      if (inheritsName == null) {
+        node.inheritsNoName = true;
+        break;
+      }
+      // ignore modules from gwt-dev-xxx.jar
+      if (inheritsName.startsWith("com.google.gwt.dev")) {
+        continue;
+      }
+      node.inherits.add(createNode(resources, nodes, inheritsName));
+    }
+    return node;
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Node
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  /**
+   * Single module in {@link ModuleGraph}.
+   */
+  private static final class Node {
+    private final String name;
+    private final List<SourcePackage> sourcePackages = Lists.newArrayList();
+    private final List<String> publicPackages = Lists.newArrayList();
+    private final List<Node> inherits = Lists.newArrayList();
+    private ModuleElement module;
+    private boolean inheritsNoName;
+
+    public Node(String name) {
+      this.name = name;
+    }
+
+    /**
+     * Adds single "source" package.
+     *
+     * @param pathInModule
+     *          the simple path to the "source" folder, as it is described in module file, may be
+     *          <code>null</code> if module package itself should be used as source folder
+     *          (probably only for <code>super-source</code>).
+     */
+    private void addSourcePackage(String modulePackageName,
+        String pathInModule,
+        boolean superSource) {
+      String packageName;
+      if (pathInModule == null) {
+        packageName = modulePackageName;
+      } else {
+        packageName = modulePackageName + "." + pathInModule.replace('/', '.');
+      }
+      sourcePackages.add(new SourcePackage(packageName, superSource));
+    }
+  }
+
+  /**
+   * Single "source" or "super-source" package of module.
+   */
+  private static final class SourcePackage {
+    private final String name;
+    private final boolean superSource;
+
+    public SourcePackage(String name, boolean superSource) {
+      this.name = name;
+      this.superSource = superSource;
+    }
+  }
+}
@@ -14,22 +14,11 @@
  *******************************************************************************/
 package com.google.gdt.eclipse.designer.util;
 
-import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Sets;
-import com.google.gdt.eclipse.designer.IExceptionConstants;
-import com.google.gdt.eclipse.designer.model.module.InheritsElement;
 import com.google.gdt.eclipse.designer.model.module.ModuleElement;
-import com.google.gdt.eclipse.designer.model.module.PublicElement;
-import com.google.gdt.eclipse.designer.model.module.SourceElement;
-import com.google.gdt.eclipse.designer.model.module.SuperSourceElement;
 import com.google.gdt.eclipse.designer.util.resources.IResourcesProvider;
 
-import org.eclipse.wb.internal.core.utils.check.Assert;
-import org.eclipse.wb.internal.core.utils.jdt.core.CodeUtils;
-
-import java.io.InputStream;
-import java.util.List;
-import java.util.Set;
+import org.eclipse.wb.internal.core.utils.execution.ExecutionUtils;
+import org.eclipse.wb.internal.core.utils.execution.RunnableObjectEx;
 
 /**
  * A visitor for GWT modules structure.
@@ -43,12 +32,21 @@ public abstract class ModuleVisitor {
   // ClassLoader
   //
   ////////////////////////////////////////////////////////////////////////////
+  private ModuleDescription m_moduleDescription;
   private IResourcesProvider m_resourcesProvider;
 
   /**
-   * @return the {@link IResourcesProvider} that is used for visiting modules.
+   * @return the {@link IResourcesProvider} of visited module, created on first request and disposed
+   *         when visiting is done.
    */
   public final IResourcesProvider getResourcesProvider() {
+    if (m_resourcesProvider == null) {
+      m_resourcesProvider = ExecutionUtils.runObject(new RunnableObjectEx<IResourcesProvider>() {
+        public IResourcesProvider runObject() throws Exception {
+          return m_moduleDescription.getResourcesProvider();
+        }
+      });
+    }
     return m_resourcesProvider;
   }
 
@@ -105,124 +103,21 @@ public abstract class ModuleVisitor {
   ////////////////////////////////////////////////////////////////////////////
   /**
    * Visits public folders of given module and inherited modules (recursively).
+   * <p>
+   * Modules are visited using {@link ModuleGraph}, so module files are not read if they were not
+   * changed since previous visiting.
    */
   public static void accept(ModuleDescription moduleDescription, ModuleVisitor visitor)
       throws Exception {
-    IResourcesProvider resourcesProvider = moduleDescription.getResourcesProvider();
-    visitor.m_resourcesProvider = resourcesProvider;
-    {
-      String moduleId = moduleDescription.getId();
-      accept(resourcesProvider, Sets.<String>newTreeSet(), moduleId, visitor);
-    }
-  }
-
-  /**
-   * Visit modules recursively.
-   */
-  private static void accept(IResourcesProvider resources,
-      Set<String> visitedModules,
-      String moduleName,
-      ModuleVisitor visitor) throws Exception {
-    // check that module is not from gwt-dev-xxx.jar
-    if (moduleName.startsWith("com.google.gwt.dev")) {
-      return;
-    }
-    // check, may be we already visited this module
-    if (visitedModules.contains(moduleName)) {
-      return;
-    }
-    visitedModules.add(moduleName);
-    // prepare module
-    ModuleElement module;
-    {
-      String moduleResourceName = moduleName.replace('.', '/') + ".gwt.xml";
-      // prepare stream
-      InputStream is = resources.getResourceAsStream(moduleResourceName);
-      Assert.isTrueException(is != null, IExceptionConstants.NO_MODULE, moduleName);
-      // read module
-      module = Utils.readModule(moduleName, is);
-    }
-    // start visit module
-    if (!visitor.visitModule(module)) {
-      return;
-    }
-    String modulePackageName = CodeUtils.getPackage(moduleName);
-    // visit "source" packages
-    {
-      List<SuperSourceElement> superSourceElements = module.getSuperSourceElements();
-      List<SourceElement> sourceElements = module.getSourceElements();
-      // visit explicit
-      for (SuperSourceElement sourceElement : superSourceElements) {
-        visitSourcePackage(visitor, module, modulePackageName, sourceElement.getPath(), true);
-      }
-      for (SourceElement sourceElement : sourceElements) {
-        visitSourcePackage(visitor, module, modulePackageName, sourceElement.getPath(), false);
-      }
-      // no any source elements, use default
-      if (superSourceElements.isEmpty() && sourceElements.isEmpty()) {
-        visitSourcePackage(visitor, module, modulePackageName, "client", false);
-      }
-    }
-    // visit "public" folders
-    {
-      // prepare folders
-      List<PublicElement> publicElements = module.getPublicElements();
-      if (publicElements.isEmpty()) {
-        PublicElement defaultPublicElement = new PublicElement();
-        defaultPublicElement.setPath("public");
-        publicElements = ImmutableList.of(defaultPublicElement);
-      }
-      // visit folders
-      for (PublicElement publicElement : publicElements) {
-        String packageName = modulePackageName + "." + publicElement.getPath().replace('/', '.');
-        visitor.visitPublicPackage(module, packageName);
-      }
-    }
-    // try inherited modules
-    {
-      List<InheritsElement> inheritsElements = module.getInheritsElements();
-      for (InheritsElement inheritsElement : inheritsElements) {
-        String inheritsName = inheritsElement.getName();
-        Assert.isTrueException(
-            inheritsName != null,
-            IExceptionConstants.INHERITS_NO_NAME,
-            moduleName);
-        accept(resources, visitedModules, inheritsName, visitor);
+    visitor.m_moduleDescription = moduleDescription;
+    visitor.m_resourcesProvider = null;
+    try {
+      ModuleGraph.get(moduleDescription).accept(visitor);
+    } finally {
+      if (visitor.m_resourcesProvider != null) {
+        visitor.m_resourcesProvider.dispose();
+        visitor.m_resourcesProvider = null;
       }
     }
-    // end visit modules
-    visitor.endVisitModule(module);
-  }
-
-  /**
-   * Visits single "source" package.
-   * 
-   * @param visitor
-   *          the {@link ModuleVisitor} to visit.
-   * @param module
-   *          the module that has this "source" package.
-   * @param modulePackageName
-   *          the name of package in which module is located.
-   * @param pathInModule
-   *          the simple path to the "source" folder, as it is described in module file, may be
-   *          <code>null</code> if <code>modulePackage</code> itself should be used as source folder
-   *          (probably only for <code>super-source</code>).
-   * @param superSource
-   *          is <code>true</code> if this source package comes from <code>super-source</code> tag
-   *          and <code>false</code> if from usual <code>source</code> tag.
-   */
-  private static void visitSourcePackage(ModuleVisitor visitor,
-      ModuleElement module,
-      String modulePackageName,
-      String pathInModule,
-      boolean superSource) throws Exception {
-    if (pathInModule == null) {
-      visitor.visitSourcePackage(module, modulePackageName, superSource);
-    } else {
-      visitor.visitSourcePackage(
-          module,
-          modulePackageName + "." + pathInModule.replace('/', '.'),
-          superSource);
-    }
   }
 }
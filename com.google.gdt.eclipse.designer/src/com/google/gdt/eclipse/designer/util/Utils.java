@@ -16,7 +16,6 @@ package com.google.gdt.eclipse.designer.util;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
 import com.google.gdt.eclipse.designer.Activator;
 import com.google.gdt.eclipse.designer.IExceptionConstants;
 import com.google.gdt.eclipse.designer.common.Constants;
@@ -30,9 +29,11 @@ import com.google.gdt.eclipse.designer.model.web.WebDocumentEditContext;
 import com.google.gdt.eclipse.designer.model.web.WebUtils;
 import com.google.gdt.eclipse.designer.model.web.WelcomeFileElement;
 import com.google.gdt.eclipse.designer.model.web.WelcomeFileListElement;
+import com.google.gdt.eclipse.designer.util.resources.IResourcesProvider;
 
 import org.eclipse.wb.internal.core.utils.IOUtils2;
 import org.eclipse.wb.internal.core.utils.Version;
+import org.eclipse.wb.internal.core.utils.check.Assert;
 import org.eclipse.wb.internal.core.utils.exception.DesignerException;
 import org.eclipse.wb.internal.core.utils.execution.ExecutionUtils;
 import org.eclipse.wb.internal.core.utils.execution.RunnableObjectEx;
@@ -85,10 +86,10 @@ import java.io.File;
 import java.io.InputStream;
 import java.io.Reader;
 import java.io.StringReader;
+import java.security.MessageDigest;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.jar.JarFile;
@@ -539,35 +540,94 @@ public final class Utils {
   // Module reading
   //
   ////////////////////////////////////////////////////////////////////////////
-  private static final Map<String, ModuleElement> m_readModule = Maps.newTreeMap();
-
   /**
    * Reads module definition from given {@link ModuleDescription}.
    */
   public static ModuleElement readModule(ModuleDescription moduleDescription) throws Exception {
     String id = moduleDescription.getId();
-    InputStream contents = moduleDescription.getContents();
-    return readModule(id, contents);
+    String location = moduleDescription.getLocation();
+    // no location, read contents
+    if (location == null) {
+      return readModule(id, moduleDescription.getContents());
+    }
+    // check cache
+    String stamp = Long.toString(moduleDescription.getModificationStamp());
+    ModuleElement moduleElement = ModuleCache.get(id, location, stamp);
+    if (moduleElement == null) {
+      moduleElement = parseModule(id, readModuleContents(moduleDescription.getContents()));
+      ModuleCache.put(id, location, stamp, moduleElement);
+    }
+    return moduleElement;
+  }
+
+  /**
+   * Reads module definition with given ID from {@link IResourcesProvider}.
+   * 
+   * @param resourceName
+   *          the name of module resource, such as <code>com/google/gwt/user/User.gwt.xml</code>.
+   */
+  public static ModuleElement readModule(String id,
+      IResourcesProvider resourcesProvider,
+      String resourceName) throws Exception {
+    String location = resourcesProvider.getResourceLocation(resourceName);
+    Assert.isTrueException(location != null, IExceptionConstants.NO_MODULE, id);
+    // check cache
+    String stamp = Long.toString(resourcesProvider.getResourceModificationStamp(resourceName));
+    ModuleElement moduleElement = ModuleCache.get(id, location, stamp);
+    if (moduleElement == null) {
+      InputStream inputStream = resourcesProvider.getResourceAsStream(resourceName);
+      Assert.isTrueException(inputStream != null, IExceptionConstants.NO_MODULE, id);
+      moduleElement = parseModule(id, readModuleContents(inputStream));
+      ModuleCache.put(id, location, stamp, moduleElement);
+    }
+    return moduleElement;
   }
 
   /**
    * Reads module definition from given stream.
    */
   public static ModuleElement readModule(String id, InputStream inputStream) throws Exception {
-    // read content, with correct encoding
-    String contents;
-    {
+    String contents = readModuleContents(inputStream);
+    // check cache, no location, so use hash of contents as stamp
+    String stamp = getContentsHash(contents);
+    ModuleElement moduleElement = ModuleCache.get(id, null, stamp);
+    if (moduleElement == null) {
+      moduleElement = parseModule(id, contents);
+      ModuleCache.put(id, null, stamp, moduleElement);
+    }
+    return moduleElement;
+  }
+
+  /**
+   * @return the content of module from given stream, with correct encoding.
+   */
+  private static String readModuleContents(InputStream inputStream) throws Exception {
+    try {
       Reader reader = new XmlStreamReader(inputStream);
-      contents = IOUtils2.readString(reader);
+      return IOUtils2.readString(reader);
+    } finally {
+      IOUtils.closeQuietly(inputStream);
     }
-    // check cache
-    String key = id + "|" + contents;
-    {
-      ModuleElement moduleElement = m_readModule.get(key);
-      if (moduleElement != null) {
-        return moduleElement;
-      }
+  }
+
+  /**
+   * @return the SHA-1 hash of given contents, such as module or template.
+   */
+  public static String getContentsHash(String contents) throws Exception {
+    MessageDigest digest = MessageDigest.getInstance("SHA-1");
+    byte[] hash = digest.digest(contents.getBytes("UTF-8"));
+    StringBuilder sb = new StringBuilder(hash.length * 2);
+    for (byte b : hash) {
+      sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+      sb.append(Character.forDigit(b & 0xF, 16));
     }
+    return sb.toString();
+  }
+
+  /**
+   * Parses module definition from given contents.
+   */
+  private static ModuleElement parseModule(String id, String contents) throws Exception {
     // parse using GWTDocumentHandler
     GwtDocumentHandler documentHandler = new GwtDocumentHandler();
     try {
@@ -579,9 +639,6 @@ public final class Utils {
     ModuleElement moduleElement = documentHandler.getModuleElement();
     moduleElement.setId(id);
     moduleElement.finalizeLoading();
-    // fill cache
-    m_readModule.put(key, moduleElement);
-    // done
     return moduleElement;
   }
 
@@ -740,16 +797,7 @@ public final class Utils {
   private static InputStream getResource_modulePublic(ModuleDescription moduleDescription,
       String path) throws Exception {
     // prepare "public" path
-    final String publicResourcePath;
-    {
-      ModuleElement module = readModule(moduleDescription);
-      String prefix = module.getName() + "/";
-      if (path.startsWith(prefix)) {
-        publicResourcePath = path.substring(prefix.length());
-      } else {
-        publicResourcePath = path;
-      }
-    }
+    final String publicResourcePath = getPublicResourcePath(moduleDescription, path);
     // check "public" folders
     final InputStream[] result = new InputStream[1];
     ModuleVisitor.accept(moduleDescription, new ModuleVisitor() {
@@ -764,6 +812,57 @@ public final class Utils {
     return result[0];
   }
 
+  /**
+   * @return the path of resource in "public" folder, without module name prefix.
+   */
+  private static String getPublicResourcePath(ModuleDescription moduleDescription, String path)
+      throws Exception {
+    ModuleElement module = readModule(moduleDescription);
+    String prefix = module.getName() + "/";
+    if (path.startsWith(prefix)) {
+      return path.substring(prefix.length());
+    }
+    return path;
+  }
+
+  /**
+   * Resource with same key has same content, so can be cached using this key. Resource is
+   * resolved in same way as in {@link #getResource(ModuleDescription, String)}, but not read.
+   * 
+   * @return the key of resource with given path, that includes its location and modification
+   *         stamp, or <code>null</code> if no such resource.
+   */
+  public static String getResourceKey(ModuleDescription moduleDescription, String path)
+      throws Exception {
+    // try "public" module resource
+    {
+      String publicResourcePath = getPublicResourcePath(moduleDescription, path);
+      List<String> publicPackages = ModuleGraph.get(moduleDescription).getPublicPackages();
+      IResourcesProvider resourcesProvider = moduleDescription.getResourcesProvider();
+      try {
+        for (String packageName : publicPackages) {
+          String fullResourcePath = packageName.replace('.', '/') + "/" + publicResourcePath;
+          String location = resourcesProvider.getResourceLocation(fullResourcePath);
+          if (location != null) {
+            long stamp = resourcesProvider.getResourceModificationStamp(fullResourcePath);
+            return location + "@" + stamp;
+          }
+        }
+      } finally {
+        resourcesProvider.dispose();
+      }
+    }
+    // check "web" folder
+    IProject project = moduleDescription.getProject();
+    String webFolderName = WebUtils.getWebFolderName(project);
+    IFile file = project.getFolder(new Path(webFolderName)).getFile(new Path(path));
+    if (file.exists()) {
+      return file.getFullPath() + "@" + file.getModificationStamp();
+    }
+    // no resource
+    return null;
+  }
+
   /*private static InputStream getResource_modulePublic(IFile moduleFile, String path) throws Exception {
   	ModuleElement module = readModule(moduleFile);
   	String prefix = module.getName() + "/";
@@ -15,6 +15,7 @@
 package com.google.gdt.eclipse.designer.util.resources;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.gdt.eclipse.designer.util.ModuleDescription;
 
@@ -29,7 +30,9 @@ import org.eclipse.jdt.core.JavaCore;
 
 import java.io.File;
 import java.io.InputStream;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.jar.JarFile;
 
@@ -41,6 +44,14 @@ import java.util.jar.JarFile;
  */
 public class DefaultResourcesProvider implements IResourcesProvider {
   private final List<IResourcesLoader> m_loaders = Lists.newArrayList();
+  /**
+   * Map of JAR entry path into index of first {@link JarResourcesLoader} with such entry.
+   */
+  private final Map<String, Integer> m_jarPathIndex = Maps.newHashMap();
+  /**
+   * Sorted paths of all JAR entries, for fast listing by prefix.
+   */
+  private String[] m_jarPaths;
 
   ////////////////////////////////////////////////////////////////////////////
   //
@@ -57,10 +68,14 @@ public class DefaultResourcesProvider implements IResourcesProvider {
     for (File file : files) {
       if (file.isDirectory()) {
         m_loaders.add(new DirResourcesLoader(file));
-      } else if (isJarFile(file)) {
-        m_loaders.add(new JarResourcesLoader(file));
+      } else {
+        JarFile jarFile = openJarFile(file);
+        if (jarFile != null) {
+          m_loaders.add(new JarResourcesLoader(file, jarFile));
+        }
       }
     }
+    createJarIndex();
     //System.out.println("DefaultResourcesProvider: " + (System.nanoTime() - start) / 1000000.0);
   }
 
@@ -78,11 +93,9 @@ public class DefaultResourcesProvider implements IResourcesProvider {
   public InputStream getResourceAsStream(final String path) throws Exception {
     return ExecutionUtils.runObject(new RunnableObjectEx<InputStream>() {
       public InputStream runObject() throws Exception {
-        for (IResourcesLoader loader : m_loaders) {
-          InputStream stream = loader.getResourceAsStream(path);
-          if (stream != null) {
-            return stream;
-          }
+        IResourcesLoader loader = getLoader(path);
+        if (loader != null) {
+          return loader.getResourceAsStream(path);
         }
         // not found
         return null;
@@ -90,14 +103,86 @@ public class DefaultResourcesProvider implements IResourcesProvider {
     }, "Exception during loading resource %s", path);
   }
 
+  public String getResourceLocation(String path) throws Exception {
+    IResourcesLoader loader = getLoader(path);
+    return loader != null ? loader.getResourceLocation(path) : null;
+  }
+
+  public long getResourceModificationStamp(String path) throws Exception {
+    IResourcesLoader loader = getLoader(path);
+    return loader != null ? loader.getResourceModificationStamp(path) : 0;
+  }
+
   public List<String> listFiles(String path) throws Exception {
     List<String> resources = Lists.newArrayList();
+    // directories are not indexed, ask them directly
     for (IResourcesLoader loader : m_loaders) {
-      loader.appendFiles(resources, path);
+      if (!(loader instanceof JarResourcesLoader)) {
+        loader.appendFiles(resources, path);
+      }
+    }
+    // JAR entries in subtree of "path" are continuous range in sorted array
+    int index = Arrays.binarySearch(m_jarPaths, path);
+    if (index < 0) {
+      index = -(index + 1);
+    }
+    for (; index < m_jarPaths.length && m_jarPaths[index].startsWith(path); index++) {
+      String relativePath = m_jarPaths[index].substring(path.length());
+      // normalize relative path
+      if (relativePath.startsWith("/")) {
+        relativePath = relativePath.substring(1);
+      }
+      // add relative path
+      if (relativePath.length() != 0) {
+        resources.add(relativePath);
+      }
     }
     return resources;
   }
 
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Index
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  /**
+   * Fills index of JAR entries. JAR files are not changed while they are opened, so index is
+   * created once. Directories are changed often, so they are not indexed.
+   */
+  private void createJarIndex() {
+    for (int i = 0; i < m_loaders.size(); i++) {
+      IResourcesLoader loader = m_loaders.get(i);
+      if (loader instanceof JarResourcesLoader) {
+        Integer loaderIndex = i;
+        for (String entryName : ((JarResourcesLoader) loader).getEntryNames()) {
+          if (!m_jarPathIndex.containsKey(entryName)) {
+            m_jarPathIndex.put(entryName, loaderIndex);
+          }
+        }
+      }
+    }
+    m_jarPaths = m_jarPathIndex.keySet().toArray(new String[m_jarPathIndex.size()]);
+    Arrays.sort(m_jarPaths);
+  }
+
+  /**
+   * @return the first {@link IResourcesLoader} that has resource with given path, may be
+   *         <code>null</code>.
+   */
+  private IResourcesLoader getLoader(String path) throws Exception {
+    Integer jarIndex = m_jarPathIndex.get(path);
+    int jarLoaderIndex = jarIndex != null ? jarIndex.intValue() : m_loaders.size();
+    // directory before JAR may have same resource
+    for (int i = 0; i < jarLoaderIndex; i++) {
+      IResourcesLoader loader = m_loaders.get(i);
+      if (!(loader instanceof JarResourcesLoader) && loader.getResourceLocation(path) != null) {
+        return loader;
+      }
+    }
+    // use JAR, if any
+    return jarIndex != null ? m_loaders.get(jarLoaderIndex) : null;
+  }
+
   ////////////////////////////////////////////////////////////////////////////
   //
   // Entries
@@ -170,18 +255,16 @@ public class DefaultResourcesProvider implements IResourcesProvider {
   }
 
   /**
-   * @return <code>true</code> if given {@link File} is JAR file.
+   * @return the opened {@link JarFile}, or <code>null</code> if given {@link File} is not JAR file.
    */
-  private static boolean isJarFile(File file) {
-    if (!file.exists()) {
-      return false;
+  private static JarFile openJarFile(File file) {
+    if (!file.isFile()) {
+      return null;
     }
     try {
-      JarFile jarFile = new JarFile(file);
-      jarFile.close();
-      return true;
+      return new JarFile(file);
     } catch (Throwable e) {
-      return false;
+      return null;
     }
   }
 }
@@ -14,6 +14,11 @@
  *******************************************************************************/
 package com.google.gdt.eclipse.designer.util.resources;
 
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.Path;
+
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStream;
@@ -53,6 +58,32 @@ final class DirResourcesLoader implements IResourcesLoader {
     return null;
   }
 
+  public String getResourceLocation(String path) throws Exception {
+    File resultFile = new File(m_file, path);
+    if (resultFile.isFile()) {
+      return resultFile.getAbsolutePath();
+    }
+    return null;
+  }
+
+  public long getResourceModificationStamp(String path) throws Exception {
+    File file = new File(m_file, path);
+    if (!file.isFile()) {
+      return 0;
+    }
+    // File.lastModified() has granularity up to few seconds, so use workspace stamp
+    IFile workspaceFile =
+        ResourcesPlugin.getWorkspace().getRoot().getFileForLocation(
+            new Path(file.getAbsolutePath()));
+    if (workspaceFile != null
+        && workspaceFile.exists()
+        && workspaceFile.isSynchronized(IResource.DEPTH_ZERO)) {
+      return workspaceFile.getModificationStamp();
+    }
+    // external or not synchronized file, use time and size, without reading contents
+    return 31 * file.lastModified() + file.length();
+  }
+
   ////////////////////////////////////////////////////////////////////////////
   //
   // IResourcesLoader: listing
@@ -34,6 +34,16 @@ interface IResourcesLoader {
    */
   InputStream getResourceAsStream(String path) throws Exception;
 
+  /**
+   * @return the location of resource on given path, or <code>null</code> if no such resource.
+   */
+  String getResourceLocation(String path) throws Exception;
+
+  /**
+   * @return the modification stamp of resource on given path.
+   */
+  long getResourceModificationStamp(String path) throws Exception;
+
   /**
    * Appends files located in subtree of given path, using given file as root.
    */
@@ -41,6 +41,24 @@ public interface IResourcesProvider {
    */
   InputStream getResourceAsStream(String path) throws Exception;
 
+  /**
+   * @param path
+   *          the '/' separated path.
+   * 
+   * @return the location of resource with given path, unique between all resources in file system,
+   *         or <code>null</code> if no such resource.
+   */
+  String getResourceLocation(String path) throws Exception;
+
+  /**
+   * @param path
+   *          the '/' separated path.
+   * 
+   * @return the modification stamp of resource with given path, changes when content of resource
+   *         is changed.
+   */
+  long getResourceModificationStamp(String path) throws Exception;
+
   /**
    * Returns list of files in subtree of given path.
    * 
@@ -36,6 +36,7 @@ import java.util.zip.ZipEntry;
  */
 final class JarResourcesLoader implements IResourcesLoader {
   private final JarFile m_jarFile;
+  private final long m_modificationStamp;
   private List<String> m_entryNames;
 
   ////////////////////////////////////////////////////////////////////////////
@@ -43,12 +44,9 @@ final class JarResourcesLoader implements IResourcesLoader {
   // Constructor
   //
   ////////////////////////////////////////////////////////////////////////////
-  public JarResourcesLoader(File file) {
-    try {
-      m_jarFile = new JarFile(file);
-    } catch (Throwable e) {
-      throw new Error("Unable to open file: " + file, e);
-    }
+  public JarResourcesLoader(File file, JarFile jarFile) {
+    m_jarFile = jarFile;
+    m_modificationStamp = file.lastModified();
   }
 
   ////////////////////////////////////////////////////////////////////////////
@@ -76,24 +74,25 @@ final class JarResourcesLoader implements IResourcesLoader {
     }, null);
   }
 
+  public String getResourceLocation(String path) throws Exception {
+    if (m_jarFile.getEntry(path) != null) {
+      return m_jarFile.getName() + "!/" + path;
+    }
+    return null;
+  }
+
+  public long getResourceModificationStamp(String path) throws Exception {
+    return m_modificationStamp;
+  }
+
   ////////////////////////////////////////////////////////////////////////////
   //
   // IResourcesLoader: listing
   //
   ////////////////////////////////////////////////////////////////////////////
   public void appendFiles(List<String> files, String path) throws Exception {
-    // prepare full list of entries names
-    if (m_entryNames == null) {
-      m_entryNames = Lists.newArrayList();
-      //
-      Enumeration<JarEntry> enumeration = m_jarFile.entries();
-      while (enumeration.hasMoreElements()) {
-        JarEntry entry = enumeration.nextElement();
-        m_entryNames.add(entry.getName());
-      }
-    }
     // add into "files" only entries that are inside of given "path"
-    for (String entryName : m_entryNames) {
+    for (String entryName : getEntryNames()) {
       if (entryName.startsWith(path)) {
         String relativePath = entryName.substring(path.length());
         // normalize relative path
@@ -107,4 +106,19 @@ final class JarResourcesLoader implements IResourcesLoader {
       }
     }
   }
+
+  /**
+   * @return the names of all entries in this JAR file.
+   */
+  synchronized List<String> getEntryNames() {
+    if (m_entryNames == null) {
+      m_entryNames = Lists.newArrayList();
+      Enumeration<JarEntry> enumeration = m_jarFile.entries();
+      while (enumeration.hasMoreElements()) {
+        JarEntry entry = enumeration.nextElement();
+        m_entryNames.add(entry.getName());
+      }
+    }
+    return m_entryNames;
+  }
 }
\ No newline at end of file
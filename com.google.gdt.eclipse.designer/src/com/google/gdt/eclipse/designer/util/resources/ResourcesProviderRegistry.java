@@ -0,0 +1,296 @@
+/*******************************************************************************
+ * Copyright 2011 Google Inc. All Rights Reserved.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.google.gdt.eclipse.designer.util.resources;
+
+import com.google.common.collect.Maps;
+
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registry of {@link DefaultResourcesProvider}'s shared between all clients of same
+ * {@link IJavaProject}.
+ * <p>
+ * Each client receives separate {@link IResourcesProvider} and should dispose it as usually, but
+ * this only decrements reference count of shared {@link DefaultResourcesProvider}. Shared provider
+ * is closed when it is not used for some time, or when classpath of any project is changed.
+ *
+ * @author scheglov_ke
+ * @coverage gwt.util.resources
+ */
+public final class ResourcesProviderRegistry {
+  /**
+   * Time in milliseconds after which not used provider is closed, so does not keep JAR files open.
+   */
+  private static final long IDLE_TIMEOUT = 15 * 1000;
+  private static final Map<String, Entry> m_entries = Maps.newHashMap();
+  private static IElementChangedListener m_javaListener;
+  private static IResourceChangeListener m_resourceListener;
+  private static Job m_closeIdleJob;
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Constructor
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  private ResourcesProviderRegistry() {
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Access
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  /**
+   * @return the {@link IResourcesProvider} for given {@link IJavaProject}, backed by shared
+   *         {@link DefaultResourcesProvider}. Should be disposed after use.
+   */
+  public static IResourcesProvider get(IJavaProject javaProject) throws Exception {
+    String key = javaProject.getElementName();
+    synchronized (m_entries) {
+      installListeners();
+      Entry entry = m_entries.get(key);
+      if (entry == null) {
+        entry = new Entry(new DefaultResourcesProvider(javaProject));
+        m_entries.put(key, entry);
+      }
+      entry.refCount++;
+      return new SharedResourcesProvider(entry);
+    }
+  }
+
+  /**
+   * Closes all shared {@link DefaultResourcesProvider}'s, after they will be released by clients.
+   */
+  public static void invalidate() {
+    synchronized (m_entries) {
+      for (Entry entry : m_entries.values()) {
+        entry.invalidated = true;
+        if (entry.refCount == 0) {
+          entry.provider.dispose();
+        }
+      }
+      m_entries.clear();
+    }
+  }
+
+  /**
+   * Invalidates all providers and stops listening for changes.
+   */
+  public static void dispose() {
+    synchronized (m_entries) {
+      invalidate();
+      if (m_javaListener != null) {
+        JavaCore.removeElementChangedListener(m_javaListener);
+        m_javaListener = null;
+      }
+      if (m_resourceListener != null) {
+        ResourcesPlugin.getWorkspace().removeResourceChangeListener(m_resourceListener);
+        m_resourceListener = null;
+      }
+      if (m_closeIdleJob != null) {
+        m_closeIdleJob.cancel();
+        m_closeIdleJob = null;
+      }
+    }
+  }
+
+  /**
+   * @return the number of shared {@link DefaultResourcesProvider}'s.
+   */
+  public static int getSize() {
+    synchronized (m_entries) {
+      return m_entries.size();
+    }
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Implementation
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  /**
+   * Decrements reference count of given {@link Entry}.
+   */
+  private static void release(Entry entry) {
+    synchronized (m_entries) {
+      entry.refCount--;
+      if (entry.refCount == 0) {
+        if (entry.invalidated) {
+          entry.provider.dispose();
+        } else {
+          entry.releaseTime = System.currentTimeMillis();
+          if (m_closeIdleJob != null) {
+            m_closeIdleJob.schedule(IDLE_TIMEOUT);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Closes providers which are not used during {@link #IDLE_TIMEOUT}.
+   */
+  private static void closeIdleProviders() {
+    synchronized (m_entries) {
+      long now = System.currentTimeMillis();
+      boolean hasIdle = false;
+      for (Iterator<Entry> I = m_entries.values().iterator(); I.hasNext();) {
+        Entry entry = I.next();
+        if (entry.refCount == 0) {
+          if (now - entry.releaseTime >= IDLE_TIMEOUT) {
+            I.remove();
+            entry.provider.dispose();
+          } else {
+            hasIdle = true;
+          }
+        }
+      }
+      // check again later
+      if (hasIdle && m_closeIdleJob != null) {
+        m_closeIdleJob.schedule(IDLE_TIMEOUT);
+      }
+    }
+  }
+
+  private static void installListeners() {
+    if (m_javaListener == null) {
+      m_javaListener = new IElementChangedListener() {
+        public void elementChanged(ElementChangedEvent event) {
+          if (hasClasspathChange(event.getDelta())) {
+            invalidate();
+          }
+        }
+      };
+      JavaCore.addElementChangedListener(m_javaListener, ElementChangedEvent.POST_CHANGE);
+    }
+    if (m_resourceListener == null) {
+      // project is going to be closed or deleted, release its JAR files
+      m_resourceListener = new IResourceChangeListener() {
+        public void resourceChanged(IResourceChangeEvent event) {
+          invalidate();
+        }
+      };
+      ResourcesPlugin.getWorkspace().addResourceChangeListener(
+          m_resourceListener,
+          IResourceChangeEvent.PRE_CLOSE | IResourceChangeEvent.PRE_DELETE);
+    }
+    if (m_closeIdleJob == null) {
+      m_closeIdleJob = new Job("Close idle GWT resources providers") {
+        @Override
+        protected IStatus run(IProgressMonitor monitor) {
+          closeIdleProviders();
+          return Status.OK_STATUS;
+        }
+      };
+      m_closeIdleJob.setSystem(true);
+    }
+  }
+
+  /**
+   * @return <code>true</code> if given {@link IJavaElementDelta} has change of classpath, or
+   *         content of JAR in classpath.
+   */
+  public static boolean hasClasspathChange(IJavaElementDelta delta) {
+    int flags = delta.getFlags();
+    if ((flags & (IJavaElementDelta.F_CLASSPATH_CHANGED
+        | IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED
+        | IJavaElementDelta.F_ARCHIVE_CONTENT_CHANGED
+        | IJavaElementDelta.F_ADDED_TO_CLASSPATH
+        | IJavaElementDelta.F_REMOVED_FROM_CLASSPATH)) != 0) {
+      return true;
+    }
+    // check projects, but not deeper than package fragment roots
+    int elementType = delta.getElement().getElementType();
+    if (elementType == IJavaElement.JAVA_MODEL || elementType == IJavaElement.JAVA_PROJECT) {
+      for (IJavaElementDelta childDelta : delta.getAffectedChildren()) {
+        if (hasClasspathChange(childDelta)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  //
+  // Entry
+  //
+  ////////////////////////////////////////////////////////////////////////////
+  /**
+   * Shared {@link DefaultResourcesProvider} and its usage information.
+   */
+  private static final class Entry {
+    private final DefaultResourcesProvider provider;
+    private int refCount;
+    private long releaseTime;
+    private boolean invalidated;
+
+    public Entry(DefaultResourcesProvider provider) {
+      this.provider = provider;
+    }
+  }
+
+  /**
+   * {@link IResourcesProvider} given to single client.
+   */
+  private static final class SharedResourcesProvider implements IResourcesProvider {
+    private final Entry m_entry;
+    private boolean m_disposed;
+
+    public SharedResourcesProvider(Entry entry) {
+      m_entry = entry;
+    }
+
+    public void dispose() {
+      if (!m_disposed) {
+        m_disposed = true;
+        release(m_entry);
+      }
+    }
+
+    public InputStream getResourceAsStream(String path) throws Exception {
+      return m_entry.provider.getResourceAsStream(path);
+    }
+
+    public String getResourceLocation(String path) throws Exception {
+      return m_entry.provider.getResourceLocation(path);
+    }
+
+    public long getResourceModificationStamp(String path) throws Exception {
+      return m_entry.provider.getResourceModificationStamp(path);
+    }
+
+    public List<String> listFiles(String path) throws Exception {
+      return m_entry.provider.listFiles(path);
+    }
+  }
+}